@@ -1,6 +1,7 @@
 package org.jim.mcpmysqlserver;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -8,19 +9,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.jim.mcpmysqlserver.config.extension.Extension;
 import org.jim.mcpmysqlserver.config.extension.GroovyService;
 import org.jim.mcpmysqlserver.mcp.MysqlOptionService;
+import org.jim.mcpmysqlserver.schema.SchemaSnapshot;
+import org.jim.mcpmysqlserver.schema.TableMetadata;
 import org.jim.mcpmysqlserver.service.DataSourceService;
+import org.jim.mcpmysqlserver.service.SchemaMetadataService;
+import org.jim.mcpmysqlserver.util.CachedJson;
 import org.jim.mcpmysqlserver.util.PortUtils;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 
 /**
@@ -109,18 +119,157 @@ public class McpMysqlServerApplication {
     }
 
 
+    /**
+     * 同步模式下注册数据库工具；异步模式（spring.ai.mcp.server.type=ASYNC）下由 AsyncMcpServerConfig 注册
+     */
     @Bean
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "SYNC", matchIfMissing = true)
     public ToolCallbackProvider databaseToolCallbackProvider(MysqlOptionService mysqlOptionService) {
         return MethodToolCallbackProvider.builder()
                 .toolObjects(mysqlOptionService)
                 .build();
     }
 
+    /**
+     * 常用SQL模板Resource的内容
+     */
+    private static Map<String, Object> sqlTemplatesInfo() {
+        Map<String, Object> templatesInfo = new HashMap<>();
+
+        // 定义常用SQL模板
+        List<Map<String, Object>> templates = List.of(
+                Map.of(
+                        "category", "基础查询",
+                        "name", "查看表结构",
+                        "template", "DESCRIBE {table_name}",
+                        "description", "查看指定表的字段结构",
+                        "example", "DESCRIBE users"
+                ),
+                Map.of(
+                        "category", "基础查询",
+                        "name", "查看所有表",
+                        "template", "SHOW TABLES",
+                        "description", "列出当前数据库中的所有表",
+                        "example", "SHOW TABLES"
+                ),
+                Map.of(
+                        "category", "数据查询",
+                        "name", "分页查询",
+                        "template", "SELECT * FROM {table_name} LIMIT {offset}, {limit}",
+                        "description", "分页查询表数据",
+                        "example", "SELECT * FROM users LIMIT 0, 10"
+                ),
+                Map.of(
+                        "category", "数据查询",
+                        "name", "条件查询",
+                        "template", "SELECT * FROM {table_name} WHERE {condition}",
+                        "description", "根据条件查询数据",
+                        "example", "SELECT * FROM users WHERE status = 'active'"
+                ),
+                Map.of(
+                        "category", "统计查询",
+                        "name", "记录计数",
+                        "template", "SELECT COUNT(*) as total FROM {table_name}",
+                        "description", "统计表中的记录总数",
+                        "example", "SELECT COUNT(*) as total FROM users"
+                ),
+                Map.of(
+                        "category", "统计查询",
+                        "name", "分组统计",
+                        "template", "SELECT {group_field}, COUNT(*) as count FROM {table_name} GROUP BY {group_field}",
+                        "description", "按字段分组统计",
+                        "example", "SELECT status, COUNT(*) as count FROM users GROUP BY status"
+                ),
+                Map.of(
+                        "category", "系统信息",
+                        "name", "数据库版本",
+                        "template", "SELECT VERSION() as version",
+                        "description", "查看数据库版本信息",
+                        "example", "SELECT VERSION() as version"
+                ),
+                Map.of(
+                        "category", "系统信息",
+                        "name", "当前时间",
+                        "template", "SELECT NOW() as current_time",
+                        "description", "获取当前数据库时间",
+                        "example", "SELECT NOW() as current_time"
+                )
+        );
+
+        templatesInfo.put("templates", templates);
+        templatesInfo.put("totalCount", templates.size());
+        templatesInfo.put("categories", templates.stream()
+                .map(t -> (String) t.get("category"))
+                .distinct()
+                .sorted()
+                .toList());
+        templatesInfo.put("usage", "将模板中的 {参数} 替换为实际值，例如 {table_name} 替换为实际的表名");
+        templatesInfo.put("lastUpdated", java.time.Instant.now().toString());
+        return templatesInfo;
+    }
+
+    /**
+     * 把表结构快照转换为表列表Resource的内容
+     */
+    private static Map<String, Object> tableListInfo(SchemaSnapshot snapshot) {
+        List<Map<String, Object>> tables = new ArrayList<>();
+        for (TableMetadata table : snapshot.tables().values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("TABLE_NAME", table.name());
+            row.put("TABLE_TYPE", table.type());
+            row.put("TABLE_COMMENT", table.comment());
+            row.put("TABLE_ROWS", table.rows());
+            row.put("COLUMN_COUNT", table.columns().size());
+            tables.add(row);
+        }
+
+        Map<String, Object> tableInfo = new HashMap<>();
+        tableInfo.put("tables", tables);
+        tableInfo.put("databaseName", snapshot.dataSourceName());
+        tableInfo.put("databaseType", snapshot.databaseType().getDisplayName());
+        tableInfo.put("version", snapshot.version());
+        tableInfo.put("lastUpdated", snapshot.loadedAt().toString());
+        return tableInfo;
+    }
+
+    /**
+     * 解析 mcp://database/{datasource}/tables[/{table}] 和 mcp://database/{datasource}/schemas[/{schema}/tables] 中的路径段并做 URL 解码
+     * @return 路径段列表，第一个为数据源名称
+     * @throws IllegalArgumentException URI 格式不正确或数据源不存在时
+     */
+    private static List<String> schemaUriSegments(String uri, DataSourceService dataSourceService) {
+        String prefix = "mcp://database/";
+        if (uri == null || !uri.startsWith(prefix)) {
+            throw new IllegalArgumentException("Invalid schema resource URI: " + uri);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : uri.substring(prefix.length()).split("/")) {
+            segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+        }
+        if (segments.size() < 2 || !("tables".equals(segments.get(1)) || "schemas".equals(segments.get(1)))) {
+            throw new IllegalArgumentException("Invalid schema resource URI: " + uri);
+        }
+        String dataSourceName = segments.get(0);
+        if (!"primary".equals(dataSourceName) && !dataSourceService.getDataSourceNames().contains(dataSourceName)) {
+            throw new IllegalArgumentException("Datasource not found: " + dataSourceName);
+        }
+        return segments;
+    }
+
     @Bean
     public List<McpServerFeatures.SyncResourceSpecification> myResources(
             DataSourceService dataSourceService,
             GroovyService groovyService,
-            MysqlOptionService mysqlOptionService) {
+            MysqlOptionService mysqlOptionService,
+            SchemaMetadataService schemaMetadataService,
+            ObjectMapper objectMapper) {
+
+        // 所有Resource共用一个序列化器；内容不变的Resource缓存渲染结果，版本变化时才重新渲染
+        ObjectWriter jsonWriter = objectMapper.writer();
+        CachedJson dataSourceJson = new CachedJson(jsonWriter);
+        CachedJson extensionsJson = new CachedJson(jsonWriter);
+        CachedJson sqlTemplatesJson = new CachedJson(jsonWriter);
+        Map<String, CachedJson> tableListJson = new ConcurrentHashMap<>();
 
         McpSchema.Annotations highPriorityAnnotations = new McpSchema.Annotations(
                 List.of(McpSchema.Role.USER, McpSchema.Role.ASSISTANT), 0.9
@@ -143,18 +292,20 @@ public class McpMysqlServerApplication {
 
         var dataSourceSpec = new McpServerFeatures.SyncResourceSpecification(dataSourceResource, (exchange, request) -> {
             try {
-                Map<String, Object> dataSourceInfo = new HashMap<>();
+                // 数据源注册信息不变时直接返回上次渲染的结果
+                String jsonContent = dataSourceJson.get(dataSourceService.getRegistryFingerprint(), () -> {
+                    Map<String, Object> dataSourceInfo = new HashMap<>();
 
-                // 获取数据源详细信息
-                List<Map<String, Object>> dataSourceDetails = dataSourceService.getDataSourceDetails();
-                String defaultDataSourceName = dataSourceService.getDefaultDataSourceName();
-
-                dataSourceInfo.put("datasources", dataSourceDetails);
-                dataSourceInfo.put("defaultDataSource", defaultDataSourceName);
-                dataSourceInfo.put("totalCount", dataSourceDetails.size());
-                dataSourceInfo.put("lastUpdated", java.time.Instant.now().toString());
+                    // 获取数据源详细信息
+                    List<Map<String, Object>> dataSourceDetails = dataSourceService.getDataSourceDetails();
+                    String defaultDataSourceName = dataSourceService.getDefaultDataSourceName();
 
-                String jsonContent = new ObjectMapper().writeValueAsString(dataSourceInfo);
+                    dataSourceInfo.put("datasources", dataSourceDetails);
+                    dataSourceInfo.put("defaultDataSource", defaultDataSourceName);
+                    dataSourceInfo.put("totalCount", dataSourceDetails.size());
+                    dataSourceInfo.put("lastUpdated", java.time.Instant.now().toString());
+                    return dataSourceInfo;
+                });
                 return new McpSchema.ReadResourceResult(
                         List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
             } catch (Exception e) {
@@ -168,91 +319,17 @@ public class McpMysqlServerApplication {
         var tableStructureResource = new McpSchema.Resource(
                 "mcp://database/tables",
                 "数据库表结构信息",
-                "提供默认数据源中所有表的结构信息，包括表名、字段信息等",
+                "提供默认数据源中所有表的结构信息，包括表名、类型、注释、估算行数和字段数，数据来自定期增量刷新的表结构缓存",
                 "application/json",
                 highPriorityAnnotations
         );
 
         var tableStructureSpec = new McpServerFeatures.SyncResourceSpecification(tableStructureResource, (exchange, request) -> {
             try {
-                Map<String, Object> tableInfo = new HashMap<>();
-                String defaultDataSourceName = dataSourceService.getDefaultDataSourceName();
-
-                // 获取数据库类型
-                List<Map<String, Object>> dataSourceDetails = dataSourceService.getDataSourceDetails();
-                String databaseType = dataSourceDetails.stream()
-                        .filter(ds -> defaultDataSourceName.equals(ds.get("name")))
-                        .map(ds -> (String) ds.get("databaseType"))
-                        .findFirst()
-                        .orElse("Unknown");
-
-                String tableQuery;
-
-                // 根据数据库类型选择合适的查询语句
-                switch (databaseType.toLowerCase()) {
-                    case "postgresql":
-                        tableQuery = "SELECT " +
-                                "table_name as TABLE_NAME, " +
-                                "'' as TABLE_COMMENT, " +
-                                "0 as TABLE_ROWS, " +
-                                "null as CREATE_TIME, " +
-                                "null as UPDATE_TIME " +
-                                "FROM information_schema.tables " +
-                                "WHERE table_schema = 'public' " +
-                                "ORDER BY table_name";
-                        break;
-                    case "oracle":
-                        tableQuery = "SELECT " +
-                                "table_name as TABLE_NAME, " +
-                                "'' as TABLE_COMMENT, " +
-                                "num_rows as TABLE_ROWS, " +
-                                "created as CREATE_TIME, " +
-                                "last_analyzed as UPDATE_TIME " +
-                                "FROM user_tables " +
-                                "ORDER BY table_name";
-                        break;
-                    case "sql server":
-                        tableQuery = "SELECT " +
-                                "TABLE_NAME, " +
-                                "'' as TABLE_COMMENT, " +
-                                "0 as TABLE_ROWS, " +
-                                "null as CREATE_TIME, " +
-                                "null as UPDATE_TIME " +
-                                "FROM INFORMATION_SCHEMA.TABLES " +
-                                "WHERE TABLE_TYPE = 'BASE TABLE' " +
-                                "ORDER BY TABLE_NAME";
-                        break;
-                    case "h2":
-                        tableQuery = "SELECT " +
-                                "TABLE_NAME, " +
-                                "REMARKS as TABLE_COMMENT, " +
-                                "0 as TABLE_ROWS, " +
-                                "null as CREATE_TIME, " +
-                                "null as UPDATE_TIME " +
-                                "FROM INFORMATION_SCHEMA.TABLES " +
-                                "WHERE TABLE_SCHEMA = SCHEMA() " +
-                                "ORDER BY TABLE_NAME";
-                        break;
-                    case "mysql":
-                    default:
-                        tableQuery = "SELECT TABLE_NAME, TABLE_COMMENT, TABLE_ROWS, CREATE_TIME, UPDATE_TIME " +
-                                "FROM INFORMATION_SCHEMA.TABLES " +
-                                "WHERE TABLE_SCHEMA = DATABASE() " +
-                                "ORDER BY TABLE_NAME";
-                        break;
-                }
-
-                Map<String, Object> tablesResult = mysqlOptionService.executeSqlWithDataSource(
-                        defaultDataSourceName,
-                        tableQuery
-                );
-
-                tableInfo.put("tables", tablesResult.get(defaultDataSourceName));
-                tableInfo.put("databaseName", defaultDataSourceName);
-                tableInfo.put("databaseType", databaseType);
-                tableInfo.put("lastUpdated", java.time.Instant.now().toString());
-
-                String jsonContent = new ObjectMapper().writeValueAsString(tableInfo);
+                // 从内存中的表结构快照生成，不再每次查询数据库
+                SchemaSnapshot snapshot = schemaMetadataService.getSnapshot(dataSourceService.getDefaultDataSourceName());
+                String jsonContent = tableListJson.computeIfAbsent(snapshot.dataSourceName(), k -> new CachedJson(jsonWriter))
+                        .get(snapshot.loadedAt(), () -> tableListInfo(snapshot));
                 return new McpSchema.ReadResourceResult(
                         List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
             } catch (Exception e) {
@@ -277,7 +354,7 @@ public class McpMysqlServerApplication {
                             "H2", "SHOW TABLES"
                     ));
 
-                    String jsonContent = new ObjectMapper().writeValueAsString(errorInfo);
+                    String jsonContent = jsonWriter.writeValueAsString(errorInfo);
                     return new McpSchema.ReadResourceResult(
                             List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
                 } catch (Exception jsonEx) {
@@ -286,6 +363,110 @@ public class McpMysqlServerApplication {
             }
         });
         resources.add(tableStructureSpec);
+
+        // 2.1 指定数据源的表列表Resource模板
+        var dataSourceTablesResource = new McpSchema.Resource(
+                "mcp://database/{datasource}/tables",
+                "指定数据源的表列表",
+                "提供指定数据源中所有表的表名、类型、注释、估算行数和字段数，datasource 为 listDataSources 返回的数据源名称",
+                "application/json",
+                highPriorityAnnotations
+        );
+
+        var dataSourceTablesSpec = new McpServerFeatures.SyncResourceSpecification(dataSourceTablesResource, (exchange, request) -> {
+            try {
+                List<String> segments = schemaUriSegments(request.uri(), dataSourceService);
+                SchemaSnapshot snapshot = schemaMetadataService.getSnapshot(segments.get(0));
+                String jsonContent = tableListJson.computeIfAbsent(snapshot.dataSourceName(), k -> new CachedJson(jsonWriter))
+                        .get(snapshot.loadedAt(), () -> tableListInfo(snapshot));
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
+            } catch (Exception e) {
+                log.error("Failed to generate table list for {}: {}", request.uri(), e.getMessage(), e);
+                throw new RuntimeException("Failed to generate table list: " + e.getMessage(), e);
+            }
+        });
+        resources.add(dataSourceTablesSpec);
+
+        // 2.2 单表完整结构Resource模板
+        var tableDetailResource = new McpSchema.Resource(
+                "mcp://database/{datasource}/tables/{table}",
+                "单表完整结构",
+                "提供指定数据源中一张表的列、类型、可空、默认值、注释、主键、索引和外键。需要多张表时使用 describeTables 工具一次获取",
+                "application/json",
+                highPriorityAnnotations
+        );
+
+        var tableDetailSpec = new McpServerFeatures.SyncResourceSpecification(tableDetailResource, (exchange, request) -> {
+            try {
+                List<String> segments = schemaUriSegments(request.uri(), dataSourceService);
+                String tableName = segments.get(2);
+                Object description = schemaMetadataService.describeTables(segments.get(0), List.of(tableName)).get(tableName);
+
+                String jsonContent = jsonWriter.writeValueAsString(description);
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
+            } catch (Exception e) {
+                log.error("Failed to describe table for {}: {}", request.uri(), e.getMessage(), e);
+                throw new RuntimeException("Failed to describe table: " + e.getMessage(), e);
+            }
+        });
+        resources.add(tableDetailSpec);
+
+        // 2.3 库或模式列表Resource模板，只返回第一页
+        var schemaListResource = new McpSchema.Resource(
+                "mcp://database/{datasource}/schemas",
+                "指定数据源的库或模式列表",
+                "提供指定数据源中库（MySQL）或模式的第一页，按名称排序。返回 next_cursor 时使用 listSchemas 工具翻页或按名称过滤",
+                "application/json",
+                mediumPriorityAnnotations
+        );
+
+        var schemaListSpec = new McpServerFeatures.SyncResourceSpecification(schemaListResource, (exchange, request) -> {
+            try {
+                List<String> segments = schemaUriSegments(request.uri(), dataSourceService);
+                Map<String, Object> page = mysqlOptionService.listSchemas(segments.get(0), null, null, null);
+                if (page.containsKey("error")) {
+                    throw new IllegalStateException(String.valueOf(page.get("error")));
+                }
+                String jsonContent = jsonWriter.writeValueAsString(page);
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
+            } catch (Exception e) {
+                log.error("Failed to list schemas for {}: {}", request.uri(), e.getMessage(), e);
+                throw new RuntimeException("Failed to list schemas: " + e.getMessage(), e);
+            }
+        });
+        resources.add(schemaListSpec);
+
+        // 2.4 库或模式中的表列表Resource模板，只返回第一页
+        var schemaTablesResource = new McpSchema.Resource(
+                "mcp://database/{datasource}/schemas/{schema}/tables",
+                "指定库或模式的表列表",
+                "提供指定库或模式中表和视图的第一页，包括表名、类型、估算行数和注释。返回 next_cursor 时使用 listTables 工具翻页或按表名过滤",
+                "application/json",
+                mediumPriorityAnnotations
+        );
+
+        var schemaTablesSpec = new McpServerFeatures.SyncResourceSpecification(schemaTablesResource, (exchange, request) -> {
+            try {
+                List<String> segments = schemaUriSegments(request.uri(), dataSourceService);
+                if (segments.size() != 4 || !"tables".equals(segments.get(3))) {
+                    throw new IllegalArgumentException("Invalid schema resource URI: " + request.uri());
+                }
+                Map<String, Object> page = mysqlOptionService.listTables(segments.get(2), segments.get(0), null, null, null);
+                if (page.containsKey("error")) {
+                    throw new IllegalStateException(String.valueOf(page.get("error")));
+                }
+                String jsonContent = jsonWriter.writeValueAsString(page);
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
+            } catch (Exception e) {
+                log.error("Failed to list tables for {}: {}", request.uri(), e.getMessage(), e);
+                throw new RuntimeException("Failed to list tables: " + e.getMessage(), e);
+            }
+        });
+        resources.add(schemaTablesSpec);
         // 3. 扩展功能信息Resource
         var extensionsResource = new McpSchema.Resource(
                 "mcp://extensions/list",
@@ -297,29 +478,32 @@ public class McpMysqlServerApplication {
 
         var extensionsSpec = new McpServerFeatures.SyncResourceSpecification(extensionsResource, (exchange, request) -> {
             try {
-                Map<String, Object> extensionInfo = new HashMap<>();
-
-                List<Extension> extensions = groovyService.getAllExtensions();
-
-                // 过滤启用的扩展并格式化信息
-                List<Map<String, Object>> enabledExtensions = extensions.stream()
-                        .filter(ext -> ext.getEnabled() != null && ext.getEnabled())
-                        .map(ext -> {
-                            Map<String, Object> extInfo = new HashMap<>();
-                            extInfo.put("name", ext.getName());
-                            extInfo.put("description", ext.getDescription());
-                            extInfo.put("prompt", ext.getPrompt());
-                            extInfo.put("enabled", ext.getEnabled());
-                            return extInfo;
-                        })
-                        .toList();
-
-                extensionInfo.put("extensions", enabledExtensions);
-                extensionInfo.put("totalCount", extensions.size());
-                extensionInfo.put("enabledCount", enabledExtensions.size());
-                extensionInfo.put("lastUpdated", java.time.Instant.now().toString());
-
-                String jsonContent = new ObjectMapper().writeValueAsString(extensionInfo);
+                // 扩展的就绪状态变化（预热、首次加载、脚本重新加载）时才重新渲染
+                String jsonContent = extensionsJson.get(groovyService.getStatuses(), () -> {
+                    Map<String, Object> extensionInfo = new HashMap<>();
+
+                    List<Extension> extensions = groovyService.getAllExtensions();
+
+                    // 过滤启用的扩展并格式化信息
+                    List<Map<String, Object>> enabledExtensions = extensions.stream()
+                            .filter(ext -> ext.getEnabled() != null && ext.getEnabled())
+                            .map(ext -> {
+                                Map<String, Object> extInfo = new HashMap<>();
+                                extInfo.put("name", ext.getName());
+                                extInfo.put("description", ext.getDescription());
+                                extInfo.put("prompt", ext.getPrompt());
+                                extInfo.put("enabled", ext.getEnabled());
+                                extInfo.put("readiness", ext.getReadiness());
+                                return extInfo;
+                            })
+                            .toList();
+
+                    extensionInfo.put("extensions", enabledExtensions);
+                    extensionInfo.put("totalCount", extensions.size());
+                    extensionInfo.put("enabledCount", enabledExtensions.size());
+                    extensionInfo.put("lastUpdated", java.time.Instant.now().toString());
+                    return extensionInfo;
+                });
                 return new McpSchema.ReadResourceResult(
                         List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
             } catch (Exception e) {
@@ -340,79 +524,8 @@ public class McpMysqlServerApplication {
 
         var sqlTemplatesSpec = new McpServerFeatures.SyncResourceSpecification(sqlTemplatesResource, (exchange, request) -> {
             try {
-                Map<String, Object> templatesInfo = new HashMap<>();
-
-                // 定义常用SQL模板
-                List<Map<String, Object>> templates = List.of(
-                        Map.of(
-                                "category", "基础查询",
-                                "name", "查看表结构",
-                                "template", "DESCRIBE {table_name}",
-                                "description", "查看指定表的字段结构",
-                                "example", "DESCRIBE users"
-                        ),
-                        Map.of(
-                                "category", "基础查询",
-                                "name", "查看所有表",
-                                "template", "SHOW TABLES",
-                                "description", "列出当前数据库中的所有表",
-                                "example", "SHOW TABLES"
-                        ),
-                        Map.of(
-                                "category", "数据查询",
-                                "name", "分页查询",
-                                "template", "SELECT * FROM {table_name} LIMIT {offset}, {limit}",
-                                "description", "分页查询表数据",
-                                "example", "SELECT * FROM users LIMIT 0, 10"
-                        ),
-                        Map.of(
-                                "category", "数据查询",
-                                "name", "条件查询",
-                                "template", "SELECT * FROM {table_name} WHERE {condition}",
-                                "description", "根据条件查询数据",
-                                "example", "SELECT * FROM users WHERE status = 'active'"
-                        ),
-                        Map.of(
-                                "category", "统计查询",
-                                "name", "记录计数",
-                                "template", "SELECT COUNT(*) as total FROM {table_name}",
-                                "description", "统计表中的记录总数",
-                                "example", "SELECT COUNT(*) as total FROM users"
-                        ),
-                        Map.of(
-                                "category", "统计查询",
-                                "name", "分组统计",
-                                "template", "SELECT {group_field}, COUNT(*) as count FROM {table_name} GROUP BY {group_field}",
-                                "description", "按字段分组统计",
-                                "example", "SELECT status, COUNT(*) as count FROM users GROUP BY status"
-                        ),
-                        Map.of(
-                                "category", "系统信息",
-                                "name", "数据库版本",
-                                "template", "SELECT VERSION() as version",
-                                "description", "查看数据库版本信息",
-                                "example", "SELECT VERSION() as version"
-                        ),
-                        Map.of(
-                                "category", "系统信息",
-                                "name", "当前时间",
-                                "template", "SELECT NOW() as current_time",
-                                "description", "获取当前数据库时间",
-                                "example", "SELECT NOW() as current_time"
-                        )
-                );
-
-                templatesInfo.put("templates", templates);
-                templatesInfo.put("totalCount", templates.size());
-                templatesInfo.put("categories", templates.stream()
-                        .map(t -> (String) t.get("category"))
-                        .distinct()
-                        .sorted()
-                        .toList());
-                templatesInfo.put("usage", "将模板中的 {参数} 替换为实际值，例如 {table_name} 替换为实际的表名");
-                templatesInfo.put("lastUpdated", java.time.Instant.now().toString());
-
-                String jsonContent = new ObjectMapper().writeValueAsString(templatesInfo);
+                // 模板是静态内容，只渲染一次
+                String jsonContent = sqlTemplatesJson.get(null, McpMysqlServerApplication::sqlTemplatesInfo);
                 return new McpSchema.ReadResourceResult(
                         List.of(new McpSchema.TextResourceContents(request.uri(), "application/json", jsonContent)));
             } catch (Exception e) {
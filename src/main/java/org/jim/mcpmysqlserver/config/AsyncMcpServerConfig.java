@@ -0,0 +1,91 @@
+package org.jim.mcpmysqlserver.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.mcp.MysqlOptionService;
+import org.jim.mcpmysqlserver.mcp.VirtualThreadCallRunner;
+import org.jim.mcpmysqlserver.service.StatementCanceller;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步 MCP 服务配置
+ * <p>
+ * spring.ai.mcp.server.type 为 ASYNC 时，Spring AI 创建 McpAsyncServer，只读取 Async*Specification。
+ * 这里把 MysqlOptionService 的工具和已有的同步Resource、Prompt转换为异步版本，每次调用在 {@link VirtualThreadCallRunner}
+ * 的虚拟线程中执行；工具调用超过 toolTimeoutSeconds 后取消正在执行的语句并返回错误结果。
+ * 同步模式下工具由 McpMysqlServerApplication 中的 ToolCallbackProvider 注册，这里的 Bean 都不创建
+ * @author yangxin
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+@Slf4j
+public class AsyncMcpServerConfig {
+
+    @Bean
+    public VirtualThreadCallRunner virtualThreadCallRunner(StatementCanceller statementCanceller, McpAsyncConfig config,
+                                                           MeterRegistry meterRegistry) {
+        return new VirtualThreadCallRunner(statementCanceller, config.getMaxConcurrentCalls(), meterRegistry);
+    }
+
+    @Bean
+    public List<McpServerFeatures.AsyncToolSpecification> asyncDatabaseTools(MysqlOptionService mysqlOptionService,
+                                                                             VirtualThreadCallRunner runner, McpAsyncConfig config) {
+        ToolCallback[] callbacks = MethodToolCallbackProvider.builder()
+                .toolObjects(mysqlOptionService)
+                .build()
+                .getToolCallbacks();
+        log.info("Registering {} tools for the async MCP server, tool timeout {}s", callbacks.length, config.getToolTimeoutSeconds());
+        return Arrays.stream(callbacks)
+                .map(McpToolUtils::toSyncToolSpecification)
+                .map(spec -> toAsync(spec, runner, config.getToolTimeoutSeconds()))
+                .toList();
+    }
+
+    @Bean
+    public List<McpServerFeatures.AsyncResourceSpecification> asyncResources(
+            ObjectProvider<List<McpServerFeatures.SyncResourceSpecification>> syncResources, VirtualThreadCallRunner runner) {
+        return syncResources.stream().flatMap(List::stream)
+                .map(spec -> new McpServerFeatures.AsyncResourceSpecification(spec.resource(), (exchange, request) ->
+                        runner.call(request.uri(), () -> spec.readHandler().apply(new McpSyncServerExchange(exchange), request))))
+                .toList();
+    }
+
+    @Bean
+    public List<McpServerFeatures.AsyncPromptSpecification> asyncPrompts(
+            ObjectProvider<List<McpServerFeatures.SyncPromptSpecification>> syncPrompts, VirtualThreadCallRunner runner) {
+        return syncPrompts.stream().flatMap(List::stream)
+                .map(spec -> new McpServerFeatures.AsyncPromptSpecification(spec.prompt(), (exchange, request) ->
+                        runner.call(spec.prompt().name(), () -> spec.promptHandler().apply(new McpSyncServerExchange(exchange), request))))
+                .toList();
+    }
+
+    private static McpServerFeatures.AsyncToolSpecification toAsync(McpServerFeatures.SyncToolSpecification spec,
+                                                                     VirtualThreadCallRunner runner, int timeoutSeconds) {
+        String name = spec.tool().name();
+        return new McpServerFeatures.AsyncToolSpecification(spec.tool(), (exchange, arguments) -> {
+            Mono<McpSchema.CallToolResult> result = runner.call(name, () -> spec.call().apply(new McpSyncServerExchange(exchange), arguments));
+            if (timeoutSeconds <= 0) {
+                return result;
+            }
+            // 超时后 timeout 取消订阅，VirtualThreadCallRunner 随之取消正在执行的语句
+            return result.timeout(Duration.ofSeconds(timeoutSeconds))
+                    .onErrorResume(TimeoutException.class, e -> Mono.just(new McpSchema.CallToolResult(
+                            "Tool " + name + " timed out after " + timeoutSeconds + "s and its running statements were cancelled", true)));
+        });
+    }
+}
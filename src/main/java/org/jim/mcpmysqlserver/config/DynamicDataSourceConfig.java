@@ -31,6 +31,15 @@ public class DynamicDataSourceConfig {
     @Resource
     private DataSourceConfig dataSourceConfig;
 
+    @Resource
+    private PoolAutoScalingConfig poolAutoScalingConfig;
+
+    @Resource
+    private PoolAcquireMetricsTrackerFactory poolAcquireMetricsTrackerFactory;
+
+    @Resource
+    private SqlRoutingConfig sqlRoutingConfig;
+
     /**
      * 默认数据源
      */
@@ -44,7 +53,7 @@ public class DynamicDataSourceConfig {
 
         log.info("Initializing default datasource [{}] from custom configuration", defaultDsName);
         Map<String, Object> dsProperties = dataSourceConfig.getDefaultDataSourceProperties();
-        return createDataSource(defaultDsName, dsProperties);
+        return createDataSource(defaultDsName, dsProperties, false);
     }
 
     /**
@@ -68,7 +77,7 @@ public class DynamicDataSourceConfig {
             Map<String, Object> dsProperties = entry.getValue();
             try {
                 log.info("Initializing configured datasource: {}", dsName);
-                DataSource ds = createDataSource(dsName, dsProperties);
+                DataSource ds = createDataSource(dsName, dsProperties, false);
                 dataSources.put(dsName, ds);
                 log.info("Datasource [{}] initialized successfully", dsName);
             } catch (Exception e) {
@@ -79,19 +88,54 @@ public class DynamicDataSourceConfig {
         return dataSources;
     }
 
+    /**
+     * 为每个数据源（包括默认数据源）创建只读连接池，只读查询路由到这些连接池执行。
+     * 数据源配置了 read-only-url 时只读连接池连接该地址（如只读副本、PostgreSQL 热备）
+     * @return 数据源名称到只读数据源的映射，未启用只读路由时为空
+     */
+    @Bean
+    public Map<String, DataSource> readOnlyDataSources() {
+        Map<String, DataSource> dataSources = new HashMap<>();
+        if (!sqlRoutingConfig.isReadOnlyEnabled()) {
+            log.info("Read-only routing is disabled");
+            return dataSources;
+        }
+
+        for (Map.Entry<String, Map<String, Object>> entry : dataSourceConfig.getDatasources().entrySet()) {
+            String dsName = entry.getKey();
+            try {
+                DataSource ds = createDataSource(dsName, entry.getValue(), true);
+                if (ds != null) {
+                    dataSources.put(dsName, ds);
+                }
+            } catch (Exception e) {
+                log.error("Failed to initialize read-only datasource [{}], queries will use the read-write pool: {}", dsName, e.getMessage(), e);
+            }
+        }
+        return dataSources;
+    }
+
     /**
      * 根据配置创建数据源
      * @param dsName 数据源名称
      * @param dsProperties 数据源属性
+     * @param readOnly 是否创建只读连接池
      * @return 数据源
      */
-    private DataSource createDataSource(String dsName, Map<String, Object> dsProperties) {
+    private DataSource createDataSource(String dsName, Map<String, Object> dsProperties, boolean readOnly) {
         try {
             if (CollectionUtils.isEmpty(dsProperties)) {
                 log.warn("No properties provided for datasource {}", dsName);
                 return null;
             }
 
+            // 只读连接池优先连接 read-only-url，不修改原配置
+            Object readOnlyUrl = dsProperties.get("read-only-url");
+            if (readOnly && readOnlyUrl != null) {
+                dsProperties = new HashMap<>(dsProperties);
+                dsProperties.put("url", readOnlyUrl);
+            }
+
             // 设置默认驱动类名，如果用户没有配置
             if (!dsProperties.containsKey("driver-class-name")) {
                 String url = (String) dsProperties.get("url");
@@ -130,6 +174,16 @@ public class DynamicDataSourceConfig {
                 hikariBinder.bind(ConfigurationPropertyName.EMPTY, Bindable.ofInstance(dataSource));
             }
 
+            if (readOnly) {
+                configureReadOnly(dsName, dataSource);
+                return dataSource;
+            }
+
+            // 启用自动伸缩时采集连接获取耗时，需在连接池启动前设置
+            if (poolAutoScalingConfig.isEnabled()) {
+                dataSource.setMetricsTrackerFactory(poolAcquireMetricsTrackerFactory);
+            }
+
             log.info("Datasource [{}] created successfully", dsName);
             return dataSource;
         } catch (Exception e) {
@@ -138,5 +192,26 @@ public class DynamicDataSourceConfig {
         }
     }
 
+    /**
+     * 设置只读连接池：Connection.setReadOnly(true)，并按方言在建立连接时设置会话级只读事务，
+     * 使 MySQL/InnoDB 跳过事务ID分配，PostgreSQL 拒绝任何写入
+     */
+    private void configureReadOnly(String dsName, HikariDataSource dataSource) {
+        dataSource.setPoolName(dataSource.getPoolName() + "-ReadOnly");
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(sqlRoutingConfig.getReadOnlyMaximumPoolSize());
+        dataSource.setMinimumIdle(sqlRoutingConfig.getReadOnlyMinimumIdle());
+
+        if (sqlRoutingConfig.isSessionReadOnlyHint() && dataSource.getConnectionInitSql() == null) {
+            String initSql = switch (DatabaseTypeDetector.detectDatabaseType(dataSource.getJdbcUrl())) {
+                case MYSQL -> "SET SESSION TRANSACTION READ ONLY";
+                case POSTGRESQL -> "SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY";
+                default -> null;
+            };
+            dataSource.setConnectionInitSql(initSql);
+        }
+        log.info("Read-only datasource [{}] created, pool [{}], init SQL: {}", dsName, dataSource.getPoolName(), dataSource.getConnectionInitSql());
+    }
+
 
 }
@@ -0,0 +1,27 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步 MCP 服务配置类
+ * spring.ai.mcp.server.type 为 ASYNC 时生效：每次工具调用和Resource读取在独立的虚拟线程中执行，同一会话的多个请求并发处理，
+ * 调用超时或被取消时取消正在执行的 JDBC 语句
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mcp.async")
+public class McpAsyncConfig {
+
+    /**
+     * 单次工具调用的超时时间（秒），超时后取消正在执行的语句并返回错误结果，<= 0 表示不限制
+     */
+    private int toolTimeoutSeconds = 300;
+
+    /**
+     * 整个进程同时执行的最大调用数，超过后排队等待，<= 0 表示不限制。数据库连接数仍受连接池大小限制
+     */
+    private int maxConcurrentCalls = 256;
+}
@@ -0,0 +1,25 @@
+package org.jim.mcpmysqlserver.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置
+ * 未引入 actuator 时提供一个内存指标注册表，供各组件上报运行指标
+ * @author yangxin
+ */
+@Configuration
+@Slf4j
+public class MetricsConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MeterRegistry meterRegistry() {
+        log.info("No MeterRegistry found, using SimpleMeterRegistry");
+        return new SimpleMeterRegistry();
+    }
+}
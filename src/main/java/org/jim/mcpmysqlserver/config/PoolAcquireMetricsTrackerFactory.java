@@ -0,0 +1,68 @@
+package org.jim.mcpmysqlserver.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari 连接获取耗时采集器
+ * 按连接池名称累计获取连接的耗时和超时次数，供连接池自动伸缩按周期读取
+ * @author yangxin
+ */
+@Component
+public class PoolAcquireMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final Map<String, AcquireStats> statsByPool = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        AcquireStats stats = statsByPool.computeIfAbsent(poolName, k -> new AcquireStats());
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                stats.acquireCount.increment();
+                stats.acquireNanos.add(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                stats.timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * 读取并清零指定连接池自上次读取以来的统计
+     * @param poolName 连接池名称
+     * @return 统计快照，连接池尚未使用时返回空快照
+     */
+    public AcquireSnapshot drain(String poolName) {
+        AcquireStats stats = statsByPool.get(poolName);
+        if (stats == null) {
+            return new AcquireSnapshot(0, 0, 0);
+        }
+        return new AcquireSnapshot(stats.acquireCount.sumThenReset(), stats.acquireNanos.sumThenReset(),
+                stats.timeouts.sumThenReset());
+    }
+
+    private static final class AcquireStats {
+        private final LongAdder acquireCount = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+    }
+
+    /**
+     * 一个采样周期内的连接获取统计
+     */
+    public record AcquireSnapshot(long acquireCount, long acquireNanos, long timeouts) {
+
+        public double averageAcquireMillis() {
+            return acquireCount == 0 ? 0 : acquireNanos / 1_000_000.0 / acquireCount;
+        }
+    }
+}
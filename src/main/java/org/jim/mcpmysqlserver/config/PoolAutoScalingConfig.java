@@ -0,0 +1,121 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 连接池自动伸缩配置类
+ * 根据等待线程数和获取连接耗时，在配置的上下限内动态调整各数据源连接池大小
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pool.autoscaling")
+public class PoolAutoScalingConfig {
+
+    /**
+     * 是否启用连接池自动伸缩，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 采样与调整间隔（秒）
+     */
+    private int intervalSeconds = 10;
+
+    /**
+     * 连接池最大连接数的下限
+     */
+    private int minPoolSize = 2;
+
+    /**
+     * 连接池最大连接数的上限
+     */
+    private int maxPoolSize = 30;
+
+    /**
+     * 所有数据源连接池（包括只读连接池）最大连接数之和的全局预算
+     */
+    private int globalMaxConnections = 100;
+
+    /**
+     * 每次扩容或缩容调整的连接数
+     */
+    private int step = 2;
+
+    /**
+     * 最小空闲连接数占最大连接数的比例
+     */
+    private double minIdleRatio = 0.5;
+
+    /**
+     * 等待连接的线程数超过该值时视为扩容压力
+     */
+    private int scaleUpPendingThreshold = 1;
+
+    /**
+     * 平均获取连接耗时（毫秒）超过该值时视为扩容压力
+     */
+    private long scaleUpAcquireMillis = 50;
+
+    /**
+     * 连续多少个采样周期存在扩容压力后才扩容
+     */
+    private int scaleUpAfter = 2;
+
+    /**
+     * 活跃连接占比低于该值且无等待线程时视为空闲
+     */
+    private double scaleDownUtilization = 0.3;
+
+    /**
+     * 连续多少个采样周期空闲后才缩容
+     */
+    private int scaleDownAfter = 6;
+
+    /**
+     * 按数据源名称覆盖上下限，未配置的数据源使用全局上下限
+     */
+    private Map<String, Bounds> datasources = new LinkedHashMap<>();
+
+    /**
+     * 获取指定数据源的最大连接数下限
+     * @param dsName 数据源名称
+     * @return 最大连接数下限
+     */
+    public int getMinPoolSize(String dsName) {
+        Bounds bounds = datasources.get(dsName);
+        return bounds != null && bounds.getMinPoolSize() != null ? bounds.getMinPoolSize() : minPoolSize;
+    }
+
+    /**
+     * 获取指定数据源的最大连接数上限
+     * @param dsName 数据源名称
+     * @return 最大连接数上限
+     */
+    public int getMaxPoolSize(String dsName) {
+        Bounds bounds = datasources.get(dsName);
+        return bounds != null && bounds.getMaxPoolSize() != null ? bounds.getMaxPoolSize() : maxPoolSize;
+    }
+
+    /**
+     * 单个数据源的伸缩上下限
+     */
+    @Data
+    public static class Bounds {
+
+        /**
+         * 最大连接数下限
+         */
+        private Integer minPoolSize;
+
+        /**
+         * 最大连接数上限
+         */
+        private Integer maxPoolSize;
+    }
+}
@@ -0,0 +1,120 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 查询成本防护配置类
+ * 执行前先用数据库方言的 EXPLAIN 估算扫描行数和成本，超过阈值时拒绝执行或附带警告
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.cost-guard")
+public class QueryCostGuardConfig {
+
+    /**
+     * 是否启用查询成本防护，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 超过阈值时的处理方式
+     */
+    private Action action = Action.BLOCK;
+
+    /**
+     * 估算扫描行数上限（执行计划中各节点估算读取行数的最大值，包含连接放大后的行数），小于等于 0 表示不限制。
+     * 限制的是读取的行数而不是返回的行数，LIMIT 不会降低估算值
+     */
+    private long maxEstimatedRows = 100_000_000L;
+
+    /**
+     * 估算成本上限（MySQL 的 query_cost、PostgreSQL 的 Total Cost，两者单位不同），小于等于 0 表示不限制
+     */
+    private double maxCost = 0;
+
+    /**
+     * 全表扫描次数上限，小于等于 0 表示不限制
+     */
+    private int maxFullTableScans = 0;
+
+    /**
+     * EXPLAIN 的超时时间（秒）
+     */
+    private int explainTimeoutSeconds = 5;
+
+    /**
+     * 执行计划估算结果的缓存时间（秒），按数据源和SQL文本缓存
+     */
+    private int cacheTtlSeconds = 300;
+
+    /**
+     * 执行计划估算结果的最大缓存条目数
+     */
+    private int cacheMaxEntries = 1024;
+
+    /**
+     * 按数据源名称覆盖开关、处理方式和阈值，未配置的项使用全局配置
+     */
+    private Map<String, Rule> datasources = new LinkedHashMap<>();
+
+    /**
+     * 获取指定数据源生效的防护规则
+     * @param dsName 数据源名称
+     * @return 合并全局配置后的规则
+     */
+    public Limits getLimits(String dsName) {
+        Rule rule = dsName == null ? null : datasources.get(dsName);
+        if (rule == null) {
+            return new Limits(enabled, action, maxEstimatedRows, maxCost, maxFullTableScans);
+        }
+        return new Limits(
+                rule.getEnabled() != null ? rule.getEnabled() : enabled,
+                rule.getAction() != null ? rule.getAction() : action,
+                rule.getMaxEstimatedRows() != null ? rule.getMaxEstimatedRows() : maxEstimatedRows,
+                rule.getMaxCost() != null ? rule.getMaxCost() : maxCost,
+                rule.getMaxFullTableScans() != null ? rule.getMaxFullTableScans() : maxFullTableScans);
+    }
+
+    /**
+     * 超过阈值时的处理方式
+     */
+    public enum Action {
+        /**
+         * 拒绝执行，返回执行计划估算结果
+         */
+        BLOCK,
+        /**
+         * 照常执行，在结果中附带警告
+         */
+        WARN
+    }
+
+    /**
+     * 单个数据源的防护规则，为空的项使用全局配置
+     */
+    @Data
+    public static class Rule {
+
+        private Boolean enabled;
+
+        private Action action;
+
+        private Long maxEstimatedRows;
+
+        private Double maxCost;
+
+        private Integer maxFullTableScans;
+    }
+
+    /**
+     * 数据源生效的防护规则
+     */
+    public record Limits(boolean enabled, Action action, long maxEstimatedRows, double maxCost, int maxFullTableScans) {
+    }
+}
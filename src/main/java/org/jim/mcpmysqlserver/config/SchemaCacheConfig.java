@@ -0,0 +1,46 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 表结构缓存配置类
+ * 表结构在首次访问时加载到内存，后台按表比较变更指纹，只重新加载发生变化的表
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "schema.cache")
+public class SchemaCacheConfig {
+
+    /**
+     * 是否启用后台刷新，关闭时表结构只在首次访问时加载一次
+     */
+    private boolean enabled = true;
+
+    /**
+     * 检查表结构变更的间隔（秒）
+     */
+    private int refreshIntervalSeconds = 60;
+
+    /**
+     * 不支持变更检测的数据库全量重新加载的间隔（秒），<= 0 表示不重新加载
+     */
+    private int fullReloadIntervalSeconds = 600;
+
+    /**
+     * 表结构变化时是否向客户端发送 notifications/resources/list_changed，需要同时开启 spring.ai.mcp.server.resource-change-notification
+     */
+    private boolean notifyChanges = true;
+
+    /**
+     * 读取表的主键、索引、外键时并行使用的连接数，每个连接依次读取分配给它的表
+     */
+    private int describeParallelism = 4;
+
+    /**
+     * 单次调用最多描述的表数
+     */
+    private int describeMaxTables = 100;
+}
@@ -0,0 +1,36 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库和模式目录浏览配置类
+ * listSchemas、listTables 按名称游标分页，过滤条件下推到元数据查询中，每一页的结果缓存一段时间
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "schema.catalog")
+public class SchemaCatalogConfig {
+
+    /**
+     * 未指定每页条数时的条数
+     */
+    private int defaultPageSize = 100;
+
+    /**
+     * 每页最多的条数
+     */
+    private int maxPageSize = 1000;
+
+    /**
+     * 每一页结果的缓存时间（秒），<= 0 表示不缓存
+     */
+    private int cacheTtlSeconds = 60;
+
+    /**
+     * 最多缓存的页数
+     */
+    private int cacheMaxEntries = 1024;
+}
@@ -0,0 +1,38 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * SQL路由配置类
+ * 分类为只读查询的语句在每个数据源独立的只读连接池上执行，其余语句使用原连接池
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.routing")
+public class SqlRoutingConfig {
+
+    /**
+     * 是否把只读查询路由到只读连接池，默认关闭。
+     * 启用后每个数据源额外创建一个最多 readOnlyMaximumPoolSize 个连接的连接池
+     */
+    private boolean readOnlyEnabled = false;
+
+    /**
+     * 只读连接池的最大连接数
+     */
+    private int readOnlyMaximumPoolSize = 5;
+
+    /**
+     * 只读连接池的最小空闲连接数，0 表示按需建立连接
+     */
+    private int readOnlyMinimumIdle = 0;
+
+    /**
+     * 是否在只读连接上执行数据库方言的会话级只读设置
+     * （MySQL: SET SESSION TRANSACTION READ ONLY；PostgreSQL: SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY）
+     */
+    private boolean sessionReadOnlyHint = true;
+}
@@ -0,0 +1,59 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 查询行数限制配置类
+ * 没有行数限制的顶层 SELECT 在执行前追加数据库方言对应的限制子句（LIMIT、FETCH FIRST、TOP）
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.row-limit")
+public class SqlRowLimitConfig {
+
+    /**
+     * 是否启用行数限制改写，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认最大返回行数
+     */
+    private int defaultLimit = 1000;
+
+    /**
+     * 按数据源名称覆盖开关和最大返回行数，未配置的项使用全局配置
+     */
+    private Map<String, Rule> datasources = new LinkedHashMap<>();
+
+    /**
+     * 获取指定数据源的最大返回行数
+     * @param dsName 数据源名称
+     * @return 最大返回行数，未启用时返回 0
+     */
+    public int getLimit(String dsName) {
+        Rule rule = dsName == null ? null : datasources.get(dsName);
+        boolean ruleEnabled = rule != null && rule.getEnabled() != null ? rule.getEnabled() : enabled;
+        if (!ruleEnabled) {
+            return 0;
+        }
+        return rule != null && rule.getLimit() != null ? rule.getLimit() : defaultLimit;
+    }
+
+    /**
+     * 单个数据源的行数限制规则，为空的项使用全局配置
+     */
+    @Data
+    public static class Rule {
+
+        private Boolean enabled;
+
+        private Integer limit;
+    }
+}
@@ -29,4 +29,28 @@ public class SqlSecurityConfig {
             "grant", "revoke", "shutdown", "restart",
             "call", "execute", "commit", "rollback"
     );
+
+    /**
+     * 验证结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否缓存验证和分类结果
+         */
+        private boolean enabled = true;
+
+        /**
+         * 原始SQL缓存和指纹缓存各自的最大条目数
+         */
+        private int maxEntries = 2048;
+
+        /**
+         * 超过该长度（字符数）的SQL不缓存
+         */
+        private int maxSqlLength = 16384;
+    }
 }
@@ -0,0 +1,26 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * SQL会话配置类
+ * 会话会在多次工具调用之间固定使用同一个数据库连接，以保留临时表、会话变量和未提交事务
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.session")
+public class SqlSessionConfig {
+
+    /**
+     * 会话空闲超时时间（秒），超时后自动结束会话并释放连接
+     */
+    private int idleTimeoutSeconds = 300;
+
+    /**
+     * 每个数据源同时固定的最大连接数（即最大会话数）
+     */
+    private int maxSessionsPerDataSource = 2;
+}
@@ -0,0 +1,41 @@
+package org.jim.mcpmysqlserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 表抽样配置类
+ * sampleTable 优先使用数据库原生的抽样方式（PostgreSQL TABLESAMPLE、MySQL 主键随机探测），否则流式读取并做蓄水池抽样，读取行数有上限
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "schema.sample")
+public class TableSampleConfig {
+
+    /**
+     * 未指定抽样行数时返回的行数
+     */
+    private int defaultRows = 20;
+
+    /**
+     * 单次最多返回的行数
+     */
+    private int maxRows = 1000;
+
+    /**
+     * 蓄水池抽样最多读取的行数，超过后停止读取，结果只代表已读取的部分
+     */
+    private int scanCap = 100000;
+
+    /**
+     * 按估算行数计算抽样比例或探测次数时的放大倍数，抵消估算误差和主键空洞
+     */
+    private double oversample = 2.0;
+
+    /**
+     * 抽样语句的超时时间（秒），<= 0 表示不限制
+     */
+    private int queryTimeoutSeconds = 30;
+}
@@ -10,6 +10,10 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 public class Extension {
 
+    public static final String TYPE_GROOVY = "groovy";
+
+    public static final String TYPE_NATIVE = "native";
+
     /**
      * 扩展名
      */
@@ -20,6 +24,11 @@ public class Extension {
      */
     private Boolean enabled = true;
 
+    /**
+     * 扩展类型。groovy-Groovy脚本（默认） native-通过 ServiceLoader 发现的同名 Java 原生扩展
+     */
+    private String type = TYPE_GROOVY;
+
     /**
      * 脚本内容。（脚本内容与脚本路径都会被执行）
      */
@@ -54,4 +63,19 @@ public class Extension {
      */
     private String prompt;
 
+    /**
+     * 是否为确定性扩展，默认否。确定性扩展的输出只取决于输入，相同输入的结果会被缓存，不再执行脚本
+     */
+    private Boolean deterministic = false;
+
+    /**
+     * 启动预热时试运行使用的输入，应为一个能被正常处理的样例值。未配置时使用固定的探测输入，此时只有缺少依赖等加载错误视为失败
+     */
+    private String warmUpInput;
+
+    /**
+     * 就绪状态和加载耗时，运行时由 GroovyService 填充，不需要配置
+     */
+    private ExtensionStatus readiness;
+
 }
@@ -0,0 +1,97 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 扩展执行配置类
+ * 扩展脚本在独立的有界线程池中执行，按扩展限制执行超时、并发数和输入长度，避免异常输入长时间占用请求线程
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "extension.execution")
+public class ExtensionExecutionConfig {
+
+    /**
+     * 执行扩展的线程数，所有扩展共用
+     */
+    private int poolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 等待执行的任务队列长度，队列已满时直接拒绝
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 单次执行的超时时间（秒），批量执行时为每一段输入的超时时间。超时后中断脚本并返回错误
+     */
+    private int timeoutSeconds = 30;
+
+    /**
+     * 单个扩展同时执行的最大任务数，超时未结束的任务在结束前仍占用名额
+     */
+    private int maxConcurrent = 4;
+
+    /**
+     * 单个输入的最大字符数，<= 0 表示不限制
+     */
+    private int maxInputLength = 4 * 1024 * 1024;
+
+    /**
+     * 原生扩展单个输出的最大字节数，<= 0 表示不限制。解压等扩展可以把很小的输入展开成很大的输出，
+     * 超过限制时在分配前或读取过程中立即失败
+     */
+    private int maxOutputBytes = 64 * 1024 * 1024;
+
+    /**
+     * 按扩展名称覆盖超时时间、并发数、输入长度和输出大小，未配置的项使用全局配置
+     */
+    private Map<String, Rule> extensions = new LinkedHashMap<>();
+
+    /**
+     * 获取指定扩展的执行限制
+     * @param extensionName 扩展名称
+     * @return 执行限制
+     */
+    public Limits getLimits(String extensionName) {
+        Rule rule = extensionName == null ? null : extensions.get(extensionName);
+        if (rule == null) {
+            return new Limits(timeoutSeconds, maxConcurrent, maxInputLength, maxOutputBytes);
+        }
+        return new Limits(
+                rule.getTimeoutSeconds() != null ? rule.getTimeoutSeconds() : timeoutSeconds,
+                rule.getMaxConcurrent() != null ? rule.getMaxConcurrent() : maxConcurrent,
+                rule.getMaxInputLength() != null ? rule.getMaxInputLength() : maxInputLength,
+                rule.getMaxOutputBytes() != null ? rule.getMaxOutputBytes() : maxOutputBytes);
+    }
+
+    /**
+     * 单个扩展的执行规则，为空的项使用全局配置
+     */
+    @Data
+    public static class Rule {
+
+        private Integer timeoutSeconds;
+
+        private Integer maxConcurrent;
+
+        private Integer maxInputLength;
+
+        private Integer maxOutputBytes;
+    }
+
+    /**
+     * 扩展生效的执行限制
+     * @param timeoutSeconds 超时时间（秒）
+     * @param maxConcurrent 最大并发数
+     * @param maxInputLength 单个输入的最大字符数，<= 0 表示不限制
+     * @param maxOutputBytes 原生扩展单个输出的最大字节数，<= 0 表示不限制
+     */
+    public record Limits(int timeoutSeconds, int maxConcurrent, int maxInputLength, int maxOutputBytes) {
+    }
+}
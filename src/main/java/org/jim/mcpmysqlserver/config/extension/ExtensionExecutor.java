@@ -0,0 +1,208 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扩展执行舱壁
+ * <p>
+ * 扩展脚本在独立的有界线程池中执行，调用线程只等待到超时时间为止：超时后中断脚本并返回错误，不再占用请求线程。
+ * 每个扩展有独立的并发名额，超时后仍未结束的脚本在结束前继续占用名额，因此一个异常的扩展最多占用有限的线程，
+ * 不会拖垮其他扩展和SQL请求。名额或队列已满时直接拒绝。
+ * 启用虚拟线程时这里仍然使用有界的平台线程池：脚本以CPU计算为主，虚拟线程不会提高吞吐，反而会失去线程数上限；
+ * 虚拟线程中的调用方在等待结果时挂起，不占用载体线程
+ * @author yangxin
+ */
+@Component
+@Slf4j
+public class ExtensionExecutor {
+
+    private final ExtensionExecutionConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 扩展名称到并发名额的映射
+     */
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public ExtensionExecutor(ExtensionExecutionConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), r -> {
+            Thread thread = new Thread(r, "extension-exec-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("mcp.extension.executor.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("mcp.extension.executor.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * 获取指定扩展的执行限制
+     * @param extensionName 扩展名称
+     * @return 执行限制
+     */
+    public ExtensionExecutionConfig.Limits getLimits(String extensionName) {
+        return config.getLimits(extensionName);
+    }
+
+    /**
+     * 检查输入长度是否超过扩展的限制
+     * @param extensionName 扩展名称
+     * @param input 输入
+     * @throws IllegalArgumentException 输入超过限制时
+     */
+    public void checkInput(String extensionName, String input) {
+        int maxInputLength = config.getLimits(extensionName).maxInputLength();
+        if (maxInputLength > 0 && input != null && input.length() > maxInputLength) {
+            throw new IllegalArgumentException("Input of extension [" + extensionName + "] is " + input.length()
+                    + " characters, exceeding the limit of " + maxInputLength);
+        }
+    }
+
+    /**
+     * 在扩展线程池中执行任务并等待结果
+     * @param extensionName 扩展名称
+     * @param task 任务
+     * @return 任务结果
+     * @throws IllegalStateException 扩展名额或队列已满、执行超时时
+     */
+    public <T> T execute(String extensionName, Callable<T> task) {
+        return submit(extensionName, task).await();
+    }
+
+    /**
+     * 在扩展线程池中提交任务，通过返回值等待结果。用于一次提交多个任务后再逐个等待
+     * @param extensionName 扩展名称
+     * @param task 任务
+     * @return 执行中的任务
+     * @throws IllegalStateException 扩展名额或队列已满时
+     */
+    public <T> Execution<T> submit(String extensionName, Callable<T> task) {
+        ExtensionExecutionConfig.Limits limits = config.getLimits(extensionName);
+        Semaphore semaphore = permits.computeIfAbsent(extensionName, name -> new Semaphore(Math.max(1, limits.maxConcurrent())));
+        if (!semaphore.tryAcquire()) {
+            record(extensionName, "rejected", 0);
+            throw new IllegalStateException("Extension [" + extensionName + "] is already running "
+                    + limits.maxConcurrent() + " tasks, try again later");
+        }
+
+        // 任务开始执行或被取消时只释放一次名额
+        AtomicBoolean claimed = new AtomicBoolean();
+        long start = System.nanoTime();
+        try {
+            Future<T> future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return task.call();
+                } finally {
+                    semaphore.release();
+                }
+            });
+            return new Execution<>(extensionName, future, start, limits.timeoutSeconds(), () -> {
+                if (claimed.compareAndSet(false, true)) {
+                    semaphore.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            record(extensionName, "rejected", 0);
+            throw new IllegalStateException("Extension executor is busy, try again later");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void record(String extensionName, String outcome, long elapsedNanos) {
+        Timer.builder("mcp.extension.execution")
+                .tag("extension", extensionName)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 执行中的扩展任务，超时时间从提交时开始计算
+     */
+    public final class Execution<T> {
+
+        private final String extensionName;
+        private final Future<T> future;
+        private final long start;
+        private final int timeoutSeconds;
+        private final Runnable releaseIfNotStarted;
+
+        private Execution(String extensionName, Future<T> future, long start, int timeoutSeconds, Runnable releaseIfNotStarted) {
+            this.extensionName = extensionName;
+            this.future = future;
+            this.start = start;
+            this.timeoutSeconds = timeoutSeconds;
+            this.releaseIfNotStarted = releaseIfNotStarted;
+        }
+
+        /**
+         * 等待任务结果，超时后中断任务
+         * @return 任务结果
+         * @throws IllegalStateException 执行超时或等待被中断时
+         */
+        public T await() {
+            long remaining = TimeUnit.SECONDS.toNanos(timeoutSeconds) - (System.nanoTime() - start);
+            try {
+                T result = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                record(extensionName, "success", System.nanoTime() - start);
+                return result;
+            } catch (TimeoutException e) {
+                cancel();
+                record(extensionName, "timeout", System.nanoTime() - start);
+                log.warn("Extension [{}] timed out after {}s, interrupting it", extensionName, timeoutSeconds);
+                throw new IllegalStateException("Extension [" + extensionName + "] timed out after " + timeoutSeconds + "s");
+            } catch (ExecutionException e) {
+                record(extensionName, "error", System.nanoTime() - start);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new RuntimeException(cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for extension [" + extensionName + "]");
+            }
+        }
+
+        private void cancel() {
+            future.cancel(true);
+            releaseIfNotStarted.run();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jim.mcpmysqlserver.util.LruCache;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 确定性扩展的结果缓存
+ * <p>
+ * 以扩展名称和输入的 SHA-256 为键缓存处理结果，按条目数和估算字节数淘汰最久未访问的结果。
+ * 只应缓存成功的结果；扩展重新加载或被移除时清除其所有结果
+ * @author yangxin
+ */
+@Component
+public class ExtensionMemo {
+
+    /**
+     * 单个条目除结果外的估算开销：键、哈希字符串和链表节点
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private final LruCache<MemoKey, Object> cache;
+
+    public ExtensionMemo(ExtensionMemoConfig config, MeterRegistry meterRegistry) {
+        this.cache = new LruCache<>(config.getMaxEntries(), config.getMaxBytes(), (key, value) -> ENTRY_OVERHEAD_BYTES + estimateBytes(value));
+        FunctionCounter.builder("mcp.extension.memo.requests", cache, LruCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("mcp.extension.memo.requests", cache, LruCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mcp.extension.memo.size", cache, LruCache::size).register(meterRegistry);
+        Gauge.builder("mcp.extension.memo.bytes", cache, LruCache::weight).register(meterRegistry);
+        Gauge.builder("mcp.extension.memo.hit.rate", cache, LruCache::hitRate).register(meterRegistry);
+    }
+
+    /**
+     * 获取缓存的结果
+     * @param extensionName 扩展名称
+     * @param input 输入
+     * @return 缓存的结果，未命中时返回 null
+     */
+    public Object get(String extensionName, String input) {
+        return cache.get(new MemoKey(extensionName, sha256(input)));
+    }
+
+    /**
+     * 缓存处理结果，null 不缓存
+     * @param extensionName 扩展名称
+     * @param input 输入
+     * @param result 处理结果
+     */
+    public void put(String extensionName, String input, Object result) {
+        if (result != null) {
+            cache.put(new MemoKey(extensionName, sha256(input)), result);
+        }
+    }
+
+    /**
+     * 清除扩展的所有缓存结果
+     * @param extensionName 扩展名称
+     */
+    public void invalidate(String extensionName) {
+        cache.removeIf(key -> key.extensionName().equals(extensionName));
+    }
+
+    /**
+     * 估算结果占用的字节数：字符串按每字符 2 字节，其他对象按字符串形式估算
+     */
+    private static long estimateBytes(Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        return 2L * String.valueOf(value).length();
+    }
+
+    private static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record MemoKey(String extensionName, String inputHash) {
+    }
+}
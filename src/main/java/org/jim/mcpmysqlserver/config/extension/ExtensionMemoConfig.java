@@ -0,0 +1,26 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 扩展结果缓存配置类
+ * 声明为 deterministic 的扩展按 (扩展名称, 输入哈希) 缓存处理结果，相同输入不再执行脚本
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "extension.memo")
+public class ExtensionMemoConfig {
+
+    /**
+     * 最大缓存条目数，<= 0 表示不缓存
+     */
+    private int maxEntries = 100_000;
+
+    /**
+     * 缓存的最大估算字节数，<= 0 表示只按条目数限制
+     */
+    private long maxBytes = 64L * 1024 * 1024;
+}
@@ -0,0 +1,42 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+/**
+ * 扩展的就绪状态
+ * @param state 状态
+ * @param loadTimeMillis 加载、编译和试运行的耗时（毫秒），尚未加载时为 null
+ * @param message 加载失败的原因
+ * @author yangxin
+ */
+public record ExtensionStatus(State state, Long loadTimeMillis, String message) {
+
+    public static final ExtensionStatus COLD = new ExtensionStatus(State.COLD, null, null);
+
+    public static final ExtensionStatus LOADING = new ExtensionStatus(State.LOADING, null, null);
+
+    public static ExtensionStatus ready(long loadTimeMillis) {
+        return new ExtensionStatus(State.READY, loadTimeMillis, null);
+    }
+
+    public static ExtensionStatus failed(long loadTimeMillis, String message) {
+        return new ExtensionStatus(State.FAILED, loadTimeMillis, message);
+    }
+
+    public enum State {
+        /**
+         * 尚未加载，首次调用时加载
+         */
+        COLD,
+        /**
+         * 正在预热
+         */
+        LOADING,
+        /**
+         * 已加载并编译，调用时不再有加载开销
+         */
+        READY,
+        /**
+         * 加载、编译或试运行失败，如缺少依赖
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,49 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
+
+/**
+ * 启动预热：应用就绪后在后台线程中逐个预热启用的扩展，不阻塞启动
+ * @author yangxin
+ */
+@Component
+@Slf4j
+public class ExtensionWarmUp {
+
+    @Resource
+    private ExtensionWarmUpConfig warmUpConfig;
+
+    @Resource
+    private ExtensionConfig extensionConfig;
+
+    @Resource
+    private GroovyService groovyService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<Extension> extensions = extensionConfig.getExtensions();
+        if (!warmUpConfig.isEnabled() || CollectionUtils.isEmpty(extensions)) {
+            return;
+        }
+        Thread thread = new Thread(() -> warmUp(extensions), "extension-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp(List<Extension> extensions) {
+        long start = System.currentTimeMillis();
+        List<Extension> enabled = extensions.stream().filter(ext -> Boolean.TRUE.equals(ext.getEnabled())).toList();
+        long failed = enabled.stream()
+                .map(ext -> groovyService.warmUp(ext, warmUpConfig.isDryRun()))
+                .filter(status -> status.state() == ExtensionStatus.State.FAILED)
+                .count();
+        log.info("Warmed up {} extensions in {}ms, {} failed", enabled.size(), System.currentTimeMillis() - start, failed);
+    }
+}
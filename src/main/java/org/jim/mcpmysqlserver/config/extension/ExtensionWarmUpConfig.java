@@ -0,0 +1,26 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 扩展预热配置类
+ * 启动完成后在后台加载、编译并试运行所有启用的扩展，提前暴露缺失的依赖，避免首次调用时的冷启动开销
+ * @author yangxin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "extension.warm-up")
+public class ExtensionWarmUpConfig {
+
+    /**
+     * 是否在启动时预热扩展，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 编译后是否用预热输入试运行一次，让依赖类加载和 JIT 在启动阶段完成
+     */
+    private boolean dryRun = true;
+}
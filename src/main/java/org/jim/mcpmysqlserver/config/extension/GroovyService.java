@@ -1,24 +1,50 @@
 package org.jim.mcpmysqlserver.config.extension;
 
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import groovy.transform.ThreadInterrupt;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -31,6 +57,51 @@ public class GroovyService {
     @Resource
     private ExtensionConfig extensionConfig;
 
+    @Resource
+    private ExtensionExecutor extensionExecutor;
+
+    @Resource
+    private NativeExtensionRegistry nativeExtensionRegistry;
+
+    @Resource
+    private ExtensionMemo extensionMemo;
+
+    /**
+     * 每个扩展独立且常驻的类加载器，首次调用时创建，扩展重新加载（脚本内容变化）或被移除时关闭
+     */
+    private final Map<String, ExtensionClassLoader> classLoaders = new ConcurrentHashMap<>();
+
+    /**
+     * 扩展名称和脚本内容哈希到已编译脚本类的缓存。每次调用只创建新的脚本实例和 Binding，不再重新编译；脚本内容变化时重新编译
+     */
+    private final Map<ScriptKey, Class<? extends Script>> compiledScripts = new ConcurrentHashMap<>();
+
+    /**
+     * 扩展名称到当前脚本内容哈希的缓存。只在首次加载、扩展配置重新绑定（Extension 对象变化）或预热时读取脚本并计算哈希，
+     * 每次调用和每段批量输入直接按缓存的哈希查找已编译的脚本类
+     */
+    private final Map<String, ScriptSource> scriptSources = new ConcurrentHashMap<>();
+
+    /**
+     * 扩展名称到加载锁的映射。同一扩展的编译、重新加载和关闭串行执行，并发的首次调用（批量分段、列转换、预热）只编译一次，
+     * 也不会把另一个调用刚加载的扩展当作旧版本关闭
+     */
+    private final Map<String, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 扩展名称到就绪状态的映射，由启动预热或首次调用时的加载更新
+     */
+    private final Map<String, ExtensionStatus> statuses = new ConcurrentHashMap<>();
+
+    /**
+     * 未配置预热输入时试运行使用的探测输入
+     */
+    private static final String WARM_UP_PROBE = "warm-up";
+
+    /**
+     * 脚本可选定义的批量处理方法名，参数为输入列表，返回与输入等长的结果列表
+     */
+    private static final String BATCH_METHOD = "processBatch";
 
     @SneakyThrows
     public Object executeGroovyScript(String extensionName, String input) {
@@ -47,43 +118,240 @@ public class GroovyService {
             throw new IllegalArgumentException("Input string cannot be null or empty");
         }
 
-        Extension extension = extensions.stream()
-                .filter(f -> f.getName().equals(extensionName))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.error("Extension not found: {}", extensionName);
-                    return new IllegalArgumentException("Extension not found: " + extensionName);
-                });
+        Extension extension = findExtension(extensions, extensionName);
+        extensionExecutor.checkInput(extensionName, input);
         log.info("Executing Groovy script for extension: {}", extension);
+        evictRemovedExtensions(extensions);
+
+        boolean deterministic = Boolean.TRUE.equals(extension.getDeterministic());
+        if (deterministic) {
+            Object cached = extensionMemo.get(extensionName, input);
+            if (cached != null) {
+                log.debug("Extension {} result served from memo", extensionName);
+                return cached;
+            }
+        }
 
-        String groovyBasePath = "groovy/" + extension.getName();
-        String scriptPath = groovyBasePath + "/script/" + extension.getMainFileName();
-        String jarPathDir = groovyBasePath + "/dependency/";
+        Object result;
+        NativeExtension nativeExtension = findNativeExtension(extension);
+        if (nativeExtension != null) {
+            try {
+                result = extensionExecutor.execute(extensionName, () -> nativeExtension.process(input, maxOutputBytes(extensionName)));
+            } catch (Exception e) {
+                log.error("Error executing native extension: {}", extensionName, e);
+                throw new RuntimeException("Error executing native extension: " + e.getMessage(), e);
+            }
+        } else {
+            try {
+                result = executeGroovyScriptWithEngine(extension, extensionName, input);
+            } catch (Exception e) {
+                log.error("An unexpected error occurred while executing Groovy script '{}': {}", extension.getScriptPath(), e.getMessage(), e);
+                throw new RuntimeException("An unexpected error occurred: " + e.getMessage(), e);
+            }
+        }
+        if (deterministic) {
+            extensionMemo.put(extensionName, input, result);
+        }
+        return result;
+    }
 
-        log.info("Loading Groovy script from path: {} for extension: {}", scriptPath, extensionName);
+    /**
+     * 对一组输入批量执行扩展脚本，结果顺序与输入一致
+     * <p>
+     * 输入按扩展的并发名额切分为若干段，在扩展线程池上并行处理，每段有独立的超时时间。脚本定义了 processBatch(List) 方法时每段只调用一次该方法，
+     * 脚本可以在整段输入间复用解密器、解压器等状态；否则逐个输入运行脚本。null 或空白输入的结果为 null，
+     * 单个输入超过长度限制或处理失败、整段超时或被拒绝时，对应位置的结果为包含 error 的 Map。原生扩展逐个输入处理
+     *
+     * @param extensionName 扩展名称
+     * @param inputs 输入列表
+     * @return 与输入一一对应的结果
+     */
+    public List<Object> executeGroovyScriptBatch(String extensionName, List<String> inputs) {
+        List<Extension> extensions = extensionConfig.getExtensions();
+        if (CollectionUtils.isEmpty(extensions)) {
+            log.warn("No extensions available.");
+            throw new IllegalArgumentException("There are no extensions available. Please re-search the extension list.");
+        }
+        Extension extension = findExtension(extensions, extensionName);
+        evictRemovedExtensions(extensions);
+        if (CollectionUtils.isEmpty(inputs)) {
+            return List.of();
+        }
 
-        try {
-            // 检查依赖是否已通过 PropertiesLauncher 加载到 classpath
-            boolean dependenciesAvailable = checkDependenciesInClasspath(extension);
-            if (dependenciesAvailable) {
-                log.info("Dependencies already loaded in classpath via PropertiesLauncher for extension: {}", extensionName);
-                // 使用默认的 ScriptEngineManager，依赖已通过 PropertiesLauncher 加载
-                ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
-                log.info("Using default ScriptEngineManager with classpath dependencies for extension: {}", extensionName);
-                return executeGroovyScriptWithEngine(extension, extensionName, scriptEngineManager, input);
-            } else {
-                log.info("Dependencies not found in classpath for extension: {}, attempting dynamic loading", extensionName);
-                return loadWithDynamicClassLoader(extension, extensionName, jarPathDir, input);
+        NativeExtension nativeExtension = findNativeExtension(extension);
+        Class<? extends Script> scriptClass = nativeExtension == null ? loadScriptClass(extension) : null;
+        boolean batchMethod = scriptClass != null && hasBatchMethod(scriptClass);
+
+        // 超过长度限制的输入不交给脚本，结果直接替换为错误
+        Map<Integer, Object> rejectedInputs = new HashMap<>();
+        List<String> acceptedInputs = new ArrayList<>(inputs);
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                extensionExecutor.checkInput(extensionName, inputs.get(i));
+            } catch (IllegalArgumentException e) {
+                rejectedInputs.put(i, Map.of("error", e.getMessage()));
+                acceptedInputs.set(i, null);
             }
+        }
 
-        } catch (Exception e) {
-            log.error("An unexpected error occurred while executing Groovy script '{}': {}", extension.getScriptPath(), e.getMessage(), e);
-            throw new RuntimeException("An unexpected error occurred: " + e.getMessage(), e);
+        // 确定性扩展命中缓存的输入不再交给脚本
+        boolean deterministic = Boolean.TRUE.equals(extension.getDeterministic());
+        Map<Integer, Object> memoHits = new HashMap<>();
+        if (deterministic) {
+            for (int i = 0; i < acceptedInputs.size(); i++) {
+                String input = acceptedInputs.get(i);
+                Object cached = StringUtils.isBlank(input) ? null : extensionMemo.get(extensionName, input);
+                if (cached != null) {
+                    memoHits.put(i, cached);
+                    acceptedInputs.set(i, null);
+                }
+            }
+        }
+
+        int parallelism = Math.max(1, extensionExecutor.getLimits(extensionName).maxConcurrent());
+        int chunkSize = (inputs.size() + parallelism - 1) / parallelism;
+        log.info("Executing {} extension: {} on {} inputs (chunk size {}, {})", nativeExtension != null ? "native" : "Groovy",
+                extensionName, inputs.size(), chunkSize, batchMethod ? BATCH_METHOD : "per input");
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<ExtensionExecutor.Execution<List<Object>>> executions = new ArrayList<>();
+        for (int from = 0; from < inputs.size(); from += chunkSize) {
+            List<String> chunk = acceptedInputs.subList(from, Math.min(inputs.size(), from + chunkSize));
+            chunks.add(chunk);
+            try {
+                executions.add(extensionExecutor.submit(extensionName, nativeExtension != null
+                        ? () -> runNativeChunk(nativeExtension, chunk, extensionName)
+                        : withContextClassLoader(scriptClass, () -> runChunk(scriptClass, batchMethod, chunk, extensionName))));
+            } catch (IllegalStateException e) {
+                log.warn("Groovy script batch chunk rejected for extension: {}: {}", extensionName, e.getMessage());
+                executions.add(null);
+            }
+        }
+
+        List<Object> results = new ArrayList<>(inputs.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<String> chunk = chunks.get(i);
+            ExtensionExecutor.Execution<List<Object>> execution = executions.get(i);
+            try {
+                if (execution == null) {
+                    throw new IllegalStateException("Extension [" + extensionName + "] is busy, try again later");
+                }
+                results.addAll(execution.await());
+            } catch (IllegalStateException e) {
+                results.addAll(Collections.nCopies(chunk.size(), Map.of("error", e.getMessage())));
+            }
         }
+        if (deterministic) {
+            for (int i = 0; i < results.size(); i++) {
+                String input = acceptedInputs.get(i);
+                if (StringUtils.isNotBlank(input) && !isFailure(results.get(i))) {
+                    extensionMemo.put(extensionName, input, results.get(i));
+                }
+            }
+        }
+        memoHits.forEach(results::set);
+        rejectedInputs.forEach(results::set);
+        return results;
+    }
+
+    /**
+     * 获取把单个列值交给扩展处理的函数，供执行SQL时在读取结果集的过程中逐行转换。脚本只编译一次，每个值只创建新的脚本实例，
+     * 在扩展线程池中执行并受超时限制
+     * <p>
+     * 二进制值按 Base64 编码后传入，其他值按字符串传入；空白值原样返回，超过长度限制或处理失败的值替换为包含 error 的 Map。
+     * 原生扩展同样在扩展线程池中执行，受相同的超时、并发和耗时统计约束，二进制值不经过 Base64 转换，结果按 UTF-8 转为文本
+     *
+     * @param extensionName 扩展名称
+     * @return 列值转换函数
+     * @throws IllegalArgumentException 扩展不存在时
+     */
+    public Function<Object, Object> columnTransformer(String extensionName) {
+        List<Extension> extensions = extensionConfig.getExtensions();
+        if (CollectionUtils.isEmpty(extensions)) {
+            throw new IllegalArgumentException("There are no extensions available. Please re-search the extension list.");
+        }
+        Extension extension = findExtension(extensions, extensionName);
+        evictRemovedExtensions(extensions);
+        Function<Object, Object> transformer = createColumnTransformer(extension, extensionName);
+        return Boolean.TRUE.equals(extension.getDeterministic()) ? memoized(extensionName, transformer) : transformer;
+    }
+
+    private Function<Object, Object> createColumnTransformer(Extension extension, String extensionName) {
+        NativeExtension nativeExtension = findNativeExtension(extension);
+        if (nativeExtension != null) {
+            return value -> {
+                try {
+                    if (value instanceof byte[] bytes) {
+                        checkInputLength(extensionName, bytes.length);
+                        return extensionExecutor.execute(extensionName,
+                                () -> new String(nativeExtension.process(bytes, maxOutputBytes(extensionName)), StandardCharsets.UTF_8));
+                    }
+                    String input = String.valueOf(value);
+                    if (StringUtils.isBlank(input)) {
+                        return value;
+                    }
+                    extensionExecutor.checkInput(extensionName, input);
+                    return extensionExecutor.execute(extensionName, () -> nativeExtension.process(input, maxOutputBytes(extensionName)));
+                } catch (Exception e) {
+                    log.warn("Native extension failed on column value for extension: {}: {}", extensionName, e.getMessage());
+                    return Map.of("error", String.valueOf(e.getMessage()));
+                }
+            };
+        }
+        Class<? extends Script> scriptClass = loadScriptClass(extension);
+
+        return value -> {
+            String input = value instanceof byte[] bytes ? Base64.getEncoder().encodeToString(bytes) : String.valueOf(value);
+            if (StringUtils.isBlank(input)) {
+                return value;
+            }
+            try {
+                extensionExecutor.checkInput(extensionName, input);
+                return extensionExecutor.execute(extensionName, withContextClassLoader(scriptClass, () -> runScript(scriptClass, input)));
+            } catch (Exception | LinkageError e) {
+                log.warn("Groovy script failed on column value for extension: {}: {}", extensionName, e.getMessage());
+                return Map.of("error", String.valueOf(e.getMessage()));
+            }
+        };
+    }
+
+    /**
+     * 为确定性扩展的列值转换加上结果缓存，二进制值按 Base64 作为缓存键，处理失败的结果不缓存
+     */
+    private Function<Object, Object> memoized(String extensionName, Function<Object, Object> transformer) {
+        return value -> {
+            String input = value instanceof byte[] bytes ? Base64.getEncoder().encodeToString(bytes) : String.valueOf(value);
+            if (StringUtils.isBlank(input)) {
+                return transformer.apply(value);
+            }
+            Object cached = extensionMemo.get(extensionName, input);
+            if (cached != null) {
+                return cached;
+            }
+            Object result = transformer.apply(value);
+            if (!isFailure(result)) {
+                extensionMemo.put(extensionName, input, result);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * 是否为执行失败时替换的结果（只包含 error 的 Map），超时等失败可能是暂时的，不能缓存
+     */
+    private static boolean isFailure(Object result) {
+        return result instanceof Map<?, ?> map && map.size() == 1 && map.containsKey("error");
     }
 
     public List<Extension> getAllExtensions() {
         List<Extension> extensions = extensionConfig.getExtensions();
+        if (extensions != null) {
+            // 原生扩展没有配置描述时使用实现类提供的描述
+            extensions.stream()
+                    .filter(ext -> Extension.TYPE_NATIVE.equalsIgnoreCase(ext.getType()) && StringUtils.isBlank(ext.getDescription()))
+                    .forEach(ext -> nativeExtensionRegistry.find(ext.getName()).ifPresent(n -> ext.setDescription(n.description())));
+            extensions.forEach(ext -> ext.setReadiness(statuses.getOrDefault(ext.getName(), ExtensionStatus.COLD)));
+        }
         log.info("Loaded extensions count: {}", extensions != null ? extensions.size() : 0);
         if (extensions != null) {
             extensions.forEach(ext -> log.info("Extension loaded: name={}, enabled={}, description={}",
@@ -93,153 +361,471 @@ public class GroovyService {
     }
 
     /**
-     * 检查扩展的依赖是否已在 classpath 中可用
-     * 通过尝试加载已知的依赖类来验证
+     * 获取所有扩展当前就绪状态的副本，可作为扩展信息是否变化的版本
+     * @return 扩展名称到就绪状态的映射
      */
-    private boolean checkDependenciesInClasspath(Extension extension) {
-        // 对于 zstdDecode 扩展，检查 zstd-jni 库是否可用
-        if ("zstdDecode".equals(extension.getName())) {
-            try {
-                Class.forName("com.github.luben.zstd.Zstd");
-                log.info("Zstd dependency found in classpath for extension: {}", extension.getName());
-                return true;
-            } catch (ClassNotFoundException e) {
-                log.error("Zstd dependency not found in classpath for extension: {}", extension.getName());
-                return false;
-            }
-        }
+    public Map<String, ExtensionStatus> getStatuses() {
+        return Map.copyOf(statuses);
+    }
 
-        // 对于 SM4Decrypt 扩展，检查 BouncyCastle 库是否可用（hutool SM4 的关键依赖）
-        if ("SM4Decrypt".equals(extension.getName())) {
-            try {
-                Class.forName("org.bouncycastle.crypto.Digest");
-                log.info("BouncyCastle dependency found in classpath for extension: {}", extension.getName());
-                return true;
-            } catch (ClassNotFoundException e) {
-                log.error("BouncyCastle dependency not found in classpath for extension: {}, attempting dynamic loading", extension.getName());
-                return false;
+    /**
+     * 预热扩展：加载依赖、编译脚本（原生扩展为查找实现），并可选地试运行一次，记录就绪状态和耗时
+     * <p>
+     * 试运行使用扩展配置的 warmUpInput；未配置时使用固定的探测输入，脚本因输入不合法报错不算失败，只有缺少依赖等加载错误才算失败
+     *
+     * @param extension 扩展
+     * @param dryRun 是否试运行
+     * @return 预热后的就绪状态
+     */
+    public ExtensionStatus warmUp(Extension extension, boolean dryRun) {
+        String extensionName = extension.getName();
+        statuses.put(extensionName, ExtensionStatus.LOADING);
+        // 预热时重新读取脚本，脚本内容变化时重新加载扩展
+        scriptSources.remove(extensionName);
+        long start = System.nanoTime();
+        ExtensionStatus status;
+        try {
+            String input = StringUtils.defaultIfBlank(extension.getWarmUpInput(), WARM_UP_PROBE);
+            NativeExtension nativeExtension = findNativeExtension(extension);
+            Callable<Object> task;
+            if (nativeExtension != null) {
+                task = () -> nativeExtension.process(input, maxOutputBytes(extensionName));
+            } else {
+                Class<? extends Script> scriptClass = loadScriptClass(extension);
+                task = withContextClassLoader(scriptClass, () -> runScript(scriptClass, input));
             }
+            if (dryRun) {
+                dryRun(extension, task);
+            }
+            status = ExtensionStatus.ready(elapsedMillis(start));
+            log.info("Extension {} is ready in {}ms", extensionName, status.loadTimeMillis());
+        } catch (Exception | LinkageError e) {
+            status = ExtensionStatus.failed(elapsedMillis(start), rootMessage(e));
+            log.error("Failed to warm up extension {}: {}", extensionName, status.message());
         }
+        statuses.put(extensionName, status);
+        return status;
+    }
+
+    /**
+     * 关闭所有扩展的类加载器
+     */
+    @PreDestroy
+    public void closeAll() {
+        List.copyOf(classLoaders.keySet()).forEach(this::closeExtension);
+    }
 
-        // 对于其他扩展，可以添加相应的检查逻辑
-        // 或者通过扫描 dependency 目录来动态检查
-        return true; // 默认假设依赖已加载
+    private Extension findExtension(List<Extension> extensions, String extensionName) {
+        return extensions.stream()
+                .filter(f -> f.getName().equals(extensionName))
+                .findFirst()
+                .orElseThrow(() -> {
+                    log.error("Extension not found: {}", extensionName);
+                    return new IllegalArgumentException("Extension not found: " + extensionName);
+                });
     }
 
     /**
-     * 使用动态类加载器加载依赖（后备方案）
+     * 获取扩展对应的原生实现，Groovy 扩展返回 null
+     * @throws IllegalArgumentException 声明为原生扩展但类路径上没有同名实现时
      */
-    private Object loadWithDynamicClassLoader(Extension extension, String extensionName, String jarPathDir, String input) {
-        URLClassLoader customClassLoader = null;
-        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    private NativeExtension findNativeExtension(Extension extension) {
+        if (!Extension.TYPE_NATIVE.equalsIgnoreCase(extension.getType())) {
+            return null;
+        }
+        NativeExtension nativeExtension = nativeExtensionRegistry.find(extension.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Native extension not found: " + extension.getName()
+                        + ", available: " + nativeExtensionRegistry.names()));
+        statuses.putIfAbsent(extension.getName(), ExtensionStatus.ready(0));
+        return nativeExtension;
+    }
 
+    private void dryRun(Extension extension, Callable<Object> task) {
         try {
-            URL resource = GroovyService.class.getClassLoader().getResource(jarPathDir);
-            List<URL> jarUrls = new ArrayList<>();
-            log.info("Attempting dynamic loading for jarDirUrl: {}", resource);
+            extensionExecutor.execute(extension.getName(), task);
+        } catch (RuntimeException e) {
+            if (extension.getWarmUpInput() != null || hasLinkageError(e)) {
+                throw e;
+            }
+            log.debug("Dry run of extension {} rejected the probe input: {}", extension.getName(), e.getMessage());
+        }
+    }
 
-            if (resource == null) {
-                log.warn("Dependency directory not found: {}", jarPathDir);
-                return null;
+    private static boolean hasLinkageError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LinkageError) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            String protocol = resource.getProtocol();
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
 
-            if ("file".equals(protocol)) {
-                log.info("Loading dependencies from file system for extension: {}", extensionName);
-                File dependencyDir = new File(resource.toURI());
-                if (!(dependencyDir.exists() && dependencyDir.isDirectory())) {
-                    log.warn("Dependency directory does not exist: {}", dependencyDir.getAbsolutePath());
-                    return null;
-                }
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
 
-                try (Stream<Path> walk = Files.walk(dependencyDir.toPath())) {
-                    jarUrls = walk.filter(Files::isRegularFile)
-                            .filter(p -> p.toString().endsWith(".jar"))
-                            .map(p -> {
-                                try {
-                                    return p.toUri().toURL();
-                                } catch (Exception e) {
-                                    log.error("Error converting JAR path to URL: {}", p, e);
-                                    return null;
-                                }
-                            })
-                            .filter(Objects::nonNull)
-                            .toList();
-
-                    log.info("Found {} dependency JARs for extension: {}, files: {}",
-                            jarUrls.size(), extensionName,
-                            jarUrls.stream().map(URL::toString).toList());
-                }
-            }
+    private int maxOutputBytes(String extensionName) {
+        return extensionExecutor.getLimits(extensionName).maxOutputBytes();
+    }
 
-            ScriptEngineManager scriptEngineManager;
-            if (!CollectionUtils.isEmpty(jarUrls)) {
-                customClassLoader = new URLClassLoader(jarUrls.toArray(new URL[0]), originalContextClassLoader);
-                Thread.currentThread().setContextClassLoader(customClassLoader);
-                log.info("Custom classloader created with {} JARs for extension: {}", jarUrls.size(), extensionName);
+    private void checkInputLength(String extensionName, int length) {
+        int maxInputLength = extensionExecutor.getLimits(extensionName).maxInputLength();
+        if (maxInputLength > 0 && length > maxInputLength) {
+            throw new IllegalArgumentException("Input of extension [" + extensionName + "] is " + length
+                    + " bytes, exceeding the limit of " + maxInputLength);
+        }
+    }
 
-                scriptEngineManager = new ScriptEngineManager(customClassLoader);
-                log.info("Created ScriptEngineManager with custom classloader for extension: {}", extensionName);
-            } else {
-                log.info("No dependency JARs found for extension: {}, using default ScriptEngineManager", extensionName);
-                scriptEngineManager = new ScriptEngineManager();
-            }
+    /**
+     * 执行 Groovy 脚本的核心逻辑：取得编译后的脚本类，用新的 Binding 创建实例，在扩展线程池中以扩展的类加载器运行
+     */
+    private Object executeGroovyScriptWithEngine(Extension extension, String extensionName, String input) {
+        try {
+            Class<? extends Script> scriptClass = scriptClass(extension);
 
-            // 执行脚本逻辑
-            return executeGroovyScriptWithEngine(extension, extensionName, scriptEngineManager, input);
+            log.info("Executing Groovy script for extension: {}", extensionName);
+            Object result = extensionExecutor.execute(extensionName, withContextClassLoader(scriptClass, () -> runScript(scriptClass, input)));
+            log.info("Groovy script executed successfully for extension: {}", extensionName);
+            return result;
+
+        } catch (Exception | LinkageError e) {
+            // LinkageError: 扩展的依赖 JAR 缺少间接依赖的类
+            log.error("Error executing Groovy script for extension: {}", extensionName, e);
+            throw new RuntimeException("Error executing Groovy script: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * 执行任务期间把上下文类加载器切换为脚本的类加载器，依赖库可能通过上下文类加载器查找类或资源
+     */
+    private <T> Callable<T> withContextClassLoader(Class<? extends Script> scriptClass, Callable<T> task) {
+        return () -> {
+            ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(scriptClass.getClassLoader());
+            try {
+                return task.call();
+            } finally {
+                Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+            }
+        };
+    }
+
+    private Class<? extends Script> loadScriptClass(Extension extension) {
+        try {
+            return scriptClass(extension);
         } catch (Exception e) {
-            log.error("Error in dynamic class loading for extension: {}", extensionName, e);
-            return null;
-        } finally {
-            // 恢复原始的上下文类加载器
-            Thread.currentThread().setContextClassLoader(originalContextClassLoader);
-            if (customClassLoader != null) {
+            log.error("Failed to compile Groovy script for extension: {}", extension.getName(), e);
+            throw new RuntimeException("Error compiling Groovy script: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 用新的 Binding 创建脚本实例并运行
+     */
+    private Object runScript(Class<? extends Script> scriptClass, String input) {
+        Binding binding = new Binding();
+        binding.setVariable("inputString", input);
+        return InvokerHelper.createScript(scriptClass, binding).run();
+    }
+
+    /**
+     * 在扩展线程池上处理一段输入
+     */
+    private List<Object> runChunk(Class<? extends Script> scriptClass, boolean batchMethod, List<String> chunk, String extensionName) {
+        try {
+            if (batchMethod) {
+                List<String> values = chunk.stream().map(input -> StringUtils.isBlank(input) ? null : input).toList();
+                Object result = InvokerHelper.createScript(scriptClass, new Binding()).invokeMethod(BATCH_METHOD, new Object[]{values});
+                if (!(result instanceof List<?> list) || list.size() != chunk.size()) {
+                    throw new IllegalStateException(BATCH_METHOD + " must return a list with one result per input");
+                }
+                return new ArrayList<>(list);
+            }
+            List<Object> results = new ArrayList<>(chunk.size());
+            for (String input : chunk) {
+                if (StringUtils.isBlank(input)) {
+                    results.add(null);
+                    continue;
+                }
                 try {
-                    customClassLoader.close();
-                } catch (IOException e) {
-                    log.warn("Failed to close custom class loader for extension: {}", extensionName, e);
+                    results.add(runScript(scriptClass, input));
+                } catch (Exception | LinkageError e) {
+                    log.warn("Groovy script failed on one input for extension: {}: {}", extensionName, e.getMessage());
+                    results.add(Map.of("error", String.valueOf(e.getMessage())));
                 }
             }
+            return results;
+        } catch (Exception | LinkageError e) {
+            log.error("Error executing Groovy script batch for extension: {}", extensionName, e);
+            return new ArrayList<>(Collections.nCopies(chunk.size(), Map.of("error", String.valueOf(e.getMessage()))));
+        }
+    }
+
+    /**
+     * 在扩展线程池上用原生扩展逐个处理一段输入
+     */
+    private List<Object> runNativeChunk(NativeExtension nativeExtension, List<String> chunk, String extensionName) {
+        List<Object> results = new ArrayList<>(chunk.size());
+        for (String input : chunk) {
+            if (StringUtils.isBlank(input)) {
+                results.add(null);
+                continue;
+            }
+            try {
+                results.add(nativeExtension.process(input, maxOutputBytes(extensionName)));
+            } catch (Exception e) {
+                log.warn("Native extension failed on one input for extension: {}: {}", extensionName, e.getMessage());
+                results.add(Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        return results;
+    }
+
+    private boolean hasBatchMethod(Class<? extends Script> scriptClass) {
+        return Arrays.stream(scriptClass.getDeclaredMethods())
+                .anyMatch(method -> method.getName().equals(BATCH_METHOD) && method.getParameterCount() == 1
+                        && method.getParameterTypes()[0].isAssignableFrom(List.class));
+    }
+
+    /**
+     * 读取扩展的主脚本
+     */
+    String readScript(Extension extension) throws IOException {
+        String scriptPath = "groovy/" + extension.getName() + "/script/" + extension.getMainFileName();
+        URL scriptUrl = GroovyService.class.getClassLoader().getResource(scriptPath);
+        if (scriptUrl == null) {
+            log.error("Groovy script not found at classpath: {}", scriptPath);
+            throw new RuntimeException("Groovy script not found: " + scriptPath);
+        }
+        try (InputStream inputStream = scriptUrl.openStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
         }
     }
 
     /**
-     * 执行 Groovy 脚本的核心逻辑
+     * 获取扩展当前的脚本类。脚本内容哈希已缓存且扩展配置未重新绑定时直接查找已编译的脚本类，不读取脚本；
+     * 否则在扩展的加载锁内读取、编译或重新加载
      */
-    private Object executeGroovyScriptWithEngine(Extension extension, String extensionName, ScriptEngineManager scriptEngineManager, String input) {
+    private Class<? extends Script> scriptClass(Extension extension) throws Exception {
+        Class<? extends Script> scriptClass = cachedScriptClass(extension);
+        if (scriptClass != null) {
+            return scriptClass;
+        }
+        ReentrantLock lock = loadLock(extension.getName());
+        lock.lock();
         try {
-            String groovyBasePath = "groovy/" + extension.getName();
-            String scriptPath = groovyBasePath + "/script/" + extension.getMainFileName();
+            scriptClass = cachedScriptClass(extension);
+            if (scriptClass != null) {
+                return scriptClass;
+            }
+            String scriptContent = readScript(extension);
+            String contentHash = sha256(scriptContent);
+            scriptClass = compiledScript(extension, contentHash, scriptContent);
+            scriptSources.put(extension.getName(), new ScriptSource(extension, contentHash));
+            return scriptClass;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            ScriptEngine groovyEngine = scriptEngineManager.getEngineByName("groovy");
+    private Class<? extends Script> cachedScriptClass(Extension extension) {
+        ScriptSource source = scriptSources.get(extension.getName());
+        if (source == null || source.extension() != extension) {
+            return null;
+        }
+        return compiledScripts.get(new ScriptKey(extension.getName(), source.contentHash()));
+    }
+
+    private ReentrantLock loadLock(String extensionName) {
+        return loadLocks.computeIfAbsent(extensionName, name -> new ReentrantLock());
+    }
 
-            if (groovyEngine == null) {
-                log.error("Groovy ScriptEngine not found. Ensure Groovy runtime is available.");
-                throw new RuntimeException("Groovy ScriptEngine not found.");
+    /**
+     * 获取缓存的脚本类。未缓存时在扩展的类加载器上编译；已编译的是其他内容哈希的脚本时视为扩展重新加载，
+     * 先关闭旧的类加载器并重新扫描依赖。调用方需持有扩展的加载锁
+     */
+    private Class<? extends Script> compiledScript(Extension extension, String contentHash, String scriptContent) {
+        ScriptKey key = new ScriptKey(extension.getName(), contentHash);
+        Class<? extends Script> scriptClass = compiledScripts.get(key);
+        if (scriptClass != null) {
+            return scriptClass;
+        }
+        if (compiledScripts.keySet().stream().anyMatch(old -> old.extensionName().equals(key.extensionName())
+                && !old.contentHash().equals(key.contentHash()))) {
+            log.info("Script of extension {} changed, reloading extension", extension.getName());
+            closeExtension(extension.getName());
+        }
+
+        long start = System.nanoTime();
+        ExtensionClassLoader classLoader = classLoaders.computeIfAbsent(extension.getName(), name -> createClassLoader(extension));
+        GroovyCodeSource codeSource = new GroovyCodeSource(scriptContent, extension.getMainFileName(), GroovyShell.DEFAULT_CODE_BASE);
+        scriptClass = classLoader.groovyClassLoader().parseClass(codeSource, false).asSubclass(Script.class);
+        compiledScripts.put(key, scriptClass);
+        // 首次调用时加载的扩展同样记录为就绪，预热中的状态由预热结束时更新
+        statuses.compute(extension.getName(), (name, status) ->
+                status == null || status.state() == ExtensionStatus.State.COLD ? ExtensionStatus.ready(elapsedMillis(start)) : status);
+        log.info("Compiled Groovy script for extension: {} (hash {})", extension.getName(), key.contentHash());
+        return scriptClass;
+    }
+
+    /**
+     * 为扩展创建类加载器：dependency 目录下有 JAR 时创建只包含这些 JAR 的独立类加载器，否则直接使用应用类加载器
+     */
+    private ExtensionClassLoader createClassLoader(Extension extension) {
+        ClassLoader parent = GroovyService.class.getClassLoader();
+        Path extractedDir = null;
+        URLClassLoader dependencyClassLoader = null;
+        try {
+            String jarPathDir = "groovy/" + extension.getName() + "/dependency/";
+            URL resource = parent.getResource(jarPathDir);
+            List<URL> jarUrls = new ArrayList<>();
+            if (resource == null) {
+                log.info("No dependency directory for extension: {}, using application classloader", extension.getName());
+            } else if ("file".equals(resource.getProtocol())) {
+                jarUrls = listJars(Path.of(resource.toURI()));
+            } else if (resource.openConnection() instanceof JarURLConnection jarConnection) {
+                // 在可执行 JAR 中运行时，嵌套的依赖 JAR 不能直接被 URLClassLoader 加载，先解压到临时目录
+                extractedDir = Files.createTempDirectory("mcp-extension-" + extension.getName());
+                extractJars(jarConnection, extractedDir);
+                jarUrls = listJars(extractedDir);
             }
 
-            URL scriptUrl = GroovyService.class.getClassLoader().getResource(scriptPath);
-            if (scriptUrl == null) {
-                log.error("Groovy script not found at classpath: {}", scriptPath);
-                throw new RuntimeException("Groovy script not found: " + scriptPath);
+            if (!jarUrls.isEmpty()) {
+                dependencyClassLoader = new URLClassLoader("extension-" + extension.getName(), jarUrls.toArray(new URL[0]), parent);
+                log.info("Created classloader with {} dependency JARs for extension: {}, files: {}",
+                        jarUrls.size(), extension.getName(), jarUrls.stream().map(URL::toString).toList());
             }
+        } catch (Exception e) {
+            log.error("Failed to load dependency JARs for extension: {}, using application classloader", extension.getName(), e);
+        }
+        // 在循环和方法入口插入中断检查，执行超时后中断线程即可结束脚本
+        CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        compilerConfiguration.addCompilationCustomizers(new ASTTransformationCustomizer(ThreadInterrupt.class));
+        GroovyClassLoader groovyClassLoader = new GroovyClassLoader(dependencyClassLoader != null ? dependencyClassLoader : parent, compilerConfiguration);
+        return new ExtensionClassLoader(groovyClassLoader, dependencyClassLoader, extractedDir);
+    }
+
+    private List<URL> listJars(Path dependencyDir) throws IOException {
+        if (!Files.isDirectory(dependencyDir)) {
+            return List.of();
+        }
+        try (Stream<Path> walk = Files.walk(dependencyDir)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".jar"))
+                    .sorted()
+                    .map(p -> {
+                        try {
+                            return p.toUri().toURL();
+                        } catch (Exception e) {
+                            log.error("Error converting JAR path to URL: {}", p, e);
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+    }
 
-            String scriptContent;
-            try (InputStream inputStream = scriptUrl.openStream()) {
-                scriptContent = new String(inputStream.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+    private void extractJars(JarURLConnection jarConnection, Path targetDir) throws IOException {
+        jarConnection.setUseCaches(false);
+        String prefix = jarConnection.getEntryName();
+        try (JarFile jarFile = jarConnection.getJarFile()) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.startsWith(prefix) || !name.endsWith(".jar")) {
+                    continue;
+                }
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    Files.copy(inputStream, targetDir.resolve(name.substring(name.lastIndexOf('/') + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
             }
+        }
+    }
 
-            log.info("Executing Groovy script for extension: {}", extensionName);
-            groovyEngine.put("inputString", input);
-            Object result = groovyEngine.eval(scriptContent);
-            log.info("Groovy script executed successfully for extension: {}", extensionName);
-            return result;
+    /**
+     * 关闭已从配置中移除的扩展的类加载器
+     */
+    private void evictRemovedExtensions(List<Extension> extensions) {
+        if (classLoaders.isEmpty()) {
+            return;
+        }
+        Set<String> names = extensions.stream().map(Extension::getName).collect(Collectors.toSet());
+        classLoaders.keySet().stream()
+                .filter(name -> !names.contains(name))
+                .toList()
+                .forEach(name -> {
+                    log.info("Extension {} removed, closing its classloader", name);
+                    closeExtension(name);
+                });
+    }
 
-        } catch (Exception e) {
-            log.error("Error executing Groovy script for extension: {}", extensionName, e);
-            throw new RuntimeException("Error executing Groovy script: " + e.getMessage(), e);
+    /**
+     * 移除扩展的编译结果并关闭其类加载器
+     */
+    private void closeExtension(String extensionName) {
+        ReentrantLock lock = loadLock(extensionName);
+        lock.lock();
+        try {
+            compiledScripts.keySet().removeIf(key -> key.extensionName().equals(extensionName));
+            scriptSources.remove(extensionName);
+            statuses.remove(extensionName);
+            extensionMemo.invalidate(extensionName);
+            ExtensionClassLoader classLoader = classLoaders.remove(extensionName);
+            if (classLoader != null) {
+                classLoader.close(extensionName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String sha256(String content) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record ScriptKey(String extensionName, String contentHash) {
+    }
+
+    /**
+     * 扩展脚本的来源
+     * @param extension 读取脚本时的扩展配置，配置重新绑定后为不同的对象
+     * @param contentHash 脚本内容的 SHA-256
+     */
+    private record ScriptSource(Extension extension, String contentHash) {
+    }
+
+    /**
+     * 扩展的类加载器
+     * @param groovyClassLoader 编译扩展脚本的类加载器
+     * @param dependencyClassLoader 只包含扩展依赖 JAR 的类加载器，没有依赖时为 null
+     * @param extractedDir 从可执行 JAR 中解压依赖的临时目录，没有时为 null
+     */
+    private record ExtensionClassLoader(GroovyClassLoader groovyClassLoader, URLClassLoader dependencyClassLoader, Path extractedDir) {
+
+        void close(String extensionName) {
+            try {
+                groovyClassLoader.close();
+                if (dependencyClassLoader != null) {
+                    dependencyClassLoader.close();
+                }
+                if (extractedDir != null) {
+                    try (Stream<Path> walk = Files.walk(extractedDir)) {
+                        walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                    }
+                }
+                log.info("Closed classloader for extension: {}", extensionName);
+            } catch (IOException e) {
+                log.warn("Failed to close classloader for extension: {}", extensionName, e);
+            }
         }
     }
 }
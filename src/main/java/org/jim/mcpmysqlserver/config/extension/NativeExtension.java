@@ -0,0 +1,99 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Java 原生扩展
+ * <p>
+ * 通过 {@link java.util.ServiceLoader} 发现（META-INF/services 中注册实现类），在 extension.yml 中以 type: native 和同名的 name 启用。
+ * 与 Groovy 扩展相比没有动态分派和脚本实例化开销，并且可以直接处理二进制列值，适合高频的解码、解压、解密等转换。
+ * 实现必须是无状态或线程安全的，同一个实例会被并发调用
+ * @author yangxin
+ */
+public interface NativeExtension {
+
+    /**
+     * 扩展名称，与 extension.yml 中的 name 对应
+     */
+    String name();
+
+    /**
+     * 扩展描述，extension.yml 中没有配置 description 时使用
+     */
+    default String description() {
+        return null;
+    }
+
+    /**
+     * 处理二进制输入
+     * @param input 输入字节
+     * @return 处理结果
+     */
+    byte[] process(byte[] input) throws Exception;
+
+    /**
+     * 处理二进制输入并限制输出大小，默认调用 {@link #process(byte[])} 后检查结果长度。
+     * 输出可能远大于输入的实现（如解压）应覆盖此方法，在分配前或超过限制时立即失败
+     * @param input 输入字节
+     * @param maxOutputBytes 输出的最大字节数，<= 0 表示不限制
+     * @return 处理结果
+     * @throws IllegalArgumentException 输出超过限制时
+     */
+    default byte[] process(byte[] input, int maxOutputBytes) throws Exception {
+        byte[] output = process(input);
+        checkOutputSize(output.length, maxOutputBytes);
+        return output;
+    }
+
+    /**
+     * 处理二进制输入，默认复制为字节数组后调用 {@link #process(byte[])}
+     * @param input 输入缓冲区，从当前位置读到 limit
+     * @return 处理结果
+     */
+    default ByteBuffer process(ByteBuffer input) throws Exception {
+        byte[] bytes = new byte[input.remaining()];
+        input.get(bytes);
+        return ByteBuffer.wrap(process(bytes));
+    }
+
+    /**
+     * 处理字符串输入，默认把输入按 Base64 解码后调用 {@link #process(byte[])}，结果按 UTF-8 转为字符串
+     * @param input 输入字符串
+     * @return 处理结果
+     */
+    default Object process(String input) throws Exception {
+        return new String(process(Base64.getMimeDecoder().decode(input.trim())), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 处理字符串输入并限制输出大小，默认调用 {@link #process(String)} 后检查结果长度，字符串结果按字符数计算。
+     * 输出可能远大于输入的实现应覆盖此方法
+     * @param input 输入字符串
+     * @param maxOutputBytes 输出的最大字节数，<= 0 表示不限制
+     * @return 处理结果
+     * @throws IllegalArgumentException 输出超过限制时
+     */
+    default Object process(String input, int maxOutputBytes) throws Exception {
+        Object output = process(input);
+        if (output instanceof byte[] bytes) {
+            checkOutputSize(bytes.length, maxOutputBytes);
+        } else if (output instanceof CharSequence text) {
+            checkOutputSize(text.length(), maxOutputBytes);
+        }
+        return output;
+    }
+
+    /**
+     * 检查输出大小是否超过限制
+     * @param size 输出的字节数，可以是帧头中声明的大小
+     * @param maxOutputBytes 输出的最大字节数，<= 0 表示不限制
+     * @throws IllegalArgumentException 超过限制时
+     */
+    static void checkOutputSize(long size, int maxOutputBytes) {
+        if (maxOutputBytes > 0 && size > maxOutputBytes) {
+            throw new IllegalArgumentException("Output size " + size + " bytes exceeds the limit of " + maxOutputBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Java 原生扩展注册表，启动时通过 {@link ServiceLoader} 发现类路径上的所有 {@link NativeExtension} 实现
+ * @author yangxin
+ */
+@Component
+@Slf4j
+public class NativeExtensionRegistry {
+
+    private final Map<String, NativeExtension> extensions = new LinkedHashMap<>();
+
+    public NativeExtensionRegistry() {
+        ServiceLoader<NativeExtension> loader = ServiceLoader.load(NativeExtension.class, NativeExtensionRegistry.class.getClassLoader());
+        for (ServiceLoader.Provider<NativeExtension> provider : loader.stream().toList()) {
+            try {
+                NativeExtension extension = provider.get();
+                NativeExtension existing = extensions.putIfAbsent(extension.name(), extension);
+                if (existing != null) {
+                    log.warn("Duplicate native extension {}: keeping {}, ignoring {}", extension.name(),
+                            existing.getClass().getName(), extension.getClass().getName());
+                }
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // 实现类依赖的库不在类路径上时跳过该扩展
+                log.warn("Failed to load native extension {}: {}", provider.type().getName(), e.getMessage());
+            }
+        }
+        log.info("Loaded native extensions: {}", extensions.keySet());
+    }
+
+    /**
+     * 按名称查找原生扩展
+     * @param name 扩展名称
+     * @return 原生扩展
+     */
+    public Optional<NativeExtension> find(String name) {
+        return Optional.ofNullable(extensions.get(name));
+    }
+
+    /**
+     * 获取所有已发现的原生扩展名称
+     */
+    public Set<String> names() {
+        return extensions.keySet();
+    }
+}
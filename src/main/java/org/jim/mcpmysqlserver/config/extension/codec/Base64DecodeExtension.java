@@ -0,0 +1,36 @@
+package org.jim.mcpmysqlserver.config.extension.codec;
+
+import org.jim.mcpmysqlserver.config.extension.NativeExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Base64 解码，结果按 UTF-8 转为文本
+ * @author yangxin
+ */
+public class Base64DecodeExtension implements NativeExtension {
+
+    @Override
+    public String name() {
+        return "base64Decode";
+    }
+
+    @Override
+    public String description() {
+        return "Decodes Base64 text into UTF-8 text";
+    }
+
+    /**
+     * 二进制输入视为 Base64 文本的字节
+     */
+    @Override
+    public byte[] process(byte[] input) {
+        return Base64.getMimeDecoder().decode(input);
+    }
+
+    @Override
+    public Object process(String input) {
+        return new String(Base64.getMimeDecoder().decode(input.trim()), StandardCharsets.UTF_8);
+    }
+}
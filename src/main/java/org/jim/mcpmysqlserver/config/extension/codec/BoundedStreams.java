@@ -0,0 +1,42 @@
+package org.jim.mcpmysqlserver.config.extension.codec;
+
+import org.jim.mcpmysqlserver.config.extension.NativeExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * 有上限的流读取，代替 {@link InputStream#readAllBytes()}：超过上限时立即失败，执行线程被中断（扩展超时）时停止读取
+ * @author yangxin
+ */
+final class BoundedStreams {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private BoundedStreams() {
+    }
+
+    /**
+     * 读取流中的全部字节
+     * @param inputStream 输入流
+     * @param maxOutputBytes 最多读取的字节数，<= 0 表示不限制
+     * @return 读取的字节
+     * @throws IllegalArgumentException 超过上限时
+     * @throws InterruptedIOException 执行线程被中断时
+     */
+    static byte[] readAll(InputStream inputStream, int maxOutputBytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Decompression was interrupted");
+            }
+            NativeExtension.checkOutputSize((long) output.size() + read, maxOutputBytes);
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package org.jim.mcpmysqlserver.config.extension.codec;
+
+import org.jim.mcpmysqlserver.config.extension.NativeExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * GZIP 解压。二进制列值直接解压，字符串输入按 Base64 解码后解压，结果按 UTF-8 转为文本
+ * @author yangxin
+ */
+public class GzipDecodeExtension implements NativeExtension {
+
+    @Override
+    public String name() {
+        return "gzipDecode";
+    }
+
+    @Override
+    public String description() {
+        return "Decompresses GZIP data (binary, or Base64 text) into UTF-8 text";
+    }
+
+    @Override
+    public byte[] process(byte[] input) throws IOException {
+        return process(input, 0);
+    }
+
+    /**
+     * 边解压边检查输出大小，超过限制时立即失败
+     */
+    @Override
+    public byte[] process(byte[] input, int maxOutputBytes) throws IOException {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(input))) {
+            return BoundedStreams.readAll(inputStream, maxOutputBytes);
+        }
+    }
+
+    @Override
+    public Object process(String input, int maxOutputBytes) throws IOException {
+        return new String(process(Base64.getMimeDecoder().decode(input.trim()), maxOutputBytes), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package org.jim.mcpmysqlserver.config.extension.codec;
+
+import org.jim.mcpmysqlserver.config.extension.NativeExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * 十六进制解码，结果按 UTF-8 转为文本。输入可以带 0x 前缀
+ * @author yangxin
+ */
+public class HexDecodeExtension implements NativeExtension {
+
+    @Override
+    public String name() {
+        return "hexDecode";
+    }
+
+    @Override
+    public String description() {
+        return "Decodes hex text (optionally prefixed with 0x) into UTF-8 text";
+    }
+
+    /**
+     * 二进制输入视为十六进制文本的字节
+     */
+    @Override
+    public byte[] process(byte[] input) {
+        return decode(new String(input, StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public Object process(String input) {
+        return new String(decode(input), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decode(String hex) {
+        String value = hex.trim();
+        if (value.startsWith("0x") || value.startsWith("0X")) {
+            value = value.substring(2);
+        }
+        return HexFormat.of().parseHex(value);
+    }
+}
@@ -0,0 +1,57 @@
+package org.jim.mcpmysqlserver.config.extension.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import org.jim.mcpmysqlserver.config.extension.NativeExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * ZSTD 解压。二进制列值直接解压，字符串输入按 Base64 解码后解压，结果按 UTF-8 转为文本
+ * @author yangxin
+ */
+public class ZstdDecodeExtension implements NativeExtension {
+
+    @Override
+    public String name() {
+        return "zstdDecode";
+    }
+
+    @Override
+    public String description() {
+        return "Decompresses ZSTD data (binary, or Base64 text) into UTF-8 text";
+    }
+
+    @Override
+    public byte[] process(byte[] input) throws IOException {
+        return process(input, 0);
+    }
+
+    /**
+     * 帧头中记录了原始大小时先按限制检查再一次性分配，否则边流式解压边检查，超过限制时立即失败
+     */
+    @Override
+    public byte[] process(byte[] input, int maxOutputBytes) throws IOException {
+        // 帧头中记录的原始大小，未记录或不是有效的帧时为负数
+        long size = Zstd.getFrameContentSize(input);
+        NativeExtension.checkOutputSize(size, maxOutputBytes);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Decompressed size " + size + " is too large");
+        }
+        if (size > 0) {
+            return Zstd.decompress(input, (int) size);
+        }
+        // 帧头中没有记录原始大小时流式解压，无效的输入由流式解压报告错误
+        try (ZstdInputStream inputStream = new ZstdInputStream(new ByteArrayInputStream(input))) {
+            return BoundedStreams.readAll(inputStream, maxOutputBytes);
+        }
+    }
+
+    @Override
+    public Object process(String input, int maxOutputBytes) throws IOException {
+        return new String(process(Base64.getMimeDecoder().decode(input.trim()), maxOutputBytes), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package org.jim.mcpmysqlserver.controller;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行指标控制器，以 JSON 形式输出当前注册的所有指标
+ * @author yangxin
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@Slf4j
+public class MetricsController {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取指标列表
+     * @param prefix 指标名前缀（可选），例如 mcp.pool
+     * @return 指标名称、标签和当前值
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> listMetrics(@RequestParam(required = false) String prefix) {
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        meterRegistry.getMeters().stream()
+                .filter(meter -> prefix == null || meter.getId().getName().startsWith(prefix))
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName()))
+                .forEach(meter -> {
+                    Map<String, Object> metric = new LinkedHashMap<>();
+                    metric.put("name", meter.getId().getName());
+                    Map<String, String> tags = new LinkedHashMap<>();
+                    meter.getId().getTags().forEach(tag -> tags.put(tag.getKey(), tag.getValue()));
+                    metric.put("tags", tags);
+                    Map<String, Double> values = new LinkedHashMap<>();
+                    for (Measurement measurement : meter.measure()) {
+                        values.put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+                    }
+                    metric.put("values", values);
+                    metrics.add(metric);
+                });
+        return ResponseEntity.ok(metrics);
+    }
+}
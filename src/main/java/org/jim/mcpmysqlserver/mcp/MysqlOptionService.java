@@ -2,32 +2,51 @@ package org.jim.mcpmysqlserver.mcp;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.jim.mcpmysqlserver.config.SqlRowLimitConfig;
 import org.jim.mcpmysqlserver.config.extension.Extension;
 import org.jim.mcpmysqlserver.config.extension.GroovyService;
+import org.jim.mcpmysqlserver.schema.CatalogPage;
+import org.jim.mcpmysqlserver.service.CatalogService;
 import org.jim.mcpmysqlserver.service.DataSourceService;
 import org.jim.mcpmysqlserver.service.JdbcExecutor;
+import org.jim.mcpmysqlserver.service.QueryCostGuard;
+import org.jim.mcpmysqlserver.service.SchemaMetadataService;
+import org.jim.mcpmysqlserver.service.SqlSessionService;
+import org.jim.mcpmysqlserver.service.TableSampler;
+import org.jim.mcpmysqlserver.sql.SqlClassification;
+import org.jim.mcpmysqlserver.sql.SqlLexer;
+import org.jim.mcpmysqlserver.sql.SqlLimitRewriter;
+import org.jim.mcpmysqlserver.sql.SqlStatementType;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector;
 import org.jim.mcpmysqlserver.validator.SqlSecurityValidator;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * 数据库操作服务，支持多种数据库类型（MySQL、PostgreSQL、Oracle、SQL Server、H2等）
@@ -42,17 +61,36 @@ public class MysqlOptionService {
     private final ObjectMapper objectMapper;
     private final SqlSecurityValidator sqlSecurityValidator;
     private final JdbcExecutor jdbcExecutor;
+    private final SqlSessionService sqlSessionService;
+    private final QueryCostGuard queryCostGuard;
 
     @Resource
     private GroovyService groovyService;
 
-    public MysqlOptionService(DataSourceService dataSourceService, SqlSecurityValidator sqlSecurityValidator, JdbcExecutor jdbcExecutor) {
+    @Resource
+    private SqlRowLimitConfig sqlRowLimitConfig;
+
+    @Resource
+    private SchemaMetadataService schemaMetadataService;
+
+    @Resource
+    private TableSampler tableSampler;
+
+    @Resource
+    private CatalogService catalogService;
+
+    @Resource
+    private Environment environment;
+
+    public MysqlOptionService(DataSourceService dataSourceService, SqlSecurityValidator sqlSecurityValidator, JdbcExecutor jdbcExecutor,
+                              SqlSessionService sqlSessionService, QueryCostGuard queryCostGuard, ObjectMapper objectMapper) {
         this.dataSourceService = dataSourceService;
         this.sqlSecurityValidator = sqlSecurityValidator;
         this.jdbcExecutor = jdbcExecutor;
-        this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.sqlSessionService = sqlSessionService;
+        this.queryCostGuard = queryCostGuard;
+        // 使用 Spring 配置的共享 ObjectMapper（已注册 JavaTimeModule，日期序列化为 ISO 字符串）
+        this.objectMapper = objectMapper;
         log.info("DatabaseOptionService initialized with DataSourceService, SqlSecurityValidator and JdbcExecutor");
     }
 
@@ -60,7 +98,7 @@ public class MysqlOptionService {
     /**
      * 执行任意SQL语句，不做限制，直接透传数据库服务器的返回值。该工具会查询所有可用的数据源，并执行相同的SQL查询。如果考虑性能，更建议使用executeSqlWithDataSource
      * 在所有可用的数据源上执行相同的SQL查询
-     * 使用异步多线程方式执行，最多5个线程同时执行
+     * 使用异步多线程方式执行，最多5个线程同时执行，启用虚拟线程时每个数据源一个虚拟线程
      * <p>
      * 注意！该工具调用优先级最高，如果用户明确要求根据数据源名称执行SQL，则该工具不会被调用。
      * <p>
@@ -69,28 +107,34 @@ public class MysqlOptionService {
      * 常见需要处理的数据类型包括：加密字段、Base64编码、URL编码、JSON字符串、时间戳转换等。
      *
      * @param sql 要执行的SQL语句
-     * @return 所有成功的数据源的查询结果，格式为 {"datasourceName": result, ...}
+     * @return 所有成功的数据源的查询结果，格式为 {"datasourceName": result, ...}，查询成本超过阈值时附带 "warnings"，
+     * 追加了行数限制时附带 "row_limit_applied": {"datasourceName": limit}
      */
-    @Tool(description = "Executes a SQL query on all configured datasources simultaneously. Returns results as JSON mapping each datasource name to its query result. Use ONLY when the user explicitly asks to query all environments/datasources. Do NOT use as automatic fallback when default/single-datasource returns empty. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. TIP: Call listDataSources() first to understand the database types of all datasources, then use appropriate SQL syntax for each database type (MySQL, PostgreSQL, Oracle, SQL Server, H2, or IoTDB).")
+    @Tool(description = "Executes a SQL query on all configured datasources simultaneously. Returns results as JSON mapping each datasource name to its query result. Use ONLY when the user explicitly asks to query all environments/datasources. Do NOT use as automatic fallback when default/single-datasource returns empty. Unbounded SELECTs may be capped by a server-side row limit; when 'row_limit_applied' is present in the result, add an explicit LIMIT (or the dialect's equivalent) to control the number of rows. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. TIP: Call listDataSources() first to understand the database types of all datasources, then use appropriate SQL syntax for each database type (MySQL, PostgreSQL, Oracle, SQL Server, H2, or IoTDB).")
     public Map<String, Object> executeSql(@ToolParam(description = "Valid SQL statement (e.g., 'SELECT id, name FROM users WHERE status = \"active\"')") String sql) {
         log.info("Executing SQL on all available datasources: {}", sql);
 
-        // SQL安全验证
-        Map<String, Object> errorResult = validateSqlAndGetErrorResult(sql);
-        if (errorResult != null) {
-            return errorResult;
-        }
-
         // 获取所有可用的数据源名称
         List<String> dataSourceNames = dataSourceService.getDataSourceNames();
         log.info("Found {} available datasources", dataSourceNames.size());
 
+        // SQL安全验证，按每种数据库方言分别验证，分类结果用于选择只读连接池
+        List<DatabaseTypeDetector.DatabaseType> databaseTypes = dataSourceNames.stream().map(dataSourceService::getDatabaseType).distinct().toList();
+        Map<DatabaseTypeDetector.DatabaseType, SqlSecurityValidator.SqlValidationResult> validationResults = new EnumMap<>(DatabaseTypeDetector.DatabaseType.class);
+        for (DatabaseTypeDetector.DatabaseType databaseType : databaseTypes.isEmpty() ? List.of(DatabaseTypeDetector.DatabaseType.UNKNOWN) : databaseTypes) {
+            SqlSecurityValidator.SqlValidationResult validationResult = sqlSecurityValidator.validateSql(sql, databaseType);
+            if (!validationResult.valid()) {
+                return toErrorResult(validationResult);
+            }
+            validationResults.put(databaseType, validationResult);
+        }
+
         // 存储每个数据源的查询结果，使用线程安全的ConcurrentHashMap
         Map<String, Object> successResults = new ConcurrentHashMap<>();
+        List<String> warnings = new CopyOnWriteArrayList<>();
+        Map<String, Integer> rowLimits = new ConcurrentHashMap<>();
 
-        // 创建固定大小的线程池，最多5个线程同时执行
-        ExecutorService executor = Executors.newFixedThreadPool(Math.min(5, dataSourceNames.size()));
-        log.info("Created thread pool with {} threads", Math.min(5, dataSourceNames.size()));
+        ExecutorService executor = newFanOutExecutor(dataSourceNames.size());
 
         try {
             // 等待所有任务完成
@@ -99,16 +143,32 @@ public class MysqlOptionService {
                         log.info("Executing SQL on datasource [{}]", dsName);
 
                         // 获取指定的数据源
-                        DataSource targetDataSource = dataSourceService.getDataSource(dsName);
+                        SqlSecurityValidator.SqlValidationResult validationResult = validationResults.get(dataSourceService.getDatabaseType(dsName));
+                        DataSource targetDataSource = dataSourceService.getDataSource(dsName, validationResult.classification().readOnly());
                         if (targetDataSource == null) {
                             log.warn("Datasource [{}] not found, skipping", dsName);
                             return;
                         }
 
+                        // 按数据源方言追加行数限制
+                        String limitedSql = applyRowLimit(dsName, sql, validationResult);
+                        String executedSql = limitedSql != null ? limitedSql : sql;
+
+                        // 查询成本检查，被拒绝的数据源不执行
+                        QueryCostGuard.CostVerdict costVerdict = queryCostGuard.check(dsName, targetDataSource, executedSql, validationResult);
+                        if (costVerdict.blocked()) {
+                            warnings.add(costVerdict.message() + " The query was not executed on this datasource.");
+                            return;
+                        }
+                        warnings.addAll(costVerdict.warnings());
+
                         // 使用JdbcExecutor执行SQL
-                        JdbcExecutor.SqlResult result = jdbcExecutor.executeSql(targetDataSource, sql);
+                        JdbcExecutor.SqlResult result = jdbcExecutor.executeSql(targetDataSource, executedSql);
                         if (result.success()) {
                             successResults.put(dsName, result.data());
+                            if (limitedSql != null) {
+                                rowLimits.put(dsName, sqlRowLimitConfig.getLimit(dsName));
+                            }
                             log.info("Query executed successfully on datasource [{}]", dsName);
                             return;
                         }
@@ -136,9 +196,28 @@ public class MysqlOptionService {
             }
         }
 
+        if (!warnings.isEmpty()) {
+            successResults.put("warnings", warnings);
+        }
+        if (!rowLimits.isEmpty()) {
+            successResults.put("row_limit_applied", rowLimits);
+        }
         return successResults;
     }
 
+    /**
+     * 创建在多个数据源上并行执行的线程池。启用虚拟线程（spring.threads.virtual.enabled）时每个数据源一个虚拟线程，
+     * 否则为最多5个线程的固定线程池
+     */
+    private ExecutorService newFanOutExecutor(int dataSourceCount) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Using virtual threads for {} datasources", dataSourceCount);
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        log.info("Created thread pool with {} threads", Math.min(5, dataSourceCount));
+        return Executors.newFixedThreadPool(Math.min(5, dataSourceCount));
+    }
+
     /**
      * 获取所有可用的数据源名称和数据库类型信息
      * @return 数据源名称列表、默认数据源名称和每个数据源的数据库类型
@@ -162,6 +241,155 @@ public class MysqlOptionService {
         return result;
     }
 
+    /**
+     * 一次获取多张表的完整结构，包括列、类型、主键、索引和外键
+     *
+     * @param tableNames 表名列表
+     * @param dataSourceName 数据源名称（可选），为空时使用默认数据源
+     * @return {"datasource": 名称, "tables": {表名: 结构或 {"error": ...}}}
+     */
+    @Tool(description = "Describes many tables in one call: columns with types, nullability, defaults and comments, primary key, indexes and foreign keys. Use this instead of running DESCRIBE/SHOW CREATE TABLE once per table. The same information for a single table is available as the resource mcp://database/{datasource}/tables/{table}. Table names are matched ignoring case; unknown tables come back with an 'error' entry.")
+    public Map<String, Object> describeTables(@ToolParam(description = "Names of the tables to describe") List<String> tableNames,
+                                              @ToolParam(required = false, description = "Name of the datasource (from listDataSources). Defaults to the default datasource") String dataSourceName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (CollectionUtils.isEmpty(tableNames)) {
+            result.put("error", "tableNames must not be empty");
+            return result;
+        }
+        try {
+            Map<String, Object> tables = schemaMetadataService.describeTables(dataSourceName, tableNames);
+            result.put("datasource", schemaMetadataService.getSnapshot(dataSourceName).dataSourceName());
+            result.put("tables", tables);
+        } catch (Exception e) {
+            log.error("Failed to describe tables {} on datasource [{}]: {}", tableNames, dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 按名称和注释模糊搜索表和列，结果来自内存中的索引
+     *
+     * @param query 查询文本
+     * @param dataSourceName 数据源名称（可选），为空时搜索所有数据源
+     * @param limit 最多返回的条数（可选），默认20，最大200
+     * @return {"hits": [{datasource, table, column, type, comment, score}]}
+     */
+    @Tool(description = "Fuzzy-searches table names, column names and their comments from an in-memory index, tolerant of typos, word order and naming style (e.g. 'order item' finds order_items). Use this instead of guessing names with SHOW TABLES LIKE or information_schema queries. Each hit has datasource, table, column (null when the table itself matched), type, comment and a 0-1 score. Then use describeTables for full details of the tables you need.")
+    public Map<String, Object> searchSchema(@ToolParam(description = "Search text: words from table or column names, or from their comments") String query,
+                                            @ToolParam(required = false, description = "Name of the datasource to search (from listDataSources). Searches all datasources when omitted") String dataSourceName,
+                                            @ToolParam(required = false, description = "Maximum number of hits, default 20, at most 200") Integer limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (StringUtils.isBlank(query)) {
+            result.put("error", "query must not be empty");
+            return result;
+        }
+        int maxHits = limit == null || limit <= 0 ? 20 : Math.min(limit, 200);
+        try {
+            result.put("hits", schemaMetadataService.searchSchema(dataSourceName, query, maxHits));
+        } catch (Exception e) {
+            log.error("Failed to search schema for [{}] on datasource [{}]: {}", query, dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 从表中抽取有代表性的行，代价有上限
+     *
+     * @param tableName 表名
+     * @param dataSourceName 数据源名称（可选），为空时使用默认数据源
+     * @param rows 抽样行数（可选），默认20
+     * @param method 抽样方式（可选）：auto、system、bernoulli、pk、reservoir，默认auto
+     * @return {"datasource", "table", "method", "estimated_rows", "scanned", "scan_capped", "rows"}
+     */
+    @Tool(description = "Returns a random sample of rows from a table at bounded cost, to see what the data looks like. Prefer this over 'SELECT * FROM t LIMIT n', which only shows the first pages and is heavily biased, and over unbounded scans of large tables. Methods: 'system' and 'bernoulli' use PostgreSQL TABLESAMPLE, 'pk' probes random primary key values through the index (single integer primary key), 'reservoir' streams the table and samples uniformly but stops after a server-side scan cap. 'auto' (default) picks the cheapest representative method; unsupported methods fall back to 'reservoir' and the result's 'method' shows what was used. When 'scan_capped' is true the sample only covers the first rows scanned.")
+    public Map<String, Object> sampleTable(@ToolParam(description = "Name of the table to sample") String tableName,
+                                           @ToolParam(required = false, description = "Name of the datasource (from listDataSources). Defaults to the default datasource") String dataSourceName,
+                                           @ToolParam(required = false, description = "Number of rows to return, default 20") Integer rows,
+                                           @ToolParam(required = false, description = "Sampling method: auto, system, bernoulli, pk or reservoir. Defaults to auto") String method) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (StringUtils.isBlank(tableName)) {
+            result.put("error", "tableName must not be empty");
+            return result;
+        }
+        try {
+            TableSampler.Sample sample = tableSampler.sample(dataSourceName, tableName, rows, TableSampler.Method.parse(method));
+            result.put("datasource", sample.dataSourceName());
+            result.put("table", sample.table());
+            result.put("method", sample.method().name().toLowerCase(Locale.ROOT));
+            result.put("estimated_rows", sample.estimatedRows());
+            result.put("scanned", sample.scanned());
+            result.put("scan_capped", sample.scanCapped());
+            result.put("rows", sample.rows());
+        } catch (Exception e) {
+            log.error("Failed to sample table [{}] on datasource [{}]: {}", tableName, dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 分页列出数据源中的库或模式
+     *
+     * @param dataSourceName 数据源名称（可选），为空时使用默认数据源
+     * @param filter 名称过滤（可选），包含 % 时作为 LIKE 模式，否则按包含匹配
+     * @param cursor 上一页返回的 next_cursor（可选）
+     * @param pageSize 每页条数（可选），默认100
+     * @return {"datasource": 名称, "schemas": [...], "next_cursor": 游标}
+     */
+    @Tool(description = "Lists databases (MySQL) or schemas (PostgreSQL and others) of a datasource one page at a time, sorted by name. Use this on servers with many databases instead of SHOW DATABASES or information_schema queries, then call listTables for the tables of the schema you need. Pass 'filter' to narrow by name (substring match, or a SQL LIKE pattern when it contains %). When 'next_cursor' is present, pass it as 'cursor' to get the next page; it is absent on the last page.")
+    public Map<String, Object> listSchemas(@ToolParam(required = false, description = "Name of the datasource (from listDataSources). Defaults to the default datasource") String dataSourceName,
+                                           @ToolParam(required = false, description = "Name filter: substring, or a SQL LIKE pattern when it contains %") String filter,
+                                           @ToolParam(required = false, description = "next_cursor from the previous page; omit for the first page") String cursor,
+                                           @ToolParam(required = false, description = "Items per page, default 100") Integer pageSize) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            putCatalogPage(result, "schemas", catalogService.listSchemas(dataSourceName, filter, cursor, pageSize));
+        } catch (Exception e) {
+            log.error("Failed to list schemas on datasource [{}]: {}", dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 分页列出库或模式中的表和视图
+     *
+     * @param schema 库或模式名称（可选），为空时为连接当前所在的库或模式
+     * @param dataSourceName 数据源名称（可选），为空时使用默认数据源
+     * @param filter 表名过滤（可选），包含 % 时作为 LIKE 模式，否则按包含匹配
+     * @param cursor 上一页返回的 next_cursor（可选）
+     * @param pageSize 每页条数（可选），默认100
+     * @return {"datasource": 名称, "schema": 库或模式, "tables": [...], "next_cursor": 游标}
+     */
+    @Tool(description = "Lists tables and views of one database/schema one page at a time, sorted by name, with type, estimated row count and comment. Works for any schema on the server, not only the connection's current one (use listSchemas to find schema names). Pass 'filter' to narrow by table name (substring match, or a SQL LIKE pattern when it contains %). When 'next_cursor' is present, pass it as 'cursor' to get the next page; it is absent on the last page.")
+    public Map<String, Object> listTables(@ToolParam(required = false, description = "Database/schema name (from listSchemas). Defaults to the connection's current database/schema") String schema,
+                                          @ToolParam(required = false, description = "Name of the datasource (from listDataSources). Defaults to the default datasource") String dataSourceName,
+                                          @ToolParam(required = false, description = "Table name filter: substring, or a SQL LIKE pattern when it contains %") String filter,
+                                          @ToolParam(required = false, description = "next_cursor from the previous page; omit for the first page") String cursor,
+                                          @ToolParam(required = false, description = "Items per page, default 100") Integer pageSize) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            putCatalogPage(result, "tables", catalogService.listTables(dataSourceName, schema, filter, cursor, pageSize));
+        } catch (Exception e) {
+            log.error("Failed to list tables of schema [{}] on datasource [{}]: {}", schema, dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    private static void putCatalogPage(Map<String, Object> result, String itemsKey, CatalogPage page) {
+        result.put("datasource", page.dataSourceName());
+        if (page.schema() != null) {
+            result.put("schema", page.schema());
+        }
+        result.put(itemsKey, page.items());
+        if (page.nextCursor() != null) {
+            result.put("next_cursor", page.nextCursor());
+        }
+    }
+
     /**
      * 在默认数据源上执行SQL语句，适用于用户未明确指定数据源的情况
      * 该工具是executeSql和executeSqlWithDataSource的轻量级替代方案，仅查询标记为default的数据源
@@ -171,16 +399,18 @@ public class MysqlOptionService {
      * 常见需要处理的数据类型包括：加密字段、Base64编码、URL编码、JSON字符串、时间戳转换等。
      *
      * @param sql 要执行的SQL语句
-     * @return 默认数据源的查询结果，格式为 {"defaultDataSourceName": result}
+     * @param columnExtensions 列名到扩展名称的映射（可选），这些列的值在读取结果集时直接交给扩展处理
+     * @return 默认数据源的查询结果；查询成本超过阈值但仍执行或追加了行数限制时返回 {"data": result, "warnings": [...], "row_limit_applied": limit}
      */
-    @Tool(description = "Executes a SQL query on the default datasource only. Priority: highest when the user hasn't specified an environment or datasource. The model should call this tool first; if it returns no data (empty result), then fall back to executeSql. This tool does not require calling listDataSources. More efficient than executeSql for single default datasource operations. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. TIP: If you need to know the database type for optimal SQL syntax, call listDataSources() first to get database type information.")
-    public JsonNode executeSqlOnDefault(@ToolParam(description = "Valid  SQL statement to execute on default datasource (e.g., 'SELECT * FROM users LIMIT 10')") String sql) {
+    @Tool(description = "Executes a SQL query on the default datasource only. Priority: highest when the user hasn't specified an environment or datasource. The model should call this tool first; if it returns no data (empty result), then fall back to executeSql. This tool does not require calling listDataSources. More efficient than executeSql for single default datasource operations. Unbounded SELECTs may be capped by a server-side row limit; when 'row_limit_applied' is present in the result, add an explicit LIMIT (or the dialect's equivalent) to control the number of rows. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. Once you know which extension decodes which column, pass 'columnExtensions' (column name to extension name, e.g. {\"phone\":\"SM4Decrypt\"}) to get decoded values in the same call. TIP: If you need to know the database type for optimal SQL syntax, call listDataSources() first to get database type information.")
+    public JsonNode executeSqlOnDefault(@ToolParam(description = "Valid  SQL statement to execute on default datasource (e.g., 'SELECT * FROM users LIMIT 10')") String sql,
+                                        @ToolParam(required = false, description = "Optional map of result column name to extension name (from getAllExtensions); values of those columns are processed by the extension before being returned") Map<String, String> columnExtensions) {
         log.info("Executing SQL on default datasource: {}", sql);
 
         // SQL安全验证
-        Object errorResult1 = validateSqlAndGetErrorResult(sql);
-        if (errorResult1 != null) {
-            return objectMapper.valueToTree(errorResult1);
+        SqlSecurityValidator.SqlValidationResult validationResult = sqlSecurityValidator.validateSql(sql, dataSourceService.getDatabaseType(null));
+        if (!validationResult.valid()) {
+            return objectMapper.valueToTree(toErrorResult(validationResult));
         }
 
         // 获取默认数据源名称
@@ -193,7 +423,7 @@ public class MysqlOptionService {
             return objectMapper.valueToTree(errorResult);
         }
 
-        Map<String, Object> stringObjectMap = executeSqlWithDataSource(defaultDataSourceName, sql);
+        Map<String, Object> stringObjectMap = executeSqlWithDataSource(defaultDataSourceName, sql, null, columnExtensions);
         if (CollectionUtils.isEmpty(stringObjectMap)) {
             log.warn("No results returned from SQL execution on default datasource [{}]", defaultDataSourceName);
             Map<String, Object> emptyResult = new HashMap<>();
@@ -201,10 +431,25 @@ public class MysqlOptionService {
             return objectMapper.valueToTree(emptyResult);
         }
 
-        // to JsonNode
+        // 没有该数据源的结果时是错误信息（如查询成本超过阈值被拒绝），原样返回
+        if (!stringObjectMap.containsKey(defaultDataSourceName)) {
+            return objectMapper.valueToTree(stringObjectMap);
+        }
+        Object data = stringObjectMap.get(defaultDataSourceName);
+        if (stringObjectMap.size() > 1) {
+            Map<String, Object> wrapped = new LinkedHashMap<>();
+            wrapped.put("data", data);
+            stringObjectMap.forEach((key, value) -> {
+                if (!key.equals(defaultDataSourceName)) {
+                    wrapped.put(key, value);
+                }
+            });
+            data = wrapped;
+        }
+
+        // 直接转换为 JsonNode，不经过字符串序列化再解析
         try {
-            String o = objectMapper.writeValueAsString(stringObjectMap.get(defaultDataSourceName));
-            return objectMapper.readTree(o);
+            return objectMapper.valueToTree(data);
         } catch (Exception e) {
             log.error("Failed to parse SQL result as JSON: {}", e.getMessage(), e);
             Map<String, Object> errorResult = new HashMap<>();
@@ -213,12 +458,17 @@ public class MysqlOptionService {
         }
     }
 
-    private Map<String, Object> validateSqlAndGetErrorResult(String sql) {
-        SqlSecurityValidator.SqlValidationResult validationResult = sqlSecurityValidator.validateSql(sql);
-        if (validationResult.valid()) {
-            return null;
-        }
+    /**
+     * 在默认数据源上执行SQL语句，不处理列值
+     *
+     * @param sql 要执行的SQL语句
+     * @return 默认数据源的查询结果
+     */
+    public JsonNode executeSqlOnDefault(String sql) {
+        return executeSqlOnDefault(sql, null);
+    }
 
+    private Map<String, Object> toErrorResult(SqlSecurityValidator.SqlValidationResult validationResult) {
         log.warn("SQL validation failed: {}", validationResult.errorMessage());
         Map<String, Object> errorResult = new HashMap<>();
         errorResult.put("error", validationResult.errorMessage());
@@ -239,36 +489,99 @@ public class MysqlOptionService {
      *
      * @param dataSourceName 数据源名称，来自listDataSources的返回值
      * @param sql 要执行的SQL语句
-     * @return 查询结果，格式为 {"datasourceName": result}
+     * @param sessionId 会话ID（可选），来自beginSession的返回值。指定后在会话固定的连接上执行
+     * @param columnExtensions 列名到扩展名称的映射（可选），这些列的值在读取结果集时直接交给扩展处理
+     * @return 查询结果，格式为 {"datasourceName": result}，查询成本超过阈值但仍执行时附带 "warnings"，追加了行数限制时附带 "row_limit_applied"
      */
-    @Tool(description = "Executes a SQL query on a single specific datasource. Returns JSON result for just that datasource. More efficient than executeSql for single-datasource operations. Note: This tool is lower priority than executeSql, unless user explicitly requests a single-datasource operation. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. TIP: Call listDataSources() first to get database type information for the target datasource, then use appropriate SQL syntax (MySQL, PostgreSQL, Oracle, SQL Server, H2, or IoTDB).")
+    @Tool(description = "Executes a SQL query on a single specific datasource. Returns JSON result for just that datasource. More efficient than executeSql for single-datasource operations. Note: This tool is lower priority than executeSql, unless user explicitly requests a single-datasource operation. Pass the optional sessionId from beginSession to run on that session's pinned connection, so temp tables, SET variables, USE and open transactions from earlier calls are still visible. Unbounded SELECTs may be capped by a server-side row limit; when 'row_limit_applied' is present in the result, add an explicit LIMIT (or the dialect's equivalent) to control the number of rows. IMPORTANT: Query results may contain encrypted, encoded, or other data that requires processing. If you notice data that appears to be encrypted, encoded (Base64, hex strings, etc.), or needs special handling, proactively call getAllExtensions() to discover available data processing extensions, then use executeGroovyScript() to decrypt, decode, or transform the data as needed. Once you know which extension decodes which column, pass 'columnExtensions' (column name to extension name, e.g. {\"phone\":\"SM4Decrypt\"}) to get decoded values in the same call. TIP: Call listDataSources() first to get database type information for the target datasource, then use appropriate SQL syntax (MySQL, PostgreSQL, Oracle, SQL Server, H2, or IoTDB).")
     public Map<String, Object> executeSqlWithDataSource(@ToolParam(description = "Name of the target datasource (obtain from listDataSources and must match a datasource name from listDataSources)") String dataSourceName,
-                                                        @ToolParam(description = "Valid SQL statement to execute (e.g., 'SELECT * FROM users LIMIT 10')") String sql) {
-        log.info("Executing SQL on datasource [{}]: {}", dataSourceName, sql);
-
-        // SQL安全验证
-        Map<String, Object> errorResult = validateSqlAndGetErrorResult(sql);
-        if (errorResult != null) {
-            return errorResult;
-        }
+                                                        @ToolParam(description = "Valid SQL statement to execute (e.g., 'SELECT * FROM users LIMIT 10')") String sql,
+                                                        @ToolParam(required = false, description = "Optional session id returned by beginSession. When set, the SQL runs on the session's pinned connection") String sessionId,
+                                                        @ToolParam(required = false, description = "Optional map of result column name to extension name (from getAllExtensions); values of those columns are processed by the extension before being returned") Map<String, String> columnExtensions) {
+        log.info("Executing SQL on datasource [{}] (session: {}): {}", dataSourceName, sessionId, sql);
 
         // 存储查询结果
         Map<String, Object> result = new HashMap<>();
 
-        // 获取指定的数据源
-        DataSource targetDataSource = dataSourceService.getDataSource(dataSourceName);
-        if (targetDataSource == null) {
-            String errorMsg = "Datasource [" + dataSourceName + "] not found";
-            log.error(errorMsg);
-            result.put(dataSourceName, errorMsg);
+        // 会话模式下先确定会话所属的数据源
+        if (StringUtils.isNotBlank(sessionId)) {
+            try {
+                String sessionDataSourceName = sqlSessionService.getSessionDataSourceName(sessionId);
+                if (StringUtils.isBlank(dataSourceName)) {
+                    dataSourceName = sessionDataSourceName;
+                } else if (!isSameDataSource(dataSourceName, sessionDataSourceName)) {
+                    result.put("error", "Session [" + sessionId + "] belongs to datasource [" + sessionDataSourceName + "], not [" + dataSourceName + "]");
+                    return result;
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("executeSqlWithDataSource session error: {}", e.getMessage());
+                result.put("error", e.getMessage());
+                return result;
+            }
+        }
+
+        // SQL安全验证
+        SqlSecurityValidator.SqlValidationResult validationResult = sqlSecurityValidator.validateSql(sql, dataSourceService.getDatabaseType(dataSourceName));
+        if (!validationResult.valid()) {
+            return toErrorResult(validationResult);
+        }
+
+        // 解析列处理扩展，扩展不存在时不执行SQL
+        Map<String, Function<Object, Object>> columnTransforms;
+        try {
+            columnTransforms = resolveColumnTransforms(columnExtensions);
+        } catch (IllegalArgumentException e) {
+            log.warn("executeSqlWithDataSource column extension error: {}", e.getMessage());
+            result.put("error", e.getMessage());
             return result;
         }
 
-        // 使用JdbcExecutor执行SQL
-        JdbcExecutor.SqlResult sqlResult = jdbcExecutor.executeSql(targetDataSource, sql);
+        // 没有行数限制的查询追加方言对应的限制子句
+        String limitedSql = applyRowLimit(dataSourceName, sql, validationResult);
+        String executedSql = limitedSql != null ? limitedSql : sql;
+
+        String targetDataSourceName = dataSourceName;
+        JdbcExecutor.SqlResult sqlResult;
+        QueryCostGuard.CostVerdict costVerdict;
+        if (StringUtils.isNotBlank(sessionId)) {
+            // 在会话固定的连接上执行
+            try {
+                costVerdict = sqlSessionService.withSession(sessionId, conn -> queryCostGuard.check(targetDataSourceName, conn, executedSql, validationResult));
+                if (costVerdict.blocked()) {
+                    return costVerdict.toErrorResult();
+                }
+                sqlResult = sqlSessionService.withSession(sessionId, conn -> jdbcExecutor.executeSql(conn, executedSql, columnTransforms));
+            } catch (IllegalArgumentException e) {
+                log.warn("executeSqlWithDataSource session error: {}", e.getMessage());
+                result.put("error", e.getMessage());
+                return result;
+            }
+        } else {
+            // 获取指定的数据源，只读查询使用只读连接池
+            DataSource targetDataSource = dataSourceService.getDataSource(dataSourceName, validationResult.classification().readOnly());
+            if (targetDataSource == null) {
+                String errorMsg = "Datasource [" + dataSourceName + "] not found";
+                log.error(errorMsg);
+                result.put(dataSourceName, errorMsg);
+                return result;
+            }
+
+            // 查询成本检查通过后使用JdbcExecutor执行SQL
+            costVerdict = queryCostGuard.check(dataSourceName, targetDataSource, executedSql, validationResult);
+            if (costVerdict.blocked()) {
+                return costVerdict.toErrorResult();
+            }
+            sqlResult = jdbcExecutor.executeSql(targetDataSource, executedSql, columnTransforms);
+        }
 
         if (sqlResult.success()) {
             result.put(dataSourceName, sqlResult.data());
+            if (!costVerdict.warnings().isEmpty()) {
+                result.put("warnings", costVerdict.warnings());
+            }
+            if (limitedSql != null) {
+                result.put("row_limit_applied", sqlRowLimitConfig.getLimit(dataSourceName));
+            }
             log.info("executeSqlWithDataSource Query executed successfully on datasource [{}]", dataSourceName);
             return result;
         }
@@ -278,6 +591,108 @@ public class MysqlOptionService {
         return result;
     }
 
+    /**
+     * 在指定数据源上执行SQL语句，不使用会话
+     *
+     * @param dataSourceName 数据源名称
+     * @param sql 要执行的SQL语句
+     * @return 查询结果，格式为 {"datasourceName": result}
+     */
+    public Map<String, Object> executeSqlWithDataSource(String dataSourceName, String sql) {
+        return executeSqlWithDataSource(dataSourceName, sql, null, null);
+    }
+
+    /**
+     * 在指定数据源上执行SQL语句，不处理列值
+     *
+     * @param dataSourceName 数据源名称
+     * @param sql 要执行的SQL语句
+     * @param sessionId 会话ID（可选）
+     * @return 查询结果，格式为 {"datasourceName": result}
+     */
+    public Map<String, Object> executeSqlWithDataSource(String dataSourceName, String sql, String sessionId) {
+        return executeSqlWithDataSource(dataSourceName, sql, sessionId, null);
+    }
+
+    /**
+     * 开启SQL会话，为后续的executeSqlWithDataSource调用固定同一个数据库连接
+     *
+     * @param dataSourceName 数据源名称（可选），为空时使用默认数据源
+     * @return 会话信息，包含sessionId
+     */
+    @Tool(description = "Starts a SQL session that pins one database connection of a datasource for multi-step work. Returns a sessionId to pass to executeSqlWithDataSource; temp tables, SET variables, USE database and open transactions persist across those calls. Sessions are closed after an idle timeout and the number of sessions per datasource is capped, so always call endSession when done. Use this for multi-step analyses that stage intermediate results in temporary tables.")
+    public Map<String, Object> beginSession(@ToolParam(required = false, description = "Name of the datasource to pin (from listDataSources). Defaults to the default datasource") String dataSourceName) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            SqlSessionService.SessionInfo session = sqlSessionService.beginSession(dataSourceName);
+            result.put("sessionId", session.sessionId());
+            result.put("datasource", session.dataSourceName());
+            result.put("idleTimeoutSeconds", session.idleTimeoutSeconds());
+        } catch (Exception e) {
+            log.error("Failed to begin session on datasource [{}]: {}", dataSourceName, e.getMessage(), e);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 结束SQL会话，回滚未提交的事务并释放固定的连接
+     *
+     * @param sessionId 会话ID
+     * @return 是否成功结束
+     */
+    @Tool(description = "Ends a SQL session started by beginSession. Uncommitted work is rolled back and the pinned connection is discarded together with its temp tables and session variables.")
+    public Map<String, Object> endSession(@ToolParam(description = "Session id returned by beginSession") String sessionId) {
+        Map<String, Object> result = new HashMap<>();
+        boolean ended = sqlSessionService.endSession(sessionId);
+        result.put("sessionId", sessionId);
+        result.put("ended", ended);
+        if (!ended) {
+            result.put("message", "Session not found or already expired");
+        }
+        return result;
+    }
+
+    /**
+     * 按数据源配置为没有行数限制的单条只读查询追加方言对应的限制子句，由数据库只返回前 N 行
+     * @return 改写后的SQL，不需要改写时返回 null
+     */
+    private String applyRowLimit(String dataSourceName, String sql, SqlSecurityValidator.SqlValidationResult validationResult) {
+        int limit = sqlRowLimitConfig.getLimit(dataSourceName);
+        SqlClassification classification = validationResult.classification();
+        if (limit <= 0 || classification.multiStatement() || classification.type() != SqlStatementType.QUERY || !classification.readOnly()) {
+            return null;
+        }
+        String limitedSql = SqlLimitRewriter.rewrite(SqlLexer.tokenize(sql, dataSourceService.getDatabaseType(dataSourceName)), limit);
+        if (limitedSql != null) {
+            log.info("Applied row limit {} on datasource [{}]: {}", limit, dataSourceName, limitedSql);
+        }
+        return limitedSql;
+    }
+
+    /**
+     * 把列名到扩展名称的映射解析为列值转换函数，同一扩展只解析一次
+     * @throws IllegalArgumentException 扩展不存在时
+     */
+    private Map<String, Function<Object, Object>> resolveColumnTransforms(Map<String, String> columnExtensions) {
+        if (CollectionUtils.isEmpty(columnExtensions)) {
+            return Map.of();
+        }
+        Map<String, Function<Object, Object>> transformers = new HashMap<>();
+        Map<String, Function<Object, Object>> columnTransforms = new HashMap<>();
+        columnExtensions.forEach((column, extensionName) ->
+                columnTransforms.put(column, transformers.computeIfAbsent(extensionName, groovyService::columnTransformer)));
+        return columnTransforms;
+    }
+
+    private boolean isSameDataSource(String dataSourceName, String sessionDataSourceName) {
+        if (dataSourceName.equals(sessionDataSourceName)) {
+            return true;
+        }
+        // "primary" 是默认数据源的兼容别名
+        return "primary".equals(dataSourceName) && sessionDataSourceName.equals(dataSourceService.getDefaultDataSourceName());
+    }
+
     /**
      * 通过扩展名称，执行groovy脚本，处理传入的任意字符串
      *
@@ -304,10 +719,70 @@ public class MysqlOptionService {
         }
     }
 
+    /**
+     * 批量执行groovy脚本：对一组输入，或对查询结果中指定列的所有值执行同一个扩展，一次调用完成
+     *
+     * @param extensionName 扩展名称
+     * @param inputs 输入字符串列表（可选），结果按输入顺序返回
+     * @param queryResult SQL执行工具返回的查询结果JSON（可选），与columns一起使用
+     * @param columns 需要处理的列名（可选），这些列的值会被替换为扩展的处理结果
+     * @return inputs模式下为结果数组，queryResult模式下为处理后的查询结果
+     */
+    @Tool(description = "Applies a Groovy script extension to many values in one call instead of calling executeGroovyScript once per value. Either pass 'inputs' (an array of strings; results come back as an array in the same order), or pass 'queryResult' (the JSON returned by a SQL execution tool) together with 'columns' to replace those columns in every row with the processed values. Values are processed in parallel. First use getAllExtensions to identify available extensions.")
+    public JsonNode executeGroovyScriptBatch(@ToolParam(description = "Extension name (must match an extension from getAllExtensions)") String extensionName,
+                                             @ToolParam(required = false, description = "Input strings to process; results are returned in the same order") List<String> inputs,
+                                             @ToolParam(required = false, description = "JSON query result returned by a SQL execution tool; use together with columns") String queryResult,
+                                             @ToolParam(required = false, description = "Column names in queryResult whose values should be processed by the extension") List<String> columns) {
+        try {
+            if (!CollectionUtils.isEmpty(inputs)) {
+                return objectMapper.valueToTree(groovyService.executeGroovyScriptBatch(extensionName, inputs));
+            }
+            if (StringUtils.isBlank(queryResult) || CollectionUtils.isEmpty(columns)) {
+                return objectMapper.createObjectNode().put("error", "Provide either 'inputs', or 'queryResult' together with 'columns'");
+            }
+
+            JsonNode root = objectMapper.readTree(queryResult);
+            List<ObjectNode> rows = new ArrayList<>();
+            collectRows(root, rows);
+            for (String column : columns) {
+                List<ObjectNode> targetRows = rows.stream().filter(row -> row.hasNonNull(column)).toList();
+                List<String> values = targetRows.stream()
+                        .map(row -> row.get(column).isTextual() ? row.get(column).asText() : row.get(column).toString())
+                        .toList();
+                List<Object> processed = groovyService.executeGroovyScriptBatch(extensionName, values);
+                for (int i = 0; i < targetRows.size(); i++) {
+                    targetRows.get(i).set(column, objectMapper.valueToTree(processed.get(i)));
+                }
+                log.info("Processed {} values of column [{}] with extension: {}", values.size(), column, extensionName);
+            }
+            return root;
+        } catch (Exception e) {
+            log.error("Failed to execute Groovy script batch for extension {}: {}", extensionName, e.getMessage(), e);
+            return objectMapper.createObjectNode().put("error", e.getMessage());
+        }
+    }
+
+    /**
+     * 收集查询结果中的所有行：数组中的对象视为一行，其他对象（如 {"datasourceName": rows}）继续向下查找
+     */
+    private void collectRows(JsonNode node, List<ObjectNode> rows) {
+        if (node.isArray()) {
+            node.forEach(element -> {
+                if (element instanceof ObjectNode row) {
+                    rows.add(row);
+                } else {
+                    collectRows(element, rows);
+                }
+            });
+        } else if (node.isObject()) {
+            node.forEach(child -> collectRows(child, rows));
+        }
+    }
+
     /**
      * 获取所有扩展的信息
      */
-    @Tool(description = "Returns information about all available Groovy script extensions including their names, descriptions, and parameters. Use before calling executeGroovyScript. IMPORTANT: Call this tool when you encounter data from SQL queries that appears to be encrypted, encoded, or requires special processing (such as Base64 strings, hex values, encrypted fields, JSON strings, timestamps, etc.) to discover available data processing extensions.")
+    @Tool(description = "Returns information about all available Groovy script extensions including their names, descriptions, and parameters. Use before calling executeGroovyScript. Each extension carries 'readiness': READY extensions are loaded and respond without start-up delay, COLD ones load on first call, FAILED ones cannot be used (see the message, e.g. a missing dependency). IMPORTANT: Call this tool when you encounter data from SQL queries that appears to be encrypted, encoded, or requires special processing (such as Base64 strings, hex values, encrypted fields, JSON strings, timestamps, etc.) to discover available data processing extensions.")
     public List<Extension> getAllExtensions() {
         // 获取所有扩展的信息
         return groovyService.getAllExtensions();
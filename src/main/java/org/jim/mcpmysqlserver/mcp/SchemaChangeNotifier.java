@@ -0,0 +1,48 @@
+package org.jim.mcpmysqlserver.mcp;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.SchemaCacheConfig;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 表结构变化通知：收到 {@link SchemaChangedEvent} 后向所有已连接的客户端发送 notifications/resources/list_changed，
+ * 客户端据此重新列出并读取表结构Resource（表列表、单表结构、库或模式的表列表）。
+ * <p>
+ * 当前 MCP SDK 没有 resources/subscribe 的处理，Spring AI 声明的能力中 subscribe 为 false，
+ * 因此不发送按 URI 的 notifications/resources/updated；只在声明了 listChanged 能力
+ * （spring.ai.mcp.server.resource-change-notification，默认 true）时发送
+ * @author yangxin
+ */
+@Component
+@Slf4j
+public class SchemaChangeNotifier {
+
+    @Resource
+    private SchemaCacheConfig schemaCacheConfig;
+
+    @Resource
+    private ObjectProvider<McpServerTransportProvider> transportProvider;
+
+    @Value("${spring.ai.mcp.server.resource-change-notification:true}")
+    private boolean resourceChangeNotification;
+
+    @EventListener
+    public void onSchemaChanged(SchemaChangedEvent event) {
+        McpServerTransportProvider provider = transportProvider.getIfAvailable();
+        if (!schemaCacheConfig.isNotifyChanges() || !resourceChangeNotification || provider == null) {
+            return;
+        }
+        provider.notifyClients(McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED, null)
+                .subscribe(null, e -> log.warn("Failed to notify clients of schema change on datasource [{}]: {}",
+                        event.dataSourceName(), e.getMessage()));
+        log.info("Notified clients of schema change on datasource [{}], version {}: {} tables changed, {} tables dropped",
+                event.dataSourceName(), event.version(), event.changedTables().size(), event.droppedTables().size());
+    }
+}
@@ -0,0 +1,94 @@
+package org.jim.mcpmysqlserver.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.service.StatementCanceller;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在虚拟线程中执行阻塞调用并包装为 Mono
+ * <p>
+ * 每次调用使用一个新的虚拟线程，不占用传输层线程，同一会话的多个请求可以同时执行。订阅被取消（超时或客户端取消）时，
+ * 先取消该线程正在执行的 JDBC 语句，没有正在执行的语句时再中断线程（例如仍在等待连接或并发许可）
+ * @author yangxin
+ */
+@Slf4j
+public class VirtualThreadCallRunner {
+
+    private final StatementCanceller statementCanceller;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("Mcp-Call-", 1).factory();
+
+    /**
+     * 并发许可，不限制时为 null
+     */
+    private final Semaphore permits;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter cancelled;
+
+    /**
+     * @param statementCanceller 正在执行的语句登记表
+     * @param maxConcurrentCalls 同时执行的最大调用数，<= 0 表示不限制
+     * @param meterRegistry 指标注册表
+     */
+    public VirtualThreadCallRunner(StatementCanceller statementCanceller, int maxConcurrentCalls, MeterRegistry meterRegistry) {
+        this.statementCanceller = statementCanceller;
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        Gauge.builder("mcp.async.calls.active", active, AtomicInteger::get).register(meterRegistry);
+        this.cancelled = Counter.builder("mcp.async.calls.cancelled").register(meterRegistry);
+    }
+
+    /**
+     * 在新的虚拟线程中执行调用
+     * @param name 调用名称，用于日志
+     * @param callable 阻塞调用
+     * @return 订阅时开始执行的 Mono，调用返回 null 时为空
+     */
+    public <T> Mono<T> call(String name, Callable<T> callable) {
+        return Mono.create(sink -> {
+            Thread worker = threadFactory.newThread(() -> run(callable, sink));
+            sink.onCancel(() -> cancel(name, worker));
+            worker.start();
+        });
+    }
+
+    private <T> void run(Callable<T> callable, MonoSink<T> sink) {
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.error(e);
+                return;
+            }
+        }
+        active.incrementAndGet();
+        try {
+            sink.success(callable.call());
+        } catch (Throwable e) {
+            sink.error(e);
+        } finally {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private void cancel(String name, Thread worker) {
+        cancelled.increment();
+        int statements = statementCanceller.cancel(worker);
+        if (statements == 0) {
+            worker.interrupt();
+        }
+        log.info("Call {} cancelled, {} running statement(s) cancelled", name, statements);
+    }
+}
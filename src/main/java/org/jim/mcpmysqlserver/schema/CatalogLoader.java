@@ -0,0 +1,187 @@
+package org.jim.mcpmysqlserver.schema;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库和模式目录加载器，按名称分页读取
+ * <p>
+ * 使用键集分页：每页按名称排序，只返回名称大于上一页最后一个名称的项，过滤条件和分页条件都下推到元数据查询中。
+ * MySQL 查询 information_schema（库即模式），PostgreSQL 查询 pg_namespace 和 pg_class，名称按 "C" 排序规则比较；
+ * 其他数据库通过 JDBC DatabaseMetaData 读取，名称过滤由驱动执行，排序和分页在内存中进行
+ * @author yangxin
+ */
+public final class CatalogLoader {
+
+    private static final String MYSQL_SCHEMAS_SQL = "SELECT SCHEMA_NAME, DEFAULT_CHARACTER_SET_NAME, DEFAULT_COLLATION_NAME "
+            + "FROM information_schema.SCHEMATA WHERE 1 = 1";
+
+    private static final String MYSQL_TABLES_SQL = "SELECT TABLE_NAME, TABLE_TYPE, TABLE_ROWS, TABLE_COMMENT "
+            + "FROM information_schema.TABLES WHERE TABLE_SCHEMA = ?";
+
+    private static final String PG_SCHEMAS_SQL = "SELECT nspname, pg_get_userbyid(nspowner) FROM pg_namespace "
+            + "WHERE nspname NOT LIKE 'pg\\_%' AND nspname <> 'information_schema'";
+
+    private static final String PG_TABLES_SQL = "SELECT c.relname, CASE c.relkind WHEN 'v' THEN 'VIEW' WHEN 'm' THEN 'MATERIALIZED VIEW' "
+            + "ELSE 'TABLE' END, c.reltuples::bigint, obj_description(c.oid, 'pg_class') "
+            + "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE n.nspname = ? AND c.relkind IN ('r', 'v', 'm', 'p', 'f')";
+
+    private CatalogLoader() {
+    }
+
+    /**
+     * 当前连接所在的库或模式，MySQL 为当前库，其他数据库为当前模式
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @return 库或模式名称，驱动不支持时返回 null
+     */
+    public static String currentSchema(Connection conn, DatabaseType databaseType) throws SQLException {
+        return databaseType == DatabaseType.MYSQL ? conn.getCatalog() : SchemaMetadataLoader.currentSchema(conn);
+    }
+
+    /**
+     * 读取一页库或模式
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @param pattern 名称的 LIKE 模式，为 null 时不过滤
+     * @param after 上一页最后一个名称，为 null 时从头读取
+     * @param limit 最多返回的项数
+     * @return 按名称排序的项，每项包含 SCHEMA_NAME，MySQL 还包含默认字符集和排序规则，PostgreSQL 还包含所有者
+     */
+    public static List<Map<String, Object>> schemas(Connection conn, DatabaseType databaseType, String pattern, String after,
+                                                    int limit) throws SQLException {
+        return switch (databaseType) {
+            case MYSQL -> page(conn, MYSQL_SCHEMAS_SQL, List.of(), "SCHEMA_NAME LIKE ?", "SCHEMA_NAME", pattern, after, limit, rs -> {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("SCHEMA_NAME", rs.getString(1));
+                item.put("DEFAULT_CHARACTER_SET_NAME", rs.getString(2));
+                item.put("DEFAULT_COLLATION_NAME", rs.getString(3));
+                return item;
+            });
+            case POSTGRESQL -> page(conn, PG_SCHEMAS_SQL, List.of(), "nspname ILIKE ?", "nspname::text COLLATE \"C\"", pattern, after, limit, rs -> {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("SCHEMA_NAME", rs.getString(1));
+                item.put("SCHEMA_OWNER", rs.getString(2));
+                return item;
+            });
+            case IOTDB -> throw new SQLFeatureNotSupportedException("Catalog browsing is not supported for IoTDB");
+            default -> {
+                List<Map<String, Object>> items = new ArrayList<>();
+                try (ResultSet rs = conn.getMetaData().getSchemas(null, pattern)) {
+                    while (rs.next()) {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("SCHEMA_NAME", rs.getString("TABLE_SCHEM"));
+                        items.add(item);
+                    }
+                }
+                yield pageInMemory(items, "SCHEMA_NAME", after, limit);
+            }
+        };
+    }
+
+    /**
+     * 读取库或模式中的一页表和视图
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @param schema 库或模式名称
+     * @param pattern 表名的 LIKE 模式，为 null 时不过滤
+     * @param after 上一页最后一个表名，为 null 时从头读取
+     * @param limit 最多返回的项数
+     * @return 按表名排序的项，每项包含 TABLE_NAME、TABLE_TYPE、TABLE_ROWS（估算行数）、TABLE_COMMENT
+     */
+    public static List<Map<String, Object>> tables(Connection conn, DatabaseType databaseType, String schema, String pattern,
+                                                   String after, int limit) throws SQLException {
+        return switch (databaseType) {
+            case MYSQL -> page(conn, MYSQL_TABLES_SQL, List.of(schema), "TABLE_NAME LIKE ?", "TABLE_NAME", pattern, after, limit,
+                    CatalogLoader::tableItem);
+            case POSTGRESQL -> page(conn, PG_TABLES_SQL, List.of(schema), "c.relname ILIKE ?", "c.relname::text COLLATE \"C\"",
+                    pattern, after, limit, CatalogLoader::tableItem);
+            case IOTDB -> throw new SQLFeatureNotSupportedException("Catalog browsing is not supported for IoTDB");
+            default -> {
+                DatabaseMetaData metaData = conn.getMetaData();
+                List<Map<String, Object>> items = new ArrayList<>();
+                try (ResultSet rs = metaData.getTables(null, schema == null ? null : SchemaMetadataLoader.escape(metaData, schema),
+                        pattern == null ? "%" : pattern, null)) {
+                    while (rs.next()) {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("TABLE_NAME", rs.getString("TABLE_NAME"));
+                        item.put("TABLE_TYPE", rs.getString("TABLE_TYPE"));
+                        item.put("TABLE_ROWS", null);
+                        item.put("TABLE_COMMENT", rs.getString("REMARKS"));
+                        items.add(item);
+                    }
+                }
+                yield pageInMemory(items, "TABLE_NAME", after, limit);
+            }
+        };
+    }
+
+    private static Map<String, Object> tableItem(ResultSet rs) throws SQLException {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("TABLE_NAME", rs.getString(1));
+        item.put("TABLE_TYPE", rs.getString(2));
+        long rows = rs.getLong(3);
+        item.put("TABLE_ROWS", rs.wasNull() || rows < 0 ? null : rows);
+        item.put("TABLE_COMMENT", rs.getString(4));
+        return item;
+    }
+
+    /**
+     * 在基础查询上追加名称过滤、键集分页条件、排序和 LIMIT 后执行
+     */
+    private static List<Map<String, Object>> page(Connection conn, String baseSql, List<String> baseParams, String patternCondition,
+                                                  String orderKey, String pattern, String after, int limit,
+                                                  ItemReader reader) throws SQLException {
+        StringBuilder sql = new StringBuilder(baseSql);
+        List<Object> params = new ArrayList<>(baseParams);
+        if (pattern != null) {
+            sql.append(" AND ").append(patternCondition);
+            params.add(pattern);
+        }
+        if (after != null) {
+            sql.append(" AND ").append(orderKey).append(" > ?");
+            params.add(after);
+        }
+        sql.append(" ORDER BY ").append(orderKey).append(" LIMIT ?");
+        params.add(limit);
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        try (PreparedStatement statement = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    items.add(reader.read(rs));
+                }
+            }
+        }
+        return items;
+    }
+
+    private static List<Map<String, Object>> pageInMemory(List<Map<String, Object>> items, String nameKey, String after, int limit) {
+        return items.stream()
+                .filter(item -> item.get(nameKey) != null)
+                .filter(item -> after == null || ((String) item.get(nameKey)).compareTo(after) > 0)
+                .sorted(Comparator.comparing(item -> (String) item.get(nameKey)))
+                .limit(limit)
+                .toList();
+    }
+
+    @FunctionalInterface
+    private interface ItemReader {
+        Map<String, Object> read(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,17 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库、模式或表列表的一页
+ * @param dataSourceName 数据源名称
+ * @param schema 表所在的库或模式，库和模式列表为 null
+ * @param items 按名称排序的项
+ * @param nextCursor 读取下一页的游标，没有下一页时为 null
+ * @param createdAtMillis 读取时间，用于缓存过期判断
+ * @author yangxin
+ */
+public record CatalogPage(String dataSourceName, String schema, List<Map<String, Object>> items, String nextCursor,
+                          long createdAtMillis) {
+}
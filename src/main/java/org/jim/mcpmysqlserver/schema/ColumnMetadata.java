@@ -0,0 +1,16 @@
+package org.jim.mcpmysqlserver.schema;
+
+/**
+ * 列元数据
+ * @param name 列名
+ * @param type 数据库类型，如 varchar(64)
+ * @param nullable 是否可为空
+ * @param defaultValue 默认值表达式
+ * @param comment 注释
+ * @param primaryKey 是否属于主键
+ * @param position 列序号，从 1 开始
+ * @author yangxin
+ */
+public record ColumnMetadata(String name, String type, boolean nullable, String defaultValue, String comment,
+                             boolean primaryKey, int position) {
+}
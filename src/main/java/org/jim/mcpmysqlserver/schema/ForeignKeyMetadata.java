@@ -0,0 +1,14 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+
+/**
+ * 外键元数据
+ * @param name 外键约束名
+ * @param columns 本表中的列，按外键顺序排列
+ * @param referencedTable 被引用的表
+ * @param referencedColumns 被引用的列，与 columns 一一对应
+ * @author yangxin
+ */
+public record ForeignKeyMetadata(String name, List<String> columns, String referencedTable, List<String> referencedColumns) {
+}
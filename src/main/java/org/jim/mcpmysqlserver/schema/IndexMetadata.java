@@ -0,0 +1,13 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+
+/**
+ * 索引元数据
+ * @param name 索引名
+ * @param unique 是否唯一索引
+ * @param columns 按索引顺序排列的列名
+ * @author yangxin
+ */
+public record IndexMetadata(String name, boolean unique, List<String> columns) {
+}
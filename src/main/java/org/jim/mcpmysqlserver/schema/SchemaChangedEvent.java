@@ -0,0 +1,14 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+
+/**
+ * 表结构变化事件，后台刷新发现已加载的数据源表结构变化并更新快照后发布
+ * @param dataSourceName 数据源名称
+ * @param version 更新后的快照版本号
+ * @param changedTables 新增或结构变化的表
+ * @param droppedTables 已删除的表
+ * @author yangxin
+ */
+public record SchemaChangedEvent(String dataSourceName, long version, List<String> changedTables, List<String> droppedTables) {
+}
@@ -0,0 +1,455 @@
+package org.jim.mcpmysqlserver.schema;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 表结构加载器
+ * <p>
+ * MySQL 和 PostgreSQL 通过系统表用三条查询批量加载表、列和索引，其他数据库使用 JDBC DatabaseMetaData 加载表和列。
+ * 变更检测按表计算指纹：MySQL 对 information_schema 中表、列、索引的定义计算校验和；PostgreSQL 使用 pg_class、pg_attribute
+ * 行的 xmin、索引 OID 和注释摘要；Oracle 使用 USER_OBJECTS.LAST_DDL_TIME；SQL Server 使用 sys.objects.modify_date。
+ * 其他数据库不支持变更检测。单表的主键、外键等完整结构通过 {@link #describe} 按需读取
+ * @author yangxin
+ */
+public final class SchemaMetadataLoader {
+
+    /**
+     * 按表名过滤时 IN 列表的最大长度
+     */
+    private static final int IN_LIST_CHUNK = 500;
+
+    private static final String MYSQL_TABLES_SQL = "SELECT TABLE_NAME, TABLE_TYPE, TABLE_COMMENT, TABLE_ROWS "
+            + "FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()";
+
+    private static final String MYSQL_COLUMNS_SQL = "SELECT TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT, COLUMN_COMMENT, "
+            + "COLUMN_KEY, ORDINAL_POSITION FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()";
+
+    private static final String MYSQL_INDEXES_SQL = "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME "
+            + "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()";
+
+    private static final List<String> MYSQL_FINGERPRINT_SQL = List.of(
+            "SELECT TABLE_NAME, CONCAT(TABLE_TYPE, ':', COALESCE(CREATE_TIME, ''), ':', CRC32(COALESCE(TABLE_COMMENT, ''))) "
+                    + "FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()",
+            "SELECT TABLE_NAME, CONCAT(COUNT(*), ':', SUM(CRC32(CONCAT_WS('|', COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, "
+                    + "COLUMN_KEY, COLUMN_DEFAULT, COLUMN_COMMENT, EXTRA)))) "
+                    + "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() GROUP BY TABLE_NAME",
+            "SELECT TABLE_NAME, CONCAT(COUNT(*), ':', SUM(CRC32(CONCAT_WS('|', INDEX_NAME, NON_UNIQUE, SEQ_IN_INDEX, COLUMN_NAME)))) "
+                    + "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() GROUP BY TABLE_NAME");
+
+    private static final String PG_RELATIONS = "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE n.nspname = current_schema() AND c.relkind IN ('r', 'v', 'm', 'p', 'f')";
+
+    private static final String PG_TABLES_SQL = "SELECT c.relname, CASE c.relkind WHEN 'v' THEN 'VIEW' WHEN 'm' THEN 'MATERIALIZED VIEW' "
+            + "ELSE 'TABLE' END, obj_description(c.oid, 'pg_class'), c.reltuples::bigint " + PG_RELATIONS;
+
+    private static final String PG_COLUMNS_SQL = "SELECT c.relname, a.attname, format_type(a.atttypid, a.atttypmod), NOT a.attnotnull, "
+            + "pg_get_expr(d.adbin, d.adrelid), col_description(c.oid, a.attnum), "
+            + "EXISTS (SELECT 1 FROM pg_index i WHERE i.indrelid = c.oid AND i.indisprimary AND a.attnum = ANY (i.indkey)), a.attnum "
+            + "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped "
+            + "LEFT JOIN pg_attrdef d ON d.adrelid = c.oid AND d.adnum = a.attnum "
+            + "WHERE n.nspname = current_schema() AND c.relkind IN ('r', 'v', 'm', 'p', 'f')";
+
+    private static final String PG_INDEXES_SQL = "SELECT c.relname, i.relname, ix.indisunique, a.attname "
+            + "FROM pg_index ix JOIN pg_class c ON c.oid = ix.indrelid JOIN pg_class i ON i.oid = ix.indexrelid "
+            + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "CROSS JOIN LATERAL unnest(ix.indkey::int2[]) WITH ORDINALITY AS k(attnum, ord) "
+            + "LEFT JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum "
+            + "WHERE n.nspname = current_schema()";
+
+    private static final String PG_FINGERPRINT_SQL = "SELECT c.relname, c.xmin::text "
+            + "|| ':' || COALESCE((SELECT sum(a.xmin::text::bigint) FROM pg_attribute a WHERE a.attrelid = c.oid), 0) "
+            + "|| ':' || COALESCE((SELECT string_agg(i.indexrelid::text, ',' ORDER BY i.indexrelid) FROM pg_index i WHERE i.indrelid = c.oid), '') "
+            + "|| ':' || COALESCE((SELECT md5(string_agg(d.objsubid || '=' || d.description, ',' ORDER BY d.objsubid)) FROM pg_description d "
+            + "WHERE d.objoid = c.oid AND d.classoid = 'pg_class'::regclass), '') " + PG_RELATIONS;
+
+    private static final String MYSQL_ROWS_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private static final String PG_ROWS_SQL = "SELECT c.reltuples::bigint " + PG_RELATIONS + " AND c.relname = ?";
+
+    private static final String ORACLE_FINGERPRINT_SQL = "SELECT object_name, object_type || ':' || TO_CHAR(last_ddl_time, 'YYYYMMDDHH24MISS') "
+            + "FROM user_objects WHERE object_type IN ('TABLE', 'VIEW')";
+
+    private static final String SQL_SERVER_FINGERPRINT_SQL = "SELECT name, RTRIM(type) + ':' + CONVERT(varchar(33), modify_date, 126) "
+            + "FROM sys.objects WHERE type IN ('U', 'V') AND schema_id = SCHEMA_ID()";
+
+    private SchemaMetadataLoader() {
+    }
+
+    /**
+     * 查询每张表的变更检测指纹
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @return 表名到指纹的映射，不支持变更检测的数据库返回 null
+     */
+    public static Map<String, String> fingerprints(Connection conn, DatabaseType databaseType) throws SQLException {
+        return switch (databaseType) {
+            case MYSQL -> {
+                Map<String, String> fingerprints = queryPairs(conn, MYSQL_FINGERPRINT_SQL.get(0));
+                for (String sql : MYSQL_FINGERPRINT_SQL.subList(1, MYSQL_FINGERPRINT_SQL.size())) {
+                    queryPairs(conn, sql).forEach((table, fingerprint) -> fingerprints.computeIfPresent(table, (t, f) -> f + "/" + fingerprint));
+                }
+                yield fingerprints;
+            }
+            case POSTGRESQL -> queryPairs(conn, PG_FINGERPRINT_SQL);
+            case ORACLE -> queryPairs(conn, ORACLE_FINGERPRINT_SQL);
+            case SQL_SERVER -> queryPairs(conn, SQL_SERVER_FINGERPRINT_SQL);
+            default -> null;
+        };
+    }
+
+    /**
+     * 查询表当前的估算行数。行数不参与变更检测指纹，快照中的行数可能已经过时，需要时通过这里重新读取
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @param tableName 表名
+     * @return MySQL 的 TABLE_ROWS 或 PostgreSQL 的 reltuples，未知、表不存在或数据库不支持时返回 null
+     */
+    public static Long estimatedRows(Connection conn, DatabaseType databaseType, String tableName) throws SQLException {
+        String sql = switch (databaseType) {
+            case MYSQL -> MYSQL_ROWS_SQL;
+            case POSTGRESQL -> PG_ROWS_SQL;
+            default -> null;
+        };
+        if (sql == null) {
+            return null;
+        }
+        Long[] rows = new Long[1];
+        query(conn, sql, List.of(tableName), rs -> rows[0] = nullableLong(rs, 1));
+        // PostgreSQL 从未 ANALYZE 的表 reltuples 为 -1
+        return rows[0] != null && rows[0] < 0 ? null : rows[0];
+    }
+
+    /**
+     * 加载表结构
+     * @param conn 数据库连接
+     * @param databaseType 数据库类型
+     * @param tableNames 只加载这些表，为 null 时加载当前库或模式下的所有表和视图
+     * @param fingerprints 表名到变更检测指纹的映射，可为 null
+     * @return 表名到表元数据的映射，按表名排序
+     */
+    public static Map<String, TableMetadata> load(Connection conn, DatabaseType databaseType, Collection<String> tableNames,
+                                                  Map<String, String> fingerprints) throws SQLException {
+        Map<String, TableBuilder> builders = switch (databaseType) {
+            case MYSQL -> loadMysql(conn, tableNames);
+            case POSTGRESQL -> loadPostgresql(conn, tableNames);
+            case IOTDB -> throw new SQLFeatureNotSupportedException("Schema metadata is not supported for IoTDB");
+            default -> loadWithMetaData(conn, tableNames);
+        };
+        Map<String, TableMetadata> tables = new TreeMap<>();
+        builders.forEach((name, builder) -> tables.put(name, builder.build(fingerprints == null ? null : fingerprints.get(name))));
+        return tables;
+    }
+
+    private static Map<String, TableBuilder> loadMysql(Connection conn, Collection<String> tableNames) throws SQLException {
+        Map<String, TableBuilder> builders = new LinkedHashMap<>();
+        for (List<String> chunk : chunks(tableNames)) {
+            String filter = inFilter("TABLE_NAME", chunk);
+            query(conn, MYSQL_TABLES_SQL + filter, chunk, rs -> {
+                String type = rs.getString(2);
+                builders.put(rs.getString(1), new TableBuilder(rs.getString(1), "BASE TABLE".equalsIgnoreCase(type) ? "TABLE" : type,
+                        rs.getString(3), nullableLong(rs, 4), true));
+            });
+            query(conn, MYSQL_COLUMNS_SQL + filter + " ORDER BY TABLE_NAME, ORDINAL_POSITION", chunk, rs -> {
+                TableBuilder builder = builders.get(rs.getString(1));
+                if (builder != null) {
+                    builder.columns.add(new ColumnMetadata(rs.getString(2), rs.getString(3), "YES".equalsIgnoreCase(rs.getString(4)),
+                            rs.getString(5), rs.getString(6), "PRI".equalsIgnoreCase(rs.getString(7)), rs.getInt(8)));
+                }
+            });
+            query(conn, MYSQL_INDEXES_SQL + filter + " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX", chunk, rs -> {
+                TableBuilder builder = builders.get(rs.getString(1));
+                if (builder != null) {
+                    builder.addIndexColumn(rs.getString(2), rs.getInt(3) == 0, rs.getString(4));
+                }
+            });
+        }
+        return builders;
+    }
+
+    private static Map<String, TableBuilder> loadPostgresql(Connection conn, Collection<String> tableNames) throws SQLException {
+        Map<String, TableBuilder> builders = new LinkedHashMap<>();
+        for (List<String> chunk : chunks(tableNames)) {
+            String filter = inFilter("c.relname", chunk);
+            query(conn, PG_TABLES_SQL + filter, chunk, rs -> {
+                Long rows = nullableLong(rs, 4);
+                builders.put(rs.getString(1), new TableBuilder(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rows != null && rows < 0 ? null : rows, true));
+            });
+            query(conn, PG_COLUMNS_SQL + filter + " ORDER BY c.relname, a.attnum", chunk, rs -> {
+                TableBuilder builder = builders.get(rs.getString(1));
+                if (builder != null) {
+                    builder.columns.add(new ColumnMetadata(rs.getString(2), rs.getString(3), rs.getBoolean(4),
+                            rs.getString(5), rs.getString(6), rs.getBoolean(7), rs.getInt(8)));
+                }
+            });
+            query(conn, PG_INDEXES_SQL + filter + " ORDER BY c.relname, i.relname, k.ord", chunk, rs -> {
+                TableBuilder builder = builders.get(rs.getString(1));
+                if (builder != null) {
+                    String column = rs.getString(4);
+                    builder.addIndexColumn(rs.getString(2), rs.getBoolean(3), column != null ? column : "(expression)");
+                }
+            });
+        }
+        return builders;
+    }
+
+    /**
+     * 使用 JDBC DatabaseMetaData 加载当前 catalog 和 schema 下的表和列，不加载主键和索引
+     */
+    private static Map<String, TableBuilder> loadWithMetaData(Connection conn, Collection<String> tableNames) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        String schema = currentSchema(conn);
+        Set<String> only = tableNames == null ? null : Set.copyOf(tableNames);
+
+        Map<String, TableBuilder> builders = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[]{"TABLE", "VIEW"})) {
+            while (rs.next()) {
+                String name = rs.getString("TABLE_NAME");
+                if (only == null || only.contains(name)) {
+                    builders.put(name, new TableBuilder(name, rs.getString("TABLE_TYPE"), rs.getString("REMARKS"), null, false));
+                }
+            }
+        }
+
+        // 加载全部表时一次取出所有列，只加载部分表时逐表查询
+        List<String> patterns = only == null ? List.of("%") : builders.keySet().stream().map(name -> escape(metaData, name)).toList();
+        for (String pattern : patterns) {
+            try (ResultSet rs = metaData.getColumns(catalog, schema, pattern, "%")) {
+                while (rs.next()) {
+                    TableBuilder builder = builders.get(rs.getString("TABLE_NAME"));
+                    if (builder != null) {
+                        builder.columns.add(new ColumnMetadata(rs.getString("COLUMN_NAME"),
+                                describeType(rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS")),
+                                rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, rs.getString("COLUMN_DEF"),
+                                rs.getString("REMARKS"), false, rs.getInt("ORDINAL_POSITION")));
+                    }
+                }
+            }
+        }
+        return builders;
+    }
+
+    /**
+     * 通过 JDBC DatabaseMetaData 补充表的主键、外键，以及批量加载时没有取得的索引
+     * @param conn 数据库连接
+     * @param table 表结构快照中的表
+     * @return 表的完整结构描述
+     */
+    public static TableDescription describe(Connection conn, TableMetadata table) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        String schema = currentSchema(conn);
+
+        Map<Short, String> keyColumns = new TreeMap<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, table.name())) {
+            while (rs.next()) {
+                keyColumns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        List<String> primaryKey = List.copyOf(keyColumns.values());
+        List<ColumnMetadata> columns = table.columns().stream()
+                .map(c -> c.primaryKey() || !primaryKey.contains(c.name()) ? c
+                        : new ColumnMetadata(c.name(), c.type(), c.nullable(), c.defaultValue(), c.comment(), true, c.position()))
+                .toList();
+
+        List<IndexMetadata> indexes = table.indexes();
+        if (indexes == null) {
+            Map<String, IndexBuilder> builders = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table.name(), false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    if (indexName == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                        continue;
+                    }
+                    String column = rs.getString("COLUMN_NAME");
+                    boolean unique = isFalse(rs, "NON_UNIQUE");
+                    builders.computeIfAbsent(indexName, n -> new IndexBuilder(unique))
+                            .columns.add(column != null ? column : "(expression)");
+                }
+            }
+            indexes = builders.entrySet().stream()
+                    .map(e -> new IndexMetadata(e.getKey(), e.getValue().unique, List.copyOf(e.getValue().columns)))
+                    .toList();
+        }
+
+        Map<String, List<String[]>> foreignKeys = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schema, table.name())) {
+            while (rs.next()) {
+                String fkName = rs.getString("FK_NAME");
+                String key = fkName != null ? fkName : rs.getString("PKTABLE_NAME");
+                foreignKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(new String[]{
+                        fkName, rs.getString("FKCOLUMN_NAME"), rs.getString("PKTABLE_NAME"), rs.getString("PKCOLUMN_NAME")});
+            }
+        }
+        List<ForeignKeyMetadata> foreignKeyList = foreignKeys.values().stream()
+                .map(rows -> new ForeignKeyMetadata(rows.get(0)[0], rows.stream().map(r -> r[1]).toList(),
+                        rows.get(0)[2], rows.stream().map(r -> r[3]).toList()))
+                .toList();
+
+        return new TableDescription(table.name(), table.type(), table.comment(), table.rows(), columns, primaryKey, indexes, foreignKeyList);
+    }
+
+    /**
+     * 读取布尔列，兼容以数字返回布尔值的驱动
+     */
+    private static boolean isFalse(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Boolean b) {
+            return !b;
+        }
+        return value != null && ("0".equals(value.toString()) || "false".equalsIgnoreCase(value.toString()));
+    }
+
+    /**
+     * 当前连接的 schema，驱动不支持时返回 null（不按 schema 过滤）
+     */
+    static String currentSchema(Connection conn) {
+        try {
+            return conn.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把 DatabaseMetaData 中的类型名、长度和精度组合为类似 DDL 的类型描述
+     */
+    static String describeType(String typeName, int size, int digits) {
+        if (typeName == null || size <= 0) {
+            return typeName;
+        }
+        String upper = typeName.toUpperCase(Locale.ROOT);
+        if (upper.contains("CHAR") || upper.contains("BINARY")) {
+            return typeName + "(" + size + ")";
+        }
+        if (upper.equals("DECIMAL") || upper.equals("NUMERIC") || upper.equals("NUMBER")) {
+            return digits > 0 ? typeName + "(" + size + "," + digits + ")" : typeName + "(" + size + ")";
+        }
+        return typeName;
+    }
+
+    /**
+     * 转义 DatabaseMetaData 模式参数中的通配符
+     */
+    static String escape(DatabaseMetaData metaData, String name) {
+        try {
+            String escape = metaData.getSearchStringEscape();
+            if (escape == null || escape.isEmpty()) {
+                return name;
+            }
+            return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+        } catch (SQLException e) {
+            return name;
+        }
+    }
+
+    private static Map<String, String> queryPairs(Connection conn, String sql) throws SQLException {
+        Map<String, String> pairs = new HashMap<>();
+        query(conn, sql, List.of(), rs -> pairs.put(rs.getString(1), rs.getString(2)));
+        return pairs;
+    }
+
+    private static void query(Connection conn, String sql, List<String> params, RowHandler handler) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setString(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    private static List<List<String>> chunks(Collection<String> tableNames) {
+        if (tableNames == null) {
+            return Collections.singletonList(List.of());
+        }
+        List<String> names = List.copyOf(tableNames);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < names.size(); from += IN_LIST_CHUNK) {
+            chunks.add(names.subList(from, Math.min(names.size(), from + IN_LIST_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static String inFilter(String column, List<String> chunk) {
+        if (chunk.isEmpty()) {
+            return "";
+        }
+        return " AND " + column + " IN (" + chunk.stream().map(name -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    private static Long nullableLong(ResultSet rs, int index) throws SQLException {
+        long value = rs.getLong(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 加载过程中逐步填充的表信息
+     */
+    private static final class TableBuilder {
+
+        private final String name;
+        private final String type;
+        private final String comment;
+        private final Long rows;
+        private final List<ColumnMetadata> columns = new ArrayList<>();
+        private final Map<String, IndexBuilder> indexes;
+
+        private TableBuilder(String name, String type, String comment, Long rows, boolean withIndexes) {
+            this.name = name;
+            this.type = type;
+            this.comment = comment;
+            this.rows = rows;
+            this.indexes = withIndexes ? new LinkedHashMap<>() : null;
+        }
+
+        private void addIndexColumn(String indexName, boolean unique, String column) {
+            indexes.computeIfAbsent(indexName, n -> new IndexBuilder(unique)).columns.add(column);
+        }
+
+        private TableMetadata build(String fingerprint) {
+            List<IndexMetadata> indexList = indexes == null ? null : indexes.entrySet().stream()
+                    .map(e -> new IndexMetadata(e.getKey(), e.getValue().unique, List.copyOf(e.getValue().columns)))
+                    .toList();
+            return new TableMetadata(name, type, comment, rows, List.copyOf(columns), indexList, fingerprint);
+        }
+    }
+
+    private static final class IndexBuilder {
+
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+
+        private IndexBuilder(boolean unique) {
+            this.unique = unique;
+        }
+    }
+}
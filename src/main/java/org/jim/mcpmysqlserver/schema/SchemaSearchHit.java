@@ -0,0 +1,14 @@
+package org.jim.mcpmysqlserver.schema;
+
+/**
+ * 表结构搜索结果
+ * @param datasource 数据源名称
+ * @param table 表名
+ * @param column 列名，命中表本身时为 null
+ * @param type 列类型，命中表时为表类型
+ * @param comment 表或列的注释
+ * @param score 相似度，0 到 1，越大越相关
+ * @author yangxin
+ */
+public record SchemaSearchHit(String datasource, String table, String column, String type, String comment, double score) {
+}
@@ -0,0 +1,241 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表结构模糊搜索索引
+ * <p>
+ * 对表名、列名和注释建立三元组（trigram）倒排索引，与 PostgreSQL pg_trgm 一致：文本转小写后按非字母数字字符切分为单词，
+ * 每个单词前补两个空格、后补一个空格后取所有连续的三个字符。搜索时统计候选项与查询共有的三元组数，按覆盖率和相似度打分，
+ * 名称包含查询时额外加分。索引随表结构快照按表增量更新，读取不加锁
+ * @author yangxin
+ */
+public class SchemaSearchIndex {
+
+    /**
+     * 候选项至少包含查询中这个比例的三元组
+     */
+    private static final double MIN_COVERAGE = 0.3;
+
+    /**
+     * 只命中注释时的分数折扣
+     */
+    private static final double COMMENT_WEIGHT = 0.8;
+
+    private final String dataSourceName;
+
+    /**
+     * 名称三元组到条目的倒排表
+     */
+    private final Map<String, Set<Entry>> nameIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 注释三元组到条目的倒排表
+     */
+    private final Map<String, Set<Entry>> commentIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 表名到该表所有条目（表本身和各列）的映射，以及生成这些条目的表对象
+     */
+    private final Map<String, IndexedTable> tables = new ConcurrentHashMap<>();
+
+    public SchemaSearchIndex(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+    }
+
+    /**
+     * 按新的表集合更新索引：移除已删除的表，重新索引表对象发生变化的表，其余表保持不变
+     * @param snapshotTables 表名到表元数据的映射
+     */
+    public synchronized void update(Map<String, TableMetadata> snapshotTables) {
+        for (String tableName : List.copyOf(tables.keySet())) {
+            IndexedTable indexed = tables.get(tableName);
+            if (snapshotTables.get(tableName) != indexed.source()) {
+                remove(tableName);
+            }
+        }
+        snapshotTables.forEach((tableName, table) -> {
+            if (!tables.containsKey(tableName)) {
+                add(table);
+            }
+        });
+    }
+
+    /**
+     * 已索引的表数
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * 搜索表和列
+     * @param query 查询文本
+     * @param limit 最多返回的条数
+     * @return 按分数从高到低排列的结果
+     */
+    public List<SchemaSearchHit> search(String query, int limit) {
+        Set<String> queryGrams = trigrams(query);
+        if (queryGrams.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Entry, Integer> nameHits = countHits(nameIndex, queryGrams);
+        Map<Entry, Integer> commentHits = countHits(commentIndex, queryGrams);
+        String compactQuery = compact(query);
+
+        List<SchemaSearchHit> hits = new ArrayList<>();
+        Set<Entry> candidates = new LinkedHashSet<>(nameHits.keySet());
+        candidates.addAll(commentHits.keySet());
+        for (Entry entry : candidates) {
+            double nameScore = score(nameHits.getOrDefault(entry, 0), queryGrams.size(), entry.nameTrigrams.size());
+            String compactName = compact(entry.name);
+            if (!compactQuery.isEmpty() && compactName.contains(compactQuery)) {
+                nameScore = Math.max(nameScore, compactName.equals(compactQuery) ? 1.0 : 0.75 + 0.2 * compactQuery.length() / compactName.length());
+            }
+            double commentScore = COMMENT_WEIGHT * score(commentHits.getOrDefault(entry, 0), queryGrams.size(), entry.commentTrigrams.size());
+            double score = Math.max(nameScore, commentScore);
+            if (score > 0) {
+                hits.add(new SchemaSearchHit(dataSourceName, entry.table, entry.column, entry.type, entry.comment,
+                        Math.round(score * 1000) / 1000.0));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(SchemaSearchHit::score).reversed()
+                .thenComparing(SchemaSearchHit::table)
+                .thenComparing(hit -> hit.column() == null ? "" : hit.column()));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 相似度：查询三元组覆盖率和 Jaccard 系数的平均值，覆盖率过低时为 0
+     */
+    private static double score(int hits, int queryGrams, int fieldGrams) {
+        if (hits == 0 || fieldGrams == 0) {
+            return 0;
+        }
+        double coverage = (double) hits / queryGrams;
+        if (coverage < MIN_COVERAGE) {
+            return 0;
+        }
+        double jaccard = (double) hits / (queryGrams + fieldGrams - hits);
+        return (coverage + jaccard) / 2;
+    }
+
+    private static Map<Entry, Integer> countHits(Map<String, Set<Entry>> index, Set<String> queryGrams) {
+        Map<Entry, Integer> hits = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<Entry> entries = index.get(gram);
+            if (entries != null) {
+                for (Entry entry : entries) {
+                    hits.merge(entry, 1, Integer::sum);
+                }
+            }
+        }
+        return hits;
+    }
+
+    private void add(TableMetadata table) {
+        List<Entry> entries = new ArrayList<>();
+        entries.add(entry(table.name(), null, table.type(), table.comment()));
+        for (ColumnMetadata column : table.columns()) {
+            entries.add(entry(table.name(), column.name(), column.type(), column.comment()));
+        }
+        for (Entry entry : entries) {
+            entry.nameTrigrams.forEach(gram -> nameIndex.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry));
+            entry.commentTrigrams.forEach(gram -> commentIndex.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry));
+        }
+        tables.put(table.name(), new IndexedTable(table, entries));
+    }
+
+    private void remove(String tableName) {
+        IndexedTable indexed = tables.remove(tableName);
+        if (indexed == null) {
+            return;
+        }
+        for (Entry entry : indexed.entries()) {
+            entry.nameTrigrams.forEach(gram -> removePosting(nameIndex, gram, entry));
+            entry.commentTrigrams.forEach(gram -> removePosting(commentIndex, gram, entry));
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Entry>> index, String gram, Entry entry) {
+        index.computeIfPresent(gram, (g, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private static Entry entry(String table, String column, String type, String comment) {
+        String name = column != null ? column : table;
+        return new Entry(table, column, name, type, comment, trigrams(name), trigrams(comment));
+    }
+
+    /**
+     * 提取文本的三元组
+     */
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            int[] codePoints = padded.codePoints().toArray();
+            for (int i = 0; i + 3 <= codePoints.length; i++) {
+                grams.add(new String(codePoints, i, 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 去掉非字母数字字符并转小写，用于子串匹配，使 order item 能匹配 order_items
+     */
+    private static String compact(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", "");
+    }
+
+    /**
+     * 索引条目：一张表或一列。按对象身份比较，同名的新旧条目互不影响
+     */
+    private static final class Entry {
+
+        private final String table;
+        private final String column;
+        private final String name;
+        private final String type;
+        private final String comment;
+        private final Set<String> nameTrigrams;
+        private final Set<String> commentTrigrams;
+
+        private Entry(String table, String column, String name, String type, String comment,
+                      Set<String> nameTrigrams, Set<String> commentTrigrams) {
+            this.table = table;
+            this.column = column;
+            this.name = name;
+            this.type = type;
+            this.comment = comment;
+            this.nameTrigrams = nameTrigrams;
+            this.commentTrigrams = commentTrigrams;
+        }
+    }
+
+    /**
+     * 已索引的表
+     * @param source 生成条目时的表对象，表结构变化后快照中是新的对象
+     * @param entries 表本身和各列的条目
+     */
+    private record IndexedTable(TableMetadata source, List<Entry> entries) {
+    }
+}
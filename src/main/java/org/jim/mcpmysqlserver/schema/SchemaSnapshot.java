@@ -0,0 +1,32 @@
+package org.jim.mcpmysqlserver.schema;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 数据源的表结构快照，不可变。刷新时生成新的快照替换旧快照
+ * @param dataSourceName 数据源名称
+ * @param databaseType 数据库类型
+ * @param tables 表名到表元数据的映射，按表名排序
+ * @param version 版本号，表结构每变化一次加一
+ * @param loadedAt 最近一次加载或确认未变化的时间
+ * @author yangxin
+ */
+public record SchemaSnapshot(String dataSourceName, DatabaseType databaseType, Map<String, TableMetadata> tables,
+                             long version, Instant loadedAt) {
+
+    /**
+     * 按表名查找，先区分大小写，再忽略大小写
+     * @param tableName 表名
+     * @return 表元数据，不存在时返回 null
+     */
+    public TableMetadata table(String tableName) {
+        TableMetadata table = tables.get(tableName);
+        if (table != null || tableName == null) {
+            return table;
+        }
+        return tables.values().stream().filter(t -> t.name().equalsIgnoreCase(tableName)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,19 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+
+/**
+ * 表的完整结构描述，在表结构快照的基础上补充主键、索引和外键
+ * @param name 表名
+ * @param type 表类型，如 TABLE、VIEW
+ * @param comment 注释
+ * @param rows 统计信息中的估算行数，未知时为 null
+ * @param columns 按列序号排列的列
+ * @param primaryKey 按主键顺序排列的主键列，没有主键时为空
+ * @param indexes 索引
+ * @param foreignKeys 本表引用其他表的外键
+ * @author yangxin
+ */
+public record TableDescription(String name, String type, String comment, Long rows, List<ColumnMetadata> columns,
+                               List<String> primaryKey, List<IndexMetadata> indexes, List<ForeignKeyMetadata> foreignKeys) {
+}
@@ -0,0 +1,18 @@
+package org.jim.mcpmysqlserver.schema;
+
+import java.util.List;
+
+/**
+ * 表元数据
+ * @param name 表名
+ * @param type 表类型，如 TABLE、VIEW
+ * @param comment 注释
+ * @param rows 统计信息中的估算行数，未知时为 null
+ * @param columns 按列序号排列的列
+ * @param indexes 索引，批量加载不支持索引的数据库为 null
+ * @param fingerprint 变更检测指纹，指纹变化时重新加载该表；不支持变更检测的数据库为 null
+ * @author yangxin
+ */
+public record TableMetadata(String name, String type, String comment, Long rows, List<ColumnMetadata> columns,
+                            List<IndexMetadata> indexes, String fingerprint) {
+}
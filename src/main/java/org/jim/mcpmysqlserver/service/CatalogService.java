@@ -0,0 +1,181 @@
+package org.jim.mcpmysqlserver.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.SchemaCatalogConfig;
+import org.jim.mcpmysqlserver.schema.CatalogLoader;
+import org.jim.mcpmysqlserver.schema.CatalogPage;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.jim.mcpmysqlserver.util.LruCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库、模式和表的目录浏览服务
+ * <p>
+ * 适用于库或模式很多的实例：先列出库或模式，再列出其中的表，不一次性加载整个实例的目录。
+ * 每页按名称排序，游标为上一页最后一个名称的编码，名称过滤和分页都下推到元数据查询中。
+ * 每一页的结果按 (数据源, 模式, 过滤条件, 游标, 条数) 缓存 cacheTtlSeconds 秒，表结构变化时丢弃对应数据源的表列表页
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class CatalogService {
+
+    private final SchemaCatalogConfig config;
+    private final DataSourceService dataSourceService;
+
+    /**
+     * 页的缓存，过期时间记录在页中
+     */
+    private final LruCache<PageKey, CatalogPage> pageCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    public CatalogService(SchemaCatalogConfig config, DataSourceService dataSourceService) {
+        this.config = config;
+        this.dataSourceService = dataSourceService;
+        this.pageCache = new LruCache<>(config.getCacheTtlSeconds() > 0 ? config.getCacheMaxEntries() : 0);
+    }
+
+    @PostConstruct
+    public void bindMetrics() {
+        FunctionCounter.builder("mcp.schema.catalog.cache.requests", pageCache, LruCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("mcp.schema.catalog.cache.requests", pageCache, LruCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mcp.schema.catalog.cache.size", pageCache, LruCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 列出一页库或模式
+     * @param dataSourceName 数据源名称，为空或为"primary"时表示默认数据源
+     * @param filter 名称过滤：包含 % 时作为 LIKE 模式，否则匹配包含该文本的名称，为空时不过滤
+     * @param cursor 上一页返回的 nextCursor，为空时读取第一页
+     * @param pageSize 每页条数，为空时使用 defaultPageSize，最多 maxPageSize
+     * @return 一页库或模式
+     * @throws SQLException 查询失败时
+     * @throws IllegalArgumentException 数据源不存在或游标无效时
+     */
+    public CatalogPage listSchemas(String dataSourceName, String filter, String cursor, Integer pageSize) throws SQLException {
+        return page(dataSourceName, false, null, filter, cursor, pageSize);
+    }
+
+    /**
+     * 列出库或模式中的一页表和视图
+     * @param dataSourceName 数据源名称，为空或为"primary"时表示默认数据源
+     * @param schema 库或模式名称，为空时为连接当前所在的库或模式
+     * @param filter 表名过滤：包含 % 时作为 LIKE 模式，否则匹配包含该文本的表名，为空时不过滤
+     * @param cursor 上一页返回的 nextCursor，为空时读取第一页
+     * @param pageSize 每页条数，为空时使用 defaultPageSize，最多 maxPageSize
+     * @return 一页表
+     * @throws SQLException 查询失败时
+     * @throws IllegalArgumentException 数据源不存在或游标无效时
+     */
+    public CatalogPage listTables(String dataSourceName, String schema, String filter, String cursor, Integer pageSize) throws SQLException {
+        return page(dataSourceName, true, schema == null || schema.isBlank() ? null : schema, filter, cursor, pageSize);
+    }
+
+    /**
+     * 表结构变化后丢弃该数据源缓存的表列表页
+     */
+    @EventListener
+    public void onSchemaChanged(SchemaChangedEvent event) {
+        pageCache.removeIf(key -> key.tables() && key.dataSourceName().equals(event.dataSourceName()));
+    }
+
+    private CatalogPage page(String dataSourceName, boolean tables, String schema, String filter, String cursor,
+                             Integer pageSize) throws SQLException {
+        String dsName = resolveName(dataSourceName);
+        String pattern = likePattern(filter);
+        String after = decodeCursor(cursor);
+        int limit = pageSize == null || pageSize <= 0 ? config.getDefaultPageSize() : Math.min(pageSize, config.getMaxPageSize());
+
+        PageKey key = new PageKey(dsName, tables, schema, pattern, after, limit);
+        CatalogPage page = pageCache.get(key);
+        long now = System.currentTimeMillis();
+        if (page != null && now - page.createdAtMillis() <= config.getCacheTtlSeconds() * 1000L) {
+            return page;
+        }
+
+        DatabaseType databaseType = dataSourceService.getDatabaseType(dsName);
+        try (Connection conn = dataSourceService.getDataSource(dsName, true).getConnection()) {
+            String resolvedSchema = tables && schema == null ? CatalogLoader.currentSchema(conn, databaseType) : schema;
+            // 多取一条判断是否还有下一页
+            List<Map<String, Object>> items = tables
+                    ? CatalogLoader.tables(conn, databaseType, resolvedSchema, pattern, after, limit + 1)
+                    : CatalogLoader.schemas(conn, databaseType, pattern, after, limit + 1);
+            String nextCursor = null;
+            if (items.size() > limit) {
+                items = items.subList(0, limit);
+                nextCursor = encodeCursor((String) items.get(limit - 1).get(tables ? "TABLE_NAME" : "SCHEMA_NAME"));
+            }
+            page = new CatalogPage(dsName, resolvedSchema, List.copyOf(items), nextCursor, now);
+        }
+        log.debug("Loaded catalog page of {} {} from [{}]", page.items().size(), tables ? "tables" : "schemas", dsName);
+        pageCache.put(key, page);
+        return page;
+    }
+
+    private String resolveName(String dataSourceName) {
+        if (dataSourceName == null || dataSourceName.isEmpty() || "primary".equals(dataSourceName)) {
+            String defaultDsName = dataSourceService.getDefaultDataSourceName();
+            return defaultDsName != null ? defaultDsName : "primary";
+        }
+        if (!dataSourceService.getDataSourceNames().contains(dataSourceName)) {
+            throw new IllegalArgumentException("Datasource not found: " + dataSourceName);
+        }
+        return dataSourceName;
+    }
+
+    /**
+     * 把过滤文本转换为 LIKE 模式，不含 % 时匹配包含该文本的名称
+     */
+    static String likePattern(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return null;
+        }
+        String trimmed = filter.trim();
+        return trimmed.contains("%") ? trimmed : "%" + trimmed + "%";
+    }
+
+    static String encodeCursor(String lastName) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * 页缓存的键
+     * @param dataSourceName 数据源名称
+     * @param tables 是否为表列表
+     * @param schema 表所在的库或模式，为 null 时为当前库或模式
+     * @param pattern 名称的 LIKE 模式
+     * @param after 上一页最后一个名称
+     * @param limit 每页条数
+     */
+    private record PageKey(String dataSourceName, boolean tables, String schema, String pattern, String after, int limit) {
+    }
+}
@@ -11,8 +11,10 @@ import javax.sql.DataSource;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -27,6 +29,11 @@ public class DataSourceService {
     private final DataSourceConfig dataSourceConfig;
     private final ApplicationContext applicationContext;
 
+    /**
+     * 数据源名称到数据库类型的缓存，数据源配置在启动后不再变化
+     */
+    private final Map<String, DatabaseTypeDetector.DatabaseType> databaseTypes = new ConcurrentHashMap<>();
+
     @Autowired
     public DataSourceService(DataSourceConfig dataSourceConfig, ApplicationContext applicationContext) {
         this.dataSourceConfig = dataSourceConfig;
@@ -81,6 +88,51 @@ public class DataSourceService {
         return getPrimaryDataSource();
     }
 
+    /**
+     * 获取数据源，只读语句优先使用只读连接池
+     * @param name 数据源名称
+     * @param readOnly 语句是否只读
+     * @return 只读时返回只读连接池，未启用只读路由或只读连接池不可用时返回读写数据源
+     */
+    public DataSource getDataSource(String name, boolean readOnly) {
+        if (readOnly) {
+            DataSource readOnlyDataSource = getReadOnlyDataSource(name);
+            if (readOnlyDataSource != null) {
+                return readOnlyDataSource;
+            }
+        }
+        return getDataSource(name);
+    }
+
+    /**
+     * 获取只读数据源，名称的解析规则与 getDataSource 一致
+     * @param name 数据源名称
+     * @return 只读数据源，不存在时返回 null
+     */
+    private DataSource getReadOnlyDataSource(String name) {
+        Map<String, DataSource> readOnlyDataSources = getReadOnlyDataSources();
+        if (readOnlyDataSources.isEmpty()) {
+            return null;
+        }
+
+        String dsName = name == null || name.isEmpty() || "primary".equals(name) || !dataSourceConfig.getDatasources().containsKey(name)
+                ? dataSourceConfig.getDefaultDataSourceName() : name;
+        return dsName == null ? null : readOnlyDataSources.get(dsName);
+    }
+
+    /**
+     * 获取所有只读连接池
+     * @return 数据源名称到只读数据源的映射，未启用只读路由时为空
+     */
+    public Map<String, DataSource> getReadOnlyDataSources() {
+        try {
+            return applicationContext.getBean("readOnlyDataSources", Map.class);
+        } catch (Exception e) {
+            log.error("Failed to get readOnlyDataSources bean: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
     /**
      * 获取默认数据源
      * @return 默认数据源
@@ -94,6 +146,26 @@ public class DataSourceService {
         }
     }
 
+    /**
+     * 获取所有已初始化的数据源，默认数据源排在第一位
+     * @return 数据源名称到数据源的映射
+     */
+    public Map<String, DataSource> getAllDataSources() {
+        Map<String, DataSource> allDataSources = new LinkedHashMap<>();
+        String defaultDsName = dataSourceConfig.getDefaultDataSourceName();
+        if (defaultDsName != null) {
+            allDataSources.put(defaultDsName, getPrimaryDataSource());
+        }
+
+        try {
+            Map<String, DataSource> secondaryDataSources = applicationContext.getBean("secondaryDataSources", Map.class);
+            secondaryDataSources.forEach(allDataSources::putIfAbsent);
+        } catch (Exception e) {
+            log.error("Failed to get secondaryDataSources bean: {}", e.getMessage());
+        }
+        return allDataSources;
+    }
+
     /**
      * 获取所有可用的数据源名称
      * @return 数据源名称列表
@@ -119,6 +191,35 @@ public class DataSourceService {
         return dataSourceConfig.getDefaultDataSourceName();
     }
 
+    /**
+     * 获取数据源的数据库类型
+     * @param name 数据源名称，为空或为"primary"时表示默认数据源；未配置的名称与 getDataSource 一致回退到默认数据源
+     * @return 数据库类型，无法确定时返回 UNKNOWN
+     */
+    public DatabaseTypeDetector.DatabaseType getDatabaseType(String name) {
+        String defaultDsName = getDefaultDataSourceName();
+        String dsName = name == null || name.isEmpty() || "primary".equals(name) ? defaultDsName : name;
+        Map<String, Map<String, Object>> datasources = dataSourceConfig.getDatasources();
+        if (dsName == null || datasources == null) {
+            return DatabaseTypeDetector.DatabaseType.UNKNOWN;
+        }
+        if (!datasources.containsKey(dsName)) {
+            return dsName.equals(defaultDsName) ? DatabaseTypeDetector.DatabaseType.UNKNOWN : getDatabaseType(null);
+        }
+        return databaseTypes.computeIfAbsent(dsName, key -> {
+            Object url = datasources.get(key).get("url");
+            return url == null ? DatabaseTypeDetector.DatabaseType.UNKNOWN : DatabaseTypeDetector.detectDatabaseType(url.toString());
+        });
+    }
+
+    /**
+     * 数据源注册信息的指纹，数据源配置或默认数据源变化时改变
+     * @return 指纹
+     */
+    public int getRegistryFingerprint() {
+        return Objects.hash(dataSourceConfig.getDefaultDataSourceName(), dataSourceConfig.getDatasources());
+    }
+
     /**
      * 获取所有数据源的详细信息，包括数据库类型
      * @return 数据源详细信息列表
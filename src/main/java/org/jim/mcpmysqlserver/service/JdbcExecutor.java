@@ -10,9 +10,11 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -25,6 +27,11 @@ import java.util.stream.IntStream;
 @Slf4j
 public class JdbcExecutor {
 
+    private final StatementCanceller statementCanceller;
+
+    public JdbcExecutor(StatementCanceller statementCanceller) {
+        this.statementCanceller = statementCanceller;
+    }
 
     /**
      * 在指定数据源上执行SQL语句
@@ -34,25 +41,55 @@ public class JdbcExecutor {
      * @return SQL执行结果
      */
     public SqlResult executeSql(DataSource dataSource, String sql) {
+        return executeSql(dataSource, sql, Map.of());
+    }
+
+    /**
+     * 在指定数据源上执行SQL语句，读取结果集时对指定列的值逐行做转换
+     *
+     * @param dataSource 数据源
+     * @param sql SQL语句
+     * @param columnTransforms 列名到转换函数的映射，列名匹配时先区分大小写、再忽略大小写
+     * @return SQL执行结果
+     */
+    public SqlResult executeSql(DataSource dataSource, String sql, Map<String, Function<Object, Object>> columnTransforms) {
+        try (Connection conn = dataSource.getConnection()) {
+            return executeSql(conn, sql, columnTransforms);
+        } catch (SQLException e) {
+            log.error("SQL execution error: {}", e.getMessage(), e);
+            return SqlResult.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 在指定连接上执行SQL语句，执行完成后不关闭连接（用于会话固定的连接）
+     *
+     * @param conn 数据库连接
+     * @param sql SQL语句
+     * @return SQL执行结果
+     */
+    public SqlResult executeSql(Connection conn, String sql) {
+        return executeSql(conn, sql, Map.of());
+    }
+
+    /**
+     * 在指定连接上执行SQL语句，读取结果集时对指定列的值逐行做转换，执行完成后不关闭连接
+     *
+     * @param conn 数据库连接
+     * @param sql SQL语句
+     * @param columnTransforms 列名到转换函数的映射，列名匹配时先区分大小写、再忽略大小写
+     * @return SQL执行结果
+     */
+    public SqlResult executeSql(Connection conn, String sql, Map<String, Function<Object, Object>> columnTransforms) {
         log.debug("Executing SQL: {}", sql);
 
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            boolean hasResultSet = stmt.execute(sql);
-
-            if (hasResultSet) {
-                // 处理查询结果
-                try (ResultSet rs = stmt.getResultSet()) {
-                    List<Map<String, Object>> resultList = processResultSet(rs);
-                    log.debug("Query executed successfully, returned {} rows", resultList.size());
-                    return SqlResult.success(resultList);
-                }
-            } else {
-                // 处理更新结果
-                int updateCount = stmt.getUpdateCount();
-                log.debug("SQL execution completed, affected rows: {}", updateCount);
-                return SqlResult.success(updateCount);
+        try (Statement stmt = conn.createStatement()) {
+            // 登记语句，调用被取消或超时时可以取消数据库中的执行
+            statementCanceller.register(stmt);
+            try {
+                return execute(stmt, sql, columnTransforms);
+            } finally {
+                statementCanceller.unregister(stmt);
             }
         } catch (SQLException e) {
             log.error("SQL execution error: {}", e.getMessage(), e);
@@ -63,14 +100,33 @@ public class JdbcExecutor {
         }
     }
 
+    private SqlResult execute(Statement stmt, String sql, Map<String, Function<Object, Object>> columnTransforms) throws SQLException {
+        boolean hasResultSet = stmt.execute(sql);
+
+        if (hasResultSet) {
+            // 处理查询结果
+            try (ResultSet rs = stmt.getResultSet()) {
+                List<Map<String, Object>> resultList = processResultSet(rs, columnTransforms);
+                log.debug("Query executed successfully, returned {} rows", resultList.size());
+                return SqlResult.success(resultList);
+            }
+        } else {
+            // 处理更新结果
+            int updateCount = stmt.getUpdateCount();
+            log.debug("SQL execution completed, affected rows: {}", updateCount);
+            return SqlResult.success(updateCount);
+        }
+    }
+
     /**
      * 处理ResultSet并转换为List<Map<String, Object>>
      * 使用JDK8 Stream API处理数据
      *
      * @param rs 结果集
+     * @param columnTransforms 列名到转换函数的映射，非 NULL 值在读出后立即转换
      * @return 结果列表
      */
-    private List<Map<String, Object>> processResultSet(ResultSet rs) throws SQLException {
+    private List<Map<String, Object>> processResultSet(ResultSet rs, Map<String, Function<Object, Object>> columnTransforms) throws SQLException {
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
 
@@ -85,6 +141,7 @@ public class JdbcExecutor {
                     }
                 })
                 .toList();
+        List<Function<Object, Object>> transforms = resolveColumnTransforms(columnNames, columnTransforms);
 
         List<Map<String, Object>> resultList = new ArrayList<>();
 
@@ -96,6 +153,9 @@ public class JdbcExecutor {
                                 try {
                                     // ResultSet is 1-indexed
                                     Object value = rs.getObject(i + 1);
+                                    if (value != null && transforms.get(i) != null) {
+                                        value = transforms.get(i).apply(value);
+                                    }
                                     // 处理数据库中的 NULL 值，避免 HashMap.merge() 的 null 限制
                                     return value != null ? value : "NULL";
                                 } catch (Exception e) {
@@ -112,6 +172,31 @@ public class JdbcExecutor {
         return resultList;
     }
 
+    /**
+     * 按列下标解析转换函数，没有转换的列为 null
+     */
+    private List<Function<Object, Object>> resolveColumnTransforms(List<String> columnNames, Map<String, Function<Object, Object>> columnTransforms) {
+        List<Function<Object, Object>> transforms = new ArrayList<>(Collections.nCopies(columnNames.size(), null));
+        if (columnTransforms == null || columnTransforms.isEmpty()) {
+            return transforms;
+        }
+        columnTransforms.forEach((column, transform) -> {
+            int index = columnNames.indexOf(column);
+            if (index < 0) {
+                index = IntStream.range(0, columnNames.size())
+                        .filter(i -> columnNames.get(i).equalsIgnoreCase(column))
+                        .findFirst()
+                        .orElse(-1);
+            }
+            if (index < 0) {
+                log.warn("Column [{}] not found in result set, transform skipped", column);
+                return;
+            }
+            transforms.set(index, transform);
+        });
+        return transforms;
+    }
+
     /**
      * SQL执行结果封装类
      */
@@ -0,0 +1,207 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.PoolAcquireMetricsTrackerFactory;
+import org.jim.mcpmysqlserver.config.PoolAutoScalingConfig;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池自动伸缩服务
+ * 周期性采集每个 Hikari 连接池的等待线程数和获取连接耗时，连续多个周期存在压力时扩容、连续空闲时缩容，
+ * 并保证所有连接池（包括不参与伸缩的只读连接池）最大连接数之和不超过全局预算
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class PoolAutoScaler {
+
+    private final PoolAutoScalingConfig config;
+    private final DataSourceService dataSourceService;
+    private final PoolAcquireMetricsTrackerFactory acquireMetrics;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 每个数据源的伸缩状态
+     */
+    private final Map<String, PoolState> states = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public PoolAutoScaler(PoolAutoScalingConfig config, DataSourceService dataSourceService,
+                          PoolAcquireMetricsTrackerFactory acquireMetrics, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.dataSourceService = dataSourceService;
+        this.acquireMetrics = acquireMetrics;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            log.info("Pool autoscaling is disabled");
+            return;
+        }
+
+        log.info("Pool autoscaling enabled, interval={}s, bounds=[{}, {}], global budget={}",
+                config.getIntervalSeconds(), config.getMinPoolSize(), config.getMaxPoolSize(), config.getGlobalMaxConnections());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Pool-AutoScaler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::safeAdjust, config.getIntervalSeconds(), config.getIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    private void safeAdjust() {
+        try {
+            adjustPools();
+        } catch (Exception e) {
+            log.error("Pool autoscaling round failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行一轮采样与调整
+     */
+    void adjustPools() {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (Map.Entry<String, DataSource> entry : dataSourceService.getAllDataSources().entrySet()) {
+            if (entry.getValue() instanceof HikariDataSource hikari && !hikari.isClosed()) {
+                pools.put(entry.getKey(), hikari);
+            }
+        }
+
+        // 只读连接池不参与伸缩，但同样占用全局预算
+        int budgetUsed = pools.values().stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum()
+                + readOnlyConnections();
+
+        for (Map.Entry<String, HikariDataSource> entry : pools.entrySet()) {
+            String dsName = entry.getKey();
+            HikariDataSource pool = entry.getValue();
+            HikariPoolMXBean poolMXBean = pool.getHikariPoolMXBean();
+            if (poolMXBean == null) {
+                // 连接池尚未启动（从未获取过连接），无需调整
+                continue;
+            }
+
+            PoolState state = states.computeIfAbsent(dsName, k -> registerState(k, pool));
+            PoolAcquireMetricsTrackerFactory.AcquireSnapshot acquire = acquireMetrics.drain(pool.getPoolName());
+            int pending = poolMXBean.getThreadsAwaitingConnection();
+            int active = poolMXBean.getActiveConnections();
+            int currentMax = pool.getMaximumPoolSize();
+
+            state.pending = pending;
+            state.averageAcquireMillis = acquire.averageAcquireMillis();
+
+            boolean underPressure = pending >= config.getScaleUpPendingThreshold()
+                    || acquire.averageAcquireMillis() > config.getScaleUpAcquireMillis()
+                    || acquire.timeouts() > 0;
+            boolean idle = pending == 0
+                    && (double) active / currentMax < config.getScaleDownUtilization()
+                    && acquire.averageAcquireMillis() <= config.getScaleUpAcquireMillis() / 2.0;
+
+            // 迟滞：只有连续多个周期状态一致才调整，中间状态清零计数
+            if (underPressure) {
+                state.upStreak++;
+                state.downStreak = 0;
+            } else if (idle) {
+                state.downStreak++;
+                state.upStreak = 0;
+            } else {
+                state.upStreak = 0;
+                state.downStreak = 0;
+            }
+
+            int lowerBound = config.getMinPoolSize(dsName);
+            int upperBound = config.getMaxPoolSize(dsName);
+
+            if (state.upStreak >= config.getScaleUpAfter() && currentMax < upperBound) {
+                int available = config.getGlobalMaxConnections() - budgetUsed;
+                int newMax = Math.min(upperBound, currentMax + Math.min(config.getStep(), available));
+                if (newMax <= currentMax) {
+                    meterRegistry.counter("mcp.pool.autoscaling.decisions", "pool", dsName, "action", "blocked_by_budget").increment();
+                    log.warn("Datasource [{}] needs more connections but global budget {} is exhausted", dsName, config.getGlobalMaxConnections());
+                } else {
+                    resize(dsName, pool, newMax, "up", pending, acquire);
+                    budgetUsed += newMax - currentMax;
+                }
+                state.upStreak = 0;
+            } else if (state.downStreak >= config.getScaleDownAfter() && currentMax > lowerBound) {
+                int newMax = Math.max(lowerBound, currentMax - config.getStep());
+                resize(dsName, pool, newMax, "down", pending, acquire);
+                budgetUsed -= currentMax - newMax;
+                state.downStreak = 0;
+            }
+        }
+    }
+
+    private int readOnlyConnections() {
+        int connections = 0;
+        for (DataSource dataSource : dataSourceService.getReadOnlyDataSources().values()) {
+            if (dataSource instanceof HikariDataSource hikari && !hikari.isClosed()) {
+                connections += hikari.getMaximumPoolSize();
+            }
+        }
+        return connections;
+    }
+
+    private void resize(String dsName, HikariDataSource pool, int newMax, String action, int pending,
+                        PoolAcquireMetricsTrackerFactory.AcquireSnapshot acquire) {
+        int oldMax = pool.getMaximumPoolSize();
+        int newMinIdle = Math.max(1, Math.min(newMax, (int) Math.round(newMax * config.getMinIdleRatio())));
+
+        // 先调整较小的一侧，保证任意时刻 minimumIdle <= maximumPoolSize
+        if (newMax > oldMax) {
+            pool.getHikariConfigMXBean().setMaximumPoolSize(newMax);
+            pool.getHikariConfigMXBean().setMinimumIdle(newMinIdle);
+        } else {
+            pool.getHikariConfigMXBean().setMinimumIdle(newMinIdle);
+            pool.getHikariConfigMXBean().setMaximumPoolSize(newMax);
+        }
+
+        meterRegistry.counter("mcp.pool.autoscaling.decisions", "pool", dsName, "action", action).increment();
+        log.info("Datasource [{}] pool scaled {}: maximumPoolSize {} -> {}, minimumIdle -> {} (pending={}, avgAcquire={}ms, timeouts={})",
+                dsName, action, oldMax, newMax, newMinIdle, pending,
+                String.format("%.2f", acquire.averageAcquireMillis()), acquire.timeouts());
+    }
+
+    private PoolState registerState(String dsName, HikariDataSource pool) {
+        PoolState state = new PoolState();
+        Gauge.builder("mcp.pool.max.size", pool, HikariDataSource::getMaximumPoolSize).tag("pool", dsName).register(meterRegistry);
+        Gauge.builder("mcp.pool.min.idle", pool, HikariDataSource::getMinimumIdle).tag("pool", dsName).register(meterRegistry);
+        Gauge.builder("mcp.pool.pending", state, s -> s.pending).tag("pool", dsName).register(meterRegistry);
+        Gauge.builder("mcp.pool.acquire.avg.millis", state, s -> s.averageAcquireMillis).tag("pool", dsName).register(meterRegistry);
+        return state;
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 单个连接池的伸缩状态，只在调度线程中修改
+     */
+    private static final class PoolState {
+        private int upStreak;
+        private int downStreak;
+        private volatile int pending;
+        private volatile double averageAcquireMillis;
+    }
+}
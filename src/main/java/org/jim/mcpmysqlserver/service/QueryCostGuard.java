@@ -0,0 +1,342 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.QueryCostGuardConfig;
+import org.jim.mcpmysqlserver.sql.SqlClassification;
+import org.jim.mcpmysqlserver.sql.SqlStatementType;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.jim.mcpmysqlserver.util.LruCache;
+import org.jim.mcpmysqlserver.validator.SqlSecurityValidator.SqlValidationResult;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 查询成本防护
+ * <p>
+ * 在 {@link JdbcExecutor} 执行之前，用数据库方言的 EXPLAIN 获取执行计划（MySQL: EXPLAIN FORMAT=JSON，PostgreSQL: EXPLAIN (FORMAT JSON)，H2: EXPLAIN），
+ * 估算扫描行数、成本和全表扫描次数，超过阈值时按配置拒绝执行或附带警告。
+ * 估算行数限制的是执行计划中扫描和连接节点读取的行数，不是返回的行数：MySQL 的行数估算不考虑 LIMIT，
+ * PostgreSQL Limit 节点下的扫描节点仍按全表估算，因此 LIMIT（包括自动追加的行数限制）不会降低估算行数，
+ * 只有走索引的过滤条件或连接条件才能降低。
+ * 估算结果按数据源和完整的SQL文本缓存，重复执行同一条语句时不会再次 EXPLAIN。不按SQL指纹缓存：
+ * 字面量不同（如日期范围、LIMIT 的行数）时执行计划可能完全不同，指纹只用于安全验证的缓存。
+ * 其他数据库类型、多语句SQL以及不支持 EXPLAIN 的语句直接放行
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class QueryCostGuard {
+
+    private static final Set<DatabaseType> SUPPORTED_TYPES = Set.of(DatabaseType.MYSQL, DatabaseType.POSTGRESQL, DatabaseType.H2);
+
+    private static final Set<String> EXPLAINABLE_VERBS = Set.of("select", "with", "insert", "update", "delete", "replace");
+
+    private static final Set<String> ROW_FIELDS = Set.of("rows_examined_per_scan", "rows_produced_per_join", "estimated_rows", "Plan Rows");
+
+    private final QueryCostGuardConfig config;
+    private final DataSourceService dataSourceService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * (数据源, SQL文本) 到执行计划估算结果的缓存，过期时间记录在估算结果中
+     */
+    private final LruCache<PlanKey, PlanEstimate> planCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    public QueryCostGuard(QueryCostGuardConfig config, DataSourceService dataSourceService, ObjectMapper objectMapper) {
+        this.config = config;
+        this.dataSourceService = dataSourceService;
+        this.objectMapper = objectMapper;
+        this.planCache = new LruCache<>(config.getCacheMaxEntries());
+    }
+
+    @PostConstruct
+    public void bindMetrics() {
+        FunctionCounter.builder("mcp.sql.cost.guard.cache.requests", planCache, LruCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("mcp.sql.cost.guard.cache.requests", planCache, LruCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mcp.sql.cost.guard.cache.size", planCache, LruCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 在数据源上检查查询成本，缓存未命中时从连接池获取一个连接执行 EXPLAIN
+     * @param dataSourceName 数据源名称
+     * @param dataSource 执行 EXPLAIN 的数据源
+     * @param sql 待执行的SQL
+     * @param validation SQL验证结果，提供语句分类
+     * @return 检查结果
+     */
+    public CostVerdict check(String dataSourceName, DataSource dataSource, String sql, SqlValidationResult validation) {
+        return check(dataSourceName, sql, validation, databaseType -> {
+            try (Connection conn = dataSource.getConnection()) {
+                return explain(conn, databaseType, sql);
+            }
+        });
+    }
+
+    /**
+     * 在会话固定的连接上检查查询成本，使会话中创建的临时表也能生成执行计划
+     * @param dataSourceName 数据源名称
+     * @param connection 会话连接，检查后不关闭
+     * @param sql 待执行的SQL
+     * @param validation SQL验证结果，提供语句分类
+     * @return 检查结果
+     */
+    public CostVerdict check(String dataSourceName, Connection connection, String sql, SqlValidationResult validation) {
+        return check(dataSourceName, sql, validation, databaseType -> explain(connection, databaseType, sql));
+    }
+
+    private CostVerdict check(String dataSourceName, String sql, SqlValidationResult validation, PlanLoader loader) {
+        QueryCostGuardConfig.Limits limits = config.getLimits(dataSourceName);
+        if (!limits.enabled() || !isExplainable(validation)) {
+            return CostVerdict.PASS;
+        }
+        DatabaseType databaseType = dataSourceService.getDatabaseType(dataSourceName);
+        if (!SUPPORTED_TYPES.contains(databaseType)) {
+            return CostVerdict.PASS;
+        }
+
+        PlanKey key = new PlanKey(dataSourceName, sql);
+        PlanEstimate estimate = planCache.get(key);
+        long now = System.currentTimeMillis();
+        if (estimate == null || now - estimate.createdAtMillis() > config.getCacheTtlSeconds() * 1000L) {
+            try {
+                estimate = loader.load(databaseType);
+            } catch (SQLException | JsonProcessingException e) {
+                // EXPLAIN 失败（如表不存在、语法错误）时放行，由实际执行返回错误；同样缓存，避免重复 EXPLAIN
+                log.warn("EXPLAIN failed on datasource [{}], cost guard skipped: {}", dataSourceName, e.getMessage());
+                estimate = PlanEstimate.unavailable(now);
+            }
+            planCache.put(key, estimate);
+        }
+
+        CostVerdict verdict = evaluate(dataSourceName, estimate, limits);
+        meterRegistry.counter("mcp.sql.cost.guard.checks", "datasource", dataSourceName, "outcome", verdict.outcome()).increment();
+        if (verdict.message() != null) {
+            log.warn("{} SQL: {}", verdict.message(), sql);
+        }
+        return verdict;
+    }
+
+    /**
+     * 只检查单条查询或 DML 语句。EXPLAIN 本身不会执行被解释的语句
+     */
+    private boolean isExplainable(SqlValidationResult validation) {
+        SqlClassification classification = validation.classification();
+        if (validation.fingerprint() == null || classification.multiStatement() || classification.statements().isEmpty()) {
+            return false;
+        }
+        SqlClassification.Statement statement = classification.statements().get(0);
+        return (statement.type() == SqlStatementType.QUERY || statement.type() == SqlStatementType.DML)
+                && EXPLAINABLE_VERBS.contains(statement.verb());
+    }
+
+    CostVerdict evaluate(String dataSourceName, PlanEstimate estimate, QueryCostGuardConfig.Limits limits) {
+        if (!estimate.available()) {
+            return CostVerdict.PASS;
+        }
+        List<String> violations = new ArrayList<>();
+        if (limits.maxEstimatedRows() > 0 && estimate.estimatedRows() > limits.maxEstimatedRows()) {
+            violations.add(String.format("estimated rows %.0f exceed the limit of %d", estimate.estimatedRows(), limits.maxEstimatedRows()));
+        }
+        if (limits.maxCost() > 0 && estimate.cost() > limits.maxCost()) {
+            violations.add(String.format("estimated cost %.2f exceeds the limit of %.2f", estimate.cost(), limits.maxCost()));
+        }
+        if (limits.maxFullTableScans() > 0 && estimate.fullTableScans() > limits.maxFullTableScans()) {
+            violations.add(String.format("%d full table scans exceed the limit of %d", estimate.fullTableScans(), limits.maxFullTableScans()));
+        }
+        if (violations.isEmpty()) {
+            return new CostVerdict(false, null, estimate, limits);
+        }
+        String message = "Query plan on datasource [" + dataSourceName + "] " + String.join(", ", violations) + ".";
+        return new CostVerdict(limits.action() == QueryCostGuardConfig.Action.BLOCK, message, estimate, limits);
+    }
+
+    /**
+     * 执行 EXPLAIN 并解析执行计划。PostgreSQL 在事务中执行失败会使整个事务中止，因此在非自动提交的连接上用保存点包裹
+     */
+    private PlanEstimate explain(Connection conn, DatabaseType databaseType, String sql) throws SQLException, JsonProcessingException {
+        String explainSql = switch (databaseType) {
+            case MYSQL -> "EXPLAIN FORMAT=JSON " + sql;
+            case POSTGRESQL -> "EXPLAIN (FORMAT JSON) " + sql;
+            default -> "EXPLAIN " + sql;
+        };
+        Savepoint savepoint = databaseType == DatabaseType.POSTGRESQL && !conn.getAutoCommit() ? conn.setSavepoint() : null;
+        StringBuilder plan = new StringBuilder();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(config.getExplainTimeoutSeconds());
+            try (ResultSet rs = stmt.executeQuery(explainSql)) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                conn.rollback(savepoint);
+            }
+            throw e;
+        }
+        if (savepoint != null) {
+            conn.releaseSavepoint(savepoint);
+        }
+
+        long now = System.currentTimeMillis();
+        if (databaseType == DatabaseType.H2) {
+            return parseH2Plan(plan.toString(), now);
+        }
+        return parseJsonPlan(databaseType, plan.toString(), now);
+    }
+
+    /**
+     * 解析 MySQL 或 PostgreSQL 的 JSON 执行计划：成本取根节点的估算，行数取各节点估算行数的最大值
+     */
+    PlanEstimate parseJsonPlan(DatabaseType databaseType, String plan, long now) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(plan);
+        double cost = databaseType == DatabaseType.MYSQL
+                ? root.path("query_block").path("cost_info").path("query_cost").asDouble(root.path("estimated_total_cost").asDouble(-1))
+                : root.path(0).path("Plan").path("Total Cost").asDouble(-1);
+        PlanStats stats = new PlanStats();
+        collect(root, stats);
+        return new PlanEstimate(true, cost, stats.maxRows, stats.fullTableScans, now);
+    }
+
+    /**
+     * 遍历 JSON 执行计划的所有节点，取各节点估算行数的最大值并统计全表扫描次数。
+     * MySQL 连接节点的 rows_produced_per_join 和 PostgreSQL 连接节点的 Plan Rows 已包含连接放大后的行数；
+     * PostgreSQL Limit 节点的行数不大于其下的扫描节点，取最大值时不影响结果
+     */
+    private void collect(JsonNode node, PlanStats stats) {
+        if (node.isArray()) {
+            node.forEach(child -> collect(child, stats));
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        if (isFullTableScan(node)) {
+            stats.fullTableScans++;
+        }
+        node.fields().forEachRemaining(field -> {
+            if (ROW_FIELDS.contains(field.getKey()) && field.getValue().isValueNode()) {
+                stats.maxRows = Math.max(stats.maxRows, field.getValue().asDouble(0));
+            } else {
+                collect(field.getValue(), stats);
+            }
+        });
+    }
+
+    private boolean isFullTableScan(JsonNode node) {
+        // MySQL 8.0 以前的 JSON 格式、MySQL 8.3+ 的 JSON 格式第二版、PostgreSQL
+        String accessType = node.path("access_type").asText();
+        return "ALL".equals(accessType)
+                || ("table".equals(accessType) && node.path("operation").asText().startsWith("Table scan"))
+                || "Seq Scan".equals(node.path("Node Type").asText());
+    }
+
+    /**
+     * H2 的 EXPLAIN 只输出带注释的执行计划，没有行数和成本估算，只统计 tableScan 次数
+     */
+    private PlanEstimate parseH2Plan(String plan, long now) {
+        int fullTableScans = 0;
+        for (int i = plan.indexOf(".tableScan"); i >= 0; i = plan.indexOf(".tableScan", i + 1)) {
+            fullTableScans++;
+        }
+        return new PlanEstimate(true, -1, -1, fullTableScans, now);
+    }
+
+    @FunctionalInterface
+    private interface PlanLoader {
+        PlanEstimate load(DatabaseType databaseType) throws SQLException, JsonProcessingException;
+    }
+
+    private static final class PlanStats {
+        private double maxRows = -1;
+        private int fullTableScans;
+    }
+
+    private record PlanKey(String dataSourceName, String sql) {
+    }
+
+    /**
+     * 执行计划估算结果
+     * @param available EXPLAIN 是否成功
+     * @param cost 估算成本，数据库不提供时为 -1
+     * @param estimatedRows 各节点估算读取行数的最大值，不随 LIMIT 降低，数据库不提供时为 -1
+     * @param fullTableScans 全表扫描次数
+     * @param createdAtMillis 估算时间，用于缓存过期判断
+     */
+    public record PlanEstimate(boolean available, double cost, double estimatedRows, int fullTableScans, long createdAtMillis) {
+
+        static PlanEstimate unavailable(long now) {
+            return new PlanEstimate(false, -1, -1, 0, now);
+        }
+    }
+
+    /**
+     * 查询成本检查结果
+     * @param blocked 是否拒绝执行
+     * @param message 超过阈值时的说明，未超过时为 null
+     * @param estimate 执行计划估算结果，未检查时为 null
+     * @param limits 生效的防护规则，未检查时为 null
+     */
+    public record CostVerdict(boolean blocked, String message, PlanEstimate estimate, QueryCostGuardConfig.Limits limits) {
+
+        static final CostVerdict PASS = new CostVerdict(false, null, null, null);
+
+        /**
+         * @return 放行但超过阈值时的警告，没有警告时为空列表
+         */
+        public List<String> warnings() {
+            return blocked || message == null ? List.of() : List.of(message);
+        }
+
+        /**
+         * @return 拒绝执行时返回给调用方的错误信息，包含执行计划估算结果和阈值
+         */
+        public Map<String, Object> toErrorResult() {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("estimated_rows", estimate.estimatedRows() < 0 ? null : (long) estimate.estimatedRows());
+            details.put("estimated_cost", estimate.cost() < 0 ? null : estimate.cost());
+            details.put("full_table_scans", estimate.fullTableScans());
+            details.put("max_estimated_rows", limits.maxEstimatedRows());
+            details.put("max_cost", limits.maxCost());
+            details.put("max_full_table_scans", limits.maxFullTableScans());
+
+            Map<String, Object> errorResult = new LinkedHashMap<>();
+            errorResult.put("error", message + " The query was not executed. Estimated rows count the rows the plan reads, "
+                    + "not the rows it returns, so adding a LIMIT does not lower them. Add selective WHERE conditions on indexed columns "
+                    + "or join conditions, or ask the user to raise the sql.cost-guard thresholds.");
+            errorResult.put("cost_guard", details);
+            return errorResult;
+        }
+
+        String outcome() {
+            if (estimate == null || !estimate.available()) {
+                return "skipped";
+            }
+            return message == null ? "pass" : blocked ? "block" : "warn";
+        }
+    }
+}
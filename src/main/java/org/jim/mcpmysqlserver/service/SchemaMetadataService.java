@@ -0,0 +1,464 @@
+package org.jim.mcpmysqlserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.SchemaCacheConfig;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.jim.mcpmysqlserver.schema.SchemaMetadataLoader;
+import org.jim.mcpmysqlserver.schema.SchemaSearchHit;
+import org.jim.mcpmysqlserver.schema.SchemaSearchIndex;
+import org.jim.mcpmysqlserver.schema.SchemaSnapshot;
+import org.jim.mcpmysqlserver.schema.TableDescription;
+import org.jim.mcpmysqlserver.schema.TableMetadata;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 表结构元数据服务
+ * <p>
+ * 每个数据源的表结构在首次访问时通过只读连接批量加载为内存快照，之后读取不再访问数据库。
+ * 后台定期查询每张表的变更指纹，只重新加载指纹变化或新增的表，并移除已删除的表；
+ * 不支持变更检测的数据库按较长的间隔全量重新加载。表名、列名和注释的模糊搜索索引随快照一起增量更新，
+ * 表结构发生变化时发布 {@link SchemaChangedEvent}
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class SchemaMetadataService {
+
+    private final SchemaCacheConfig config;
+    private final DataSourceService dataSourceService;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 数据源名称到表结构快照的映射
+     */
+    private final Map<String, SchemaSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 每个数据源的加载锁，避免同一数据源被并发加载。持锁期间会执行 JDBC 查询，使用 ReentrantLock 而不是 synchronized，
+     * 虚拟线程等待或持有锁时不会固定（pin）载体线程
+     */
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称到表名到完整结构描述的映射，快照中对应的表对象被替换（表结构变化）后失效
+     */
+    private final Map<String, Map<String, CachedDescription>> descriptions = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称到表结构搜索索引的映射，随快照按表增量更新
+     */
+    private final Map<String, SchemaSearchIndex> searchIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 并行读取表完整结构的线程池
+     */
+    private final ExecutorService describeExecutor;
+
+    private ScheduledExecutorService scheduler;
+
+    public SchemaMetadataService(SchemaCacheConfig config, DataSourceService dataSourceService, MeterRegistry meterRegistry,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.config = config;
+        this.dataSourceService = dataSourceService;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        AtomicInteger counter = new AtomicInteger();
+        this.describeExecutor = Executors.newFixedThreadPool(Math.max(1, config.getDescribeParallelism()), r -> {
+            Thread t = new Thread(r, "Schema-Describe-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            log.info("Schema metadata background refresh is disabled");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Schema-Refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::safeRefresh, config.getRefreshIntervalSeconds(), config.getRefreshIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        describeExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取数据源的表结构快照，首次访问时加载
+     * @param dataSourceName 数据源名称，为空或为"primary"时表示默认数据源
+     * @return 表结构快照
+     * @throws SQLException 加载失败时
+     * @throws IllegalArgumentException 数据源不存在时
+     */
+    public SchemaSnapshot getSnapshot(String dataSourceName) throws SQLException {
+        String dsName = resolveName(dataSourceName);
+        SchemaSnapshot snapshot = snapshots.get(dsName);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        ReentrantLock lock = lock(dsName);
+        lock.lock();
+        try {
+            snapshot = snapshots.get(dsName);
+            if (snapshot == null) {
+                snapshot = loadFull(dsName);
+                publish(snapshot);
+                registerGauge(dsName);
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 丢弃数据源的快照，下次访问时重新加载
+     * @param dataSourceName 数据源名称
+     */
+    public void invalidate(String dataSourceName) {
+        String dsName = resolveName(dataSourceName);
+        snapshots.remove(dsName);
+        descriptions.remove(dsName);
+        searchIndexes.remove(dsName);
+    }
+
+    /**
+     * 获取多张表的完整结构，包括列、主键、索引和外键
+     * <p>
+     * 表结构变化前重复读取直接返回缓存；未缓存的表分给最多 describeParallelism 个连接并行读取，每个连接依次读取分配给它的表
+     * @param dataSourceName 数据源名称，为空或为"primary"时表示默认数据源
+     * @param tableNames 表名，不区分大小写
+     * @return 按请求顺序排列的表名到 {@link TableDescription} 的映射，读取失败或表不存在时值为 {"error": ...}
+     * @throws SQLException 加载表结构快照失败时
+     * @throws IllegalArgumentException 数据源不存在或表数超过 describeMaxTables 时
+     */
+    public Map<String, Object> describeTables(String dataSourceName, List<String> tableNames) throws SQLException {
+        if (tableNames.size() > config.getDescribeMaxTables()) {
+            throw new IllegalArgumentException("At most " + config.getDescribeMaxTables() + " tables can be described in one call, got " + tableNames.size());
+        }
+        SchemaSnapshot snapshot = getSnapshot(dataSourceName);
+        String dsName = snapshot.dataSourceName();
+        Map<String, CachedDescription> cache = descriptions.computeIfAbsent(dsName, k -> new ConcurrentHashMap<>());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<TableMetadata> pending = new ArrayList<>();
+        for (String tableName : tableNames) {
+            TableMetadata table = snapshot.table(tableName);
+            if (table == null) {
+                result.put(tableName, Map.of("error", "Table not found: " + tableName));
+                continue;
+            }
+            CachedDescription cached = cache.get(table.name());
+            if (cached != null && cached.source() == table) {
+                result.put(tableName, cached.description());
+            } else {
+                result.put(tableName, null);
+                if (!pending.contains(table)) {
+                    pending.add(table);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+
+        // 按轮询把表分给各个连接
+        int parallelism = Math.min(pending.size(), Math.max(1, config.getDescribeParallelism()));
+        List<List<TableMetadata>> groups = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            groups.get(i % parallelism).add(pending.get(i));
+        }
+
+        DataSource dataSource = dataSourceService.getDataSource(dsName, true);
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        for (List<TableMetadata> group : groups) {
+            futures.add(describeExecutor.submit(() -> describeGroup(dataSource, group, cache)));
+        }
+        Map<String, Object> described = new HashMap<>();
+        for (Future<Map<String, Object>> future : futures) {
+            try {
+                described.putAll(future.get());
+            } catch (ExecutionException e) {
+                log.error("Failed to describe tables of datasource [{}]: {}", dsName, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while describing tables");
+            }
+        }
+        result.replaceAll((tableName, value) -> {
+            if (value != null) {
+                return value;
+            }
+            Object description = described.get(snapshot.table(tableName).name());
+            return description != null ? description : Map.of("error", "Failed to describe table: " + tableName);
+        });
+        return result;
+    }
+
+    /**
+     * 按名称和注释模糊搜索表和列
+     * @param dataSourceName 数据源名称，为空时搜索所有数据源（未加载的数据源先加载表结构）
+     * @param query 查询文本，如 order item、订单
+     * @param limit 最多返回的条数
+     * @return 按相似度从高到低排列的结果
+     * @throws SQLException 指定的数据源加载表结构失败时
+     * @throws IllegalArgumentException 指定的数据源不存在时
+     */
+    public List<SchemaSearchHit> searchSchema(String dataSourceName, String query, int limit) throws SQLException {
+        List<String> dsNames = new ArrayList<>();
+        if (dataSourceName == null || dataSourceName.isEmpty()) {
+            dsNames.addAll(dataSourceService.getDataSourceNames());
+        } else {
+            dsNames.add(getSnapshot(dataSourceName).dataSourceName());
+        }
+
+        List<SchemaSearchHit> hits = new ArrayList<>();
+        for (String dsName : dsNames) {
+            SchemaSearchIndex index = searchIndexes.get(dsName);
+            if (index == null) {
+                try {
+                    getSnapshot(dsName);
+                } catch (SQLException e) {
+                    log.warn("Skipping datasource [{}] in schema search: {}", dsName, e.getMessage());
+                    continue;
+                }
+                index = searchIndexes.get(dsName);
+            }
+            if (index != null) {
+                hits.addAll(index.search(query, limit));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(SchemaSearchHit::score).reversed());
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 在一个连接上依次读取一组表的完整结构
+     */
+    private Map<String, Object> describeGroup(DataSource dataSource, List<TableMetadata> group, Map<String, CachedDescription> cache) {
+        Map<String, Object> described = new HashMap<>();
+        try (Connection conn = dataSource.getConnection()) {
+            for (TableMetadata table : group) {
+                try {
+                    TableDescription description = SchemaMetadataLoader.describe(conn, table);
+                    cache.put(table.name(), new CachedDescription(table, description));
+                    described.put(table.name(), description);
+                } catch (SQLException e) {
+                    log.warn("Failed to describe table [{}]: {}", table.name(), e.getMessage());
+                    described.put(table.name(), Map.of("error", e.getMessage()));
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to get connection for describing tables: {}", e.getMessage());
+            group.forEach(table -> described.put(table.name(), Map.of("error", String.valueOf(e.getMessage()))));
+        }
+        return described;
+    }
+
+    private void safeRefresh() {
+        for (String dsName : List.copyOf(snapshots.keySet())) {
+            ReentrantLock lock = lock(dsName);
+            lock.lock();
+            try {
+                refresh(dsName);
+            } catch (Exception e) {
+                record(dsName, "error");
+                log.warn("Failed to refresh schema metadata of datasource [{}]: {}", dsName, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock lock(String dsName) {
+        return locks.computeIfAbsent(dsName, k -> new ReentrantLock());
+    }
+
+    /**
+     * 刷新一个已加载的数据源：比较变更指纹，只重新加载变化的表
+     */
+    void refresh(String dsName) throws SQLException {
+        SchemaSnapshot current = snapshots.get(dsName);
+        if (current == null) {
+            return;
+        }
+
+        DatabaseType databaseType = current.databaseType();
+        try (Connection conn = dataSourceService.getDataSource(dsName, true).getConnection()) {
+            Map<String, String> fingerprints = SchemaMetadataLoader.fingerprints(conn, databaseType);
+            if (fingerprints == null) {
+                // 不支持变更检测，按全量间隔重新加载
+                int interval = config.getFullReloadIntervalSeconds();
+                if (interval > 0 && Duration.between(current.loadedAt(), Instant.now()).getSeconds() >= interval) {
+                    Map<String, TableMetadata> loaded = SchemaMetadataLoader.load(conn, databaseType, null, null);
+                    // 未变化的表沿用原来的表对象，其完整结构缓存和搜索索引保持有效
+                    Map<String, TableMetadata> tables = new TreeMap<>();
+                    List<String> changedTables = new ArrayList<>();
+                    loaded.forEach((table, metadata) -> {
+                        TableMetadata cached = current.tables().get(table);
+                        if (metadata.equals(cached)) {
+                            tables.put(table, cached);
+                        } else {
+                            tables.put(table, metadata);
+                            changedTables.add(table);
+                        }
+                    });
+                    List<String> droppedTables = current.tables().keySet().stream().filter(table -> !tables.containsKey(table)).toList();
+                    boolean changed = !changedTables.isEmpty() || !droppedTables.isEmpty();
+                    long version = changed ? current.version() + 1 : current.version();
+                    publish(new SchemaSnapshot(dsName, databaseType, changed ? tables : current.tables(), version, Instant.now()));
+                    pruneDescriptions(dsName, tables);
+                    record(dsName, changed ? "reloaded" : "unchanged");
+                    if (changed) {
+                        eventPublisher.publishEvent(new SchemaChangedEvent(dsName, version, changedTables, droppedTables));
+                    }
+                }
+                return;
+            }
+
+            List<String> changedTables = new ArrayList<>();
+            fingerprints.forEach((table, fingerprint) -> {
+                TableMetadata cached = current.tables().get(table);
+                if (cached == null || !Objects.equals(cached.fingerprint(), fingerprint)) {
+                    changedTables.add(table);
+                }
+            });
+            List<String> droppedTables = current.tables().keySet().stream().filter(table -> !fingerprints.containsKey(table)).toList();
+            if (changedTables.isEmpty() && droppedTables.isEmpty()) {
+                publish(new SchemaSnapshot(dsName, databaseType, current.tables(), current.version(), Instant.now()));
+                record(dsName, "unchanged");
+                return;
+            }
+
+            Map<String, TableMetadata> tables = new TreeMap<>(current.tables());
+            droppedTables.forEach(tables::remove);
+            if (!changedTables.isEmpty()) {
+                tables.putAll(SchemaMetadataLoader.load(conn, databaseType, changedTables, fingerprints));
+            }
+            publish(new SchemaSnapshot(dsName, databaseType, tables, current.version() + 1, Instant.now()));
+            pruneDescriptions(dsName, tables);
+            record(dsName, "updated");
+            log.info("Schema metadata of datasource [{}] updated: {} tables changed, {} tables dropped",
+                    dsName, changedTables.size(), droppedTables.size());
+            eventPublisher.publishEvent(new SchemaChangedEvent(dsName, current.version() + 1, changedTables, droppedTables));
+        }
+    }
+
+    /**
+     * 替换数据源的快照并增量更新搜索索引
+     */
+    private void publish(SchemaSnapshot snapshot) {
+        snapshots.put(snapshot.dataSourceName(), snapshot);
+        searchIndexes.computeIfAbsent(snapshot.dataSourceName(), SchemaSearchIndex::new).update(snapshot.tables());
+    }
+
+    /**
+     * 移除已删除的表的完整结构缓存，变化的表在下次读取时按表对象判断失效
+     */
+    private void pruneDescriptions(String dsName, Map<String, TableMetadata> tables) {
+        Map<String, CachedDescription> cache = descriptions.get(dsName);
+        if (cache != null) {
+            cache.keySet().retainAll(tables.keySet());
+        }
+    }
+
+    private SchemaSnapshot loadFull(String dsName) throws SQLException {
+        DatabaseType databaseType = dataSourceService.getDatabaseType(dsName);
+        long start = System.currentTimeMillis();
+        try (Connection conn = dataSourceService.getDataSource(dsName, true).getConnection()) {
+            Map<String, String> fingerprints = SchemaMetadataLoader.fingerprints(conn, databaseType);
+            Map<String, TableMetadata> tables = SchemaMetadataLoader.load(conn, databaseType, null, fingerprints);
+            record(dsName, "loaded");
+            log.info("Loaded schema metadata of datasource [{}]: {} tables in {}ms", dsName, tables.size(), System.currentTimeMillis() - start);
+            return new SchemaSnapshot(dsName, databaseType, tables, 1, Instant.now());
+        } catch (SQLException e) {
+            record(dsName, "error");
+            throw e;
+        }
+    }
+
+    /**
+     * 把数据源名称解析为配置中的名称，为空或为"primary"时为默认数据源。与 CatalogService 一致拒绝未配置的名称，
+     * 不像 DataSourceService 那样回退到默认数据源，避免把默认数据源的表结构当作所请求数据源的返回
+     */
+    private String resolveName(String dataSourceName) {
+        if (dataSourceName == null || dataSourceName.isEmpty() || "primary".equals(dataSourceName)) {
+            String defaultDsName = dataSourceService.getDefaultDataSourceName();
+            return defaultDsName != null ? defaultDsName : "primary";
+        }
+        if (!dataSourceService.getDataSourceNames().contains(dataSourceName)) {
+            throw new IllegalArgumentException("Datasource not found: " + dataSourceName);
+        }
+        return dataSourceName;
+    }
+
+    private void registerGauge(String dsName) {
+        Gauge.builder("mcp.schema.tables", snapshots, s -> {
+                    SchemaSnapshot snapshot = s.get(dsName);
+                    return snapshot == null ? 0 : snapshot.tables().size();
+                })
+                .tag("datasource", dsName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存的表完整结构
+     * @param source 生成描述时快照中的表对象，表结构未变化时刷新后仍是同一个对象
+     * @param description 完整结构描述
+     */
+    private record CachedDescription(TableMetadata source, TableDescription description) {
+    }
+
+    private void record(String dsName, String outcome) {
+        Counter.builder("mcp.schema.refresh")
+                .tag("datasource", dsName)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,245 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.jim.mcpmysqlserver.config.SqlSessionConfig;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * SQL会话服务
+ * 为一个会话固定一个数据库连接，使临时表、SET 变量、未提交事务和 USE db 等会话状态在多次工具调用之间保留
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class SqlSessionService {
+
+    private final SqlSessionConfig sqlSessionConfig;
+    private final DataSourceService dataSourceService;
+
+    /**
+     * 会话ID到固定连接的映射
+     */
+    private final Map<String, PinnedSession> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reaper;
+
+    public SqlSessionService(SqlSessionConfig sqlSessionConfig, DataSourceService dataSourceService) {
+        this.sqlSessionConfig = sqlSessionConfig;
+        this.dataSourceService = dataSourceService;
+    }
+
+    @PostConstruct
+    public void init() {
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Sql-Session-Reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, Math.min(60, sqlSessionConfig.getIdleTimeoutSeconds() / 4));
+        reaper.scheduleWithFixedDelay(this::closeIdleSessions, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 开启会话，从数据源中借出一个连接并固定到该会话
+     * @param dataSourceName 数据源名称，为空时使用默认数据源
+     * @return 会话信息
+     * @throws SQLException 获取连接失败
+     * @throws IllegalArgumentException 数据源不存在时
+     */
+    public SessionInfo beginSession(String dataSourceName) throws SQLException {
+        String dsName;
+        if (StringUtils.isBlank(dataSourceName) || "primary".equals(dataSourceName)) {
+            String defaultDsName = dataSourceService.getDefaultDataSourceName();
+            dsName = defaultDsName != null ? defaultDsName : "primary";
+        } else if (dataSourceService.getDataSourceNames().contains(dataSourceName)) {
+            dsName = dataSourceName;
+        } else {
+            // getDataSource 对未知名称回退到默认数据源，这里必须拒绝，否则会话会以错误的名称占用默认数据源的名额
+            throw new IllegalArgumentException("Datasource not found: " + dataSourceName);
+        }
+
+        DataSource dataSource = dataSourceService.getDataSource(dsName);
+
+        // 先占位再借连接，避免并发开启会话时突破上限
+        String sessionId = UUID.randomUUID().toString();
+        PinnedSession session = new PinnedSession(sessionId, dsName, dataSource);
+        synchronized (sessions) {
+            long pinned = sessions.values().stream().filter(s -> s.dataSourceName.equals(dsName)).count();
+            if (pinned >= sqlSessionConfig.getMaxSessionsPerDataSource()) {
+                throw new IllegalStateException("Too many open sessions on datasource [" + dsName + "] (max "
+                        + sqlSessionConfig.getMaxSessionsPerDataSource() + "), end an existing session first");
+            }
+            sessions.put(sessionId, session);
+        }
+
+        try {
+            session.connection = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            sessions.remove(sessionId);
+            throw e;
+        }
+
+        log.info("Session [{}] started on datasource [{}]", sessionId, dsName);
+        return session.toInfo(sqlSessionConfig.getIdleTimeoutSeconds());
+    }
+
+    /**
+     * 结束会话，回滚未提交事务并释放连接
+     * @param sessionId 会话ID
+     * @return 会话是否存在
+     */
+    public boolean endSession(String sessionId) {
+        PinnedSession session = sessionId == null ? null : sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        session.lock.lock();
+        try {
+            release(session);
+        } finally {
+            session.lock.unlock();
+        }
+        log.info("Session [{}] on datasource [{}] ended", sessionId, session.dataSourceName);
+        return true;
+    }
+
+    /**
+     * 在会话固定的连接上执行操作，同一会话的调用串行执行
+     * @param sessionId 会话ID
+     * @param action 使用连接的操作
+     * @return 操作结果
+     */
+    public <T> T withSession(String sessionId, Function<Connection, T> action) {
+        PinnedSession session = getSession(sessionId);
+        session.lock.lock();
+        try {
+            if (!sessions.containsKey(sessionId)) {
+                throw new IllegalArgumentException("Session [" + sessionId + "] has ended");
+            }
+            session.lastUsedMillis = System.currentTimeMillis();
+            return action.apply(session.connection);
+        } finally {
+            session.lastUsedMillis = System.currentTimeMillis();
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * 获取会话所属的数据源名称
+     * @param sessionId 会话ID
+     * @return 数据源名称
+     */
+    public String getSessionDataSourceName(String sessionId) {
+        return getSession(sessionId).dataSourceName;
+    }
+
+    /**
+     * 列出当前所有会话
+     * @return 会话信息列表
+     */
+    public List<SessionInfo> listSessions() {
+        List<SessionInfo> infos = new ArrayList<>();
+        sessions.values().forEach(s -> infos.add(s.toInfo(sqlSessionConfig.getIdleTimeoutSeconds())));
+        return infos;
+    }
+
+    private PinnedSession getSession(String sessionId) {
+        PinnedSession session = sessionId == null ? null : sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Session [" + sessionId + "] not found or expired, call beginSession to start a new one");
+        }
+        return session;
+    }
+
+    void closeIdleSessions() {
+        long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(sqlSessionConfig.getIdleTimeoutSeconds());
+        sessions.values().stream()
+                .filter(s -> s.lastUsedMillis < deadline && !s.lock.isLocked())
+                .map(s -> s.sessionId)
+                .toList()
+                .forEach(sessionId -> {
+                    log.info("Session [{}] idle for more than {}s, closing", sessionId, sqlSessionConfig.getIdleTimeoutSeconds());
+                    endSession(sessionId);
+                });
+    }
+
+    /**
+     * 释放会话连接。会话状态（临时表、会话变量）不能带回连接池，因此对 Hikari 连接直接驱逐
+     */
+    private void release(PinnedSession session) {
+        Connection connection = session.connection;
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.isClosed() && !connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to rollback session [{}]: {}", session.sessionId, e.getMessage());
+        }
+
+        try {
+            if (session.dataSource instanceof HikariDataSource hikari) {
+                hikari.evictConnection(connection);
+            } else {
+                connection.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to release connection of session [{}]: {}", session.sessionId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (reaper != null && !reaper.isShutdown()) {
+            reaper.shutdownNow();
+        }
+        new ArrayList<>(sessions.keySet()).forEach(this::endSession);
+    }
+
+    private static final class PinnedSession {
+        private final String sessionId;
+        private final String dataSourceName;
+        private final DataSource dataSource;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long createdMillis = System.currentTimeMillis();
+        private volatile Connection connection;
+        private volatile long lastUsedMillis = createdMillis;
+
+        private PinnedSession(String sessionId, String dataSourceName, DataSource dataSource) {
+            this.sessionId = sessionId;
+            this.dataSourceName = dataSourceName;
+            this.dataSource = dataSource;
+        }
+
+        private SessionInfo toInfo(int idleTimeoutSeconds) {
+            return new SessionInfo(sessionId, dataSourceName, createdMillis, lastUsedMillis, idleTimeoutSeconds);
+        }
+    }
+
+    /**
+     * 会话信息
+     */
+    public record SessionInfo(String sessionId, String dataSourceName, long createdAt, long lastUsedAt,
+                              int idleTimeoutSeconds) {
+    }
+}
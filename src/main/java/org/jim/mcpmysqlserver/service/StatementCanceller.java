@@ -0,0 +1,65 @@
+package org.jim.mcpmysqlserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 正在执行的 JDBC 语句登记表
+ * <p>
+ * 执行语句的线程在执行前登记、结束后注销。调用被取消或超时时按线程取消它正在执行的语句（Statement.cancel），
+ * 让数据库停止执行，而不是只中断线程后让查询继续在数据库中运行
+ * @author yangxin
+ */
+@Component
+@Slf4j
+public class StatementCanceller {
+
+    private final Map<Thread, Set<Statement>> running = new ConcurrentHashMap<>();
+
+    /**
+     * 登记当前线程正在执行的语句
+     * @param statement 语句
+     */
+    public void register(Statement statement) {
+        running.computeIfAbsent(Thread.currentThread(), t -> ConcurrentHashMap.newKeySet()).add(statement);
+    }
+
+    /**
+     * 注销当前线程的语句
+     * @param statement 语句
+     */
+    public void unregister(Statement statement) {
+        running.computeIfPresent(Thread.currentThread(), (t, statements) -> {
+            statements.remove(statement);
+            return statements.isEmpty() ? null : statements;
+        });
+    }
+
+    /**
+     * 取消线程正在执行的所有语句
+     * @param thread 执行语句的线程
+     * @return 取消的语句数
+     */
+    public int cancel(Thread thread) {
+        Set<Statement> statements = running.get(thread);
+        if (statements == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+                cancelled++;
+            } catch (SQLException e) {
+                log.warn("Failed to cancel statement on thread {}: {}", thread.getName(), e.getMessage());
+            }
+        }
+        return cancelled;
+    }
+}
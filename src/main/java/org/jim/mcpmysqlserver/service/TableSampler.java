@@ -0,0 +1,360 @@
+package org.jim.mcpmysqlserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jim.mcpmysqlserver.config.TableSampleConfig;
+import org.jim.mcpmysqlserver.schema.ColumnMetadata;
+import org.jim.mcpmysqlserver.schema.SchemaMetadataLoader;
+import org.jim.mcpmysqlserver.schema.SchemaSnapshot;
+import org.jim.mcpmysqlserver.schema.TableMetadata;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 表抽样服务，以有界的代价取出有代表性的行，代替只能看到前几页数据的 SELECT * ... LIMIT
+ * <p>
+ * 支持的方式：
+ * <ul>
+ *     <li>system / bernoulli：PostgreSQL TABLESAMPLE，按估算行数计算抽样比例，返回行数不足时放大比例重试，再从结果中均匀抽取</li>
+ *     <li>pk：单列整数主键在最小值和最大值之间随机取值，每个值用 pk >= ? ORDER BY pk LIMIT 1 走主键索引取一行。
+ *     主键空洞后的第一行被取到的概率更高，适用于主键基本连续的大表</li>
+ *     <li>reservoir：流式读取整张表做蓄水池抽样（Algorithm R），最多读取 scanCap 行</li>
+ * </ul>
+ * auto 对估算行数不超过 scanCap 的表使用 reservoir；更大的表在 PostgreSQL 上使用 system，在 MySQL 上有单列整数主键时使用 pk，否则使用 reservoir。
+ * 估算行数在每次抽样时从统计信息重新读取，读取不到时使用表结构快照中的值
+ * @author yangxin
+ */
+@Service
+@Slf4j
+public class TableSampler {
+
+    /**
+     * 一条 UNION ALL 语句中的主键探测次数
+     */
+    private static final int PROBES_PER_STATEMENT = 100;
+
+    /**
+     * 返回行数不足时最多尝试的轮数
+     */
+    private static final int MAX_ROUNDS = 3;
+
+    /**
+     * 非 MySQL 数据库流式读取时每次获取的行数
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    private static final Set<String> INTEGER_TYPES = Set.of("tinyint", "smallint", "mediumint", "int", "integer", "bigint",
+            "int2", "int4", "int8", "serial", "smallserial", "bigserial");
+
+    /**
+     * 抽样方式
+     */
+    public enum Method {
+        AUTO, SYSTEM, BERNOULLI, PK, RESERVOIR;
+
+        /**
+         * 按名称解析抽样方式，不区分大小写
+         * @param name 名称，为空时为 AUTO
+         * @return 抽样方式
+         * @throws IllegalArgumentException 名称无法识别时
+         */
+        public static Method parse(String name) {
+            if (name == null || name.isBlank()) {
+                return AUTO;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown sampling method: " + name + ", expected one of "
+                        + Arrays.stream(values()).map(m -> m.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+            }
+        }
+    }
+
+    /**
+     * 抽样结果
+     * @param dataSourceName 数据源名称
+     * @param table 表名
+     * @param method 实际使用的抽样方式
+     * @param estimatedRows 统计信息中的估算行数，未知时为 null
+     * @param scanned 读取的行数，pk 方式为探测取回的行数
+     * @param scanCapped 是否因达到 scanCap 停止读取，为 true 时结果只代表表的前 scanCap 行
+     * @param rows 抽到的行
+     */
+    public record Sample(String dataSourceName, String table, Method method, Long estimatedRows, long scanned,
+                         boolean scanCapped, List<Map<String, Object>> rows) {
+    }
+
+    private record Reservoir(List<Map<String, Object>> rows, long scanned, boolean capped) {
+    }
+
+    private final TableSampleConfig config;
+    private final DataSourceService dataSourceService;
+    private final SchemaMetadataService schemaMetadataService;
+    private final StatementCanceller statementCanceller;
+
+    public TableSampler(TableSampleConfig config, DataSourceService dataSourceService, SchemaMetadataService schemaMetadataService,
+                        StatementCanceller statementCanceller) {
+        this.config = config;
+        this.dataSourceService = dataSourceService;
+        this.schemaMetadataService = schemaMetadataService;
+        this.statementCanceller = statementCanceller;
+    }
+
+    /**
+     * 从表中抽取行
+     * @param dataSourceName 数据源名称，为空或为"primary"时表示默认数据源
+     * @param tableName 表名，不区分大小写
+     * @param rows 抽样行数，为空时使用 defaultRows，最多 maxRows
+     * @param method 抽样方式，当前数据库或表不支持时改用 reservoir
+     * @return 抽样结果
+     * @throws SQLException 加载表结构或执行抽样语句失败时
+     * @throws IllegalArgumentException 数据源或表不存在时
+     */
+    public Sample sample(String dataSourceName, String tableName, Integer rows, Method method) throws SQLException {
+        int n = rows == null || rows <= 0 ? config.getDefaultRows() : Math.min(rows, config.getMaxRows());
+        SchemaSnapshot snapshot = schemaMetadataService.getSnapshot(dataSourceName);
+        TableMetadata table = snapshot.table(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table not found: " + tableName);
+        }
+        DatabaseType type = snapshot.databaseType();
+        ColumnMetadata pkColumn = integerPrimaryKey(table);
+
+        DataSource dataSource = dataSourceService.getDataSource(snapshot.dataSourceName(), true);
+        try (Connection conn = dataSource.getConnection()) {
+            // 行数不参与变更检测，快照中的值可能已经过时
+            Long fresh = SchemaMetadataLoader.estimatedRows(conn, type, table.name());
+            Long estimatedRows = fresh != null ? fresh : table.rows();
+            Method resolved = resolveMethod(method, type, estimatedRows, pkColumn);
+            String from = quote(conn, table.name());
+            Reservoir reservoir = switch (resolved) {
+                case SYSTEM, BERNOULLI -> tableSample(conn, type, from, estimatedRows, resolved, n);
+                case PK -> probePrimaryKey(conn, from, quote(conn, pkColumn.name()), pkColumn.name(), n);
+                default -> reservoir(conn, type, "SELECT * FROM " + from, n);
+            };
+            log.debug("Sampled {} rows from [{}].{} using {}, scanned {}", reservoir.rows().size(), snapshot.dataSourceName(),
+                    table.name(), resolved, reservoir.scanned());
+            return new Sample(snapshot.dataSourceName(), table.name(), resolved, estimatedRows, reservoir.scanned(),
+                    reservoir.capped(), reservoir.rows());
+        }
+    }
+
+    /**
+     * 确定实际使用的抽样方式，指定的方式在当前数据库或表上不可用时改用 reservoir
+     * @param method 请求的抽样方式
+     * @param type 数据库类型
+     * @param estimatedRows 估算行数，未知时为 null
+     * @param pkColumn 单列整数主键，没有时为 null
+     * @return 实际使用的抽样方式
+     */
+    Method resolveMethod(Method method, DatabaseType type, Long estimatedRows, ColumnMetadata pkColumn) {
+        boolean rowsKnown = estimatedRows != null && estimatedRows > 0;
+        boolean tableSample = type == DatabaseType.POSTGRESQL && rowsKnown;
+        boolean pkProbe = pkColumn != null
+                && (type == DatabaseType.MYSQL || type == DatabaseType.POSTGRESQL || type == DatabaseType.H2);
+        return switch (method) {
+            case SYSTEM, BERNOULLI -> tableSample ? method : Method.RESERVOIR;
+            case PK -> pkProbe ? Method.PK : Method.RESERVOIR;
+            case RESERVOIR -> Method.RESERVOIR;
+            case AUTO -> {
+                if (!rowsKnown || estimatedRows <= config.getScanCap()) {
+                    yield Method.RESERVOIR;
+                }
+                if (tableSample) {
+                    yield Method.SYSTEM;
+                }
+                yield type == DatabaseType.MYSQL && pkProbe ? Method.PK : Method.RESERVOIR;
+            }
+        };
+    }
+
+    /**
+     * PostgreSQL TABLESAMPLE 抽样：按估算行数取 n * oversample 行左右，不足 n 行时把比例放大 4 倍重试，再从结果中均匀抽取 n 行
+     */
+    private Reservoir tableSample(Connection conn, DatabaseType type, String from, long estimatedRows, Method method, int n) throws SQLException {
+        double percent = Math.min(100, n * config.getOversample() * 100 / estimatedRows);
+        long scanned = 0;
+        Reservoir reservoir;
+        for (int round = 1; ; round++) {
+            String sql = "SELECT * FROM " + from + " TABLESAMPLE " + method.name() + " (" + String.format(Locale.ROOT, "%.6f", Math.max(percent, 0.000001)) + ")";
+            reservoir = reservoir(conn, type, sql, n);
+            scanned += reservoir.scanned();
+            if (reservoir.rows().size() >= n || percent >= 100 || round >= MAX_ROUNDS) {
+                break;
+            }
+            percent = Math.min(100, percent * 4);
+        }
+        return new Reservoir(reservoir.rows(), scanned, reservoir.capped());
+    }
+
+    /**
+     * 主键随机探测：在主键最小值和最大值之间随机取 (n - 已取到行数) * oversample 个值，每个值取主键不小于它的第一行，
+     * 按主键去重，不足 n 行时再探测，最多 MAX_ROUNDS 轮
+     */
+    private Reservoir probePrimaryKey(Connection conn, String from, String pk, String pkName, int n) throws SQLException {
+        long min;
+        long max;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(" + pk + "), MAX(" + pk + ") FROM " + from)) {
+            rs.next();
+            min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return new Reservoir(List.of(), 0, false);
+            }
+            max = rs.getLong(2);
+        }
+
+        String branch = "(SELECT * FROM " + from + " WHERE " + pk + " >= ? ORDER BY " + pk + " LIMIT 1)";
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Object, Map<String, Object>> picked = new LinkedHashMap<>();
+        long fetched = 0;
+        for (int round = 0; round < MAX_ROUNDS && picked.size() < n; round++) {
+            long[] keys = random.longs((long) Math.ceil((n - picked.size()) * config.getOversample()),
+                    min, max == Long.MAX_VALUE ? max : max + 1).sorted().toArray();
+            for (int start = 0; start < keys.length && picked.size() < n; start += PROBES_PER_STATEMENT) {
+                int to = Math.min(keys.length, start + PROBES_PER_STATEMENT);
+                String sql = String.join(" UNION ALL ", Collections.nCopies(to - start, branch));
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    applyTimeout(stmt);
+                    for (int i = start; i < to; i++) {
+                        stmt.setLong(i - start + 1, keys[i]);
+                    }
+                    statementCanceller.register(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        List<String> labels = labels(rs.getMetaData());
+                        while (rs.next()) {
+                            fetched++;
+                            Object key = rs.getObject(pkName);
+                            if (picked.size() < n && !picked.containsKey(key)) {
+                                picked.put(key, readRow(rs, labels));
+                            }
+                        }
+                    } finally {
+                        statementCanceller.unregister(stmt);
+                    }
+                }
+            }
+        }
+        return new Reservoir(new ArrayList<>(picked.values()), fetched, false);
+    }
+
+    /**
+     * 流式执行查询并做蓄水池抽样，最多读取 scanCap 行
+     */
+    private Reservoir reservoir(Connection conn, DatabaseType type, String sql, int n) throws SQLException {
+        int scanCap = Math.max(1, config.getScanCap());
+        // PostgreSQL 驱动只在事务中按 fetchSize 分批读取，否则一次读入全部结果
+        boolean restoreAutoCommit = type == DatabaseType.POSTGRESQL && conn.getAutoCommit();
+        if (restoreAutoCommit) {
+            conn.setAutoCommit(false);
+        }
+        try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL 驱动只有 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取
+            stmt.setFetchSize(type == DatabaseType.MYSQL ? Integer.MIN_VALUE : FETCH_SIZE);
+            // 多取一行用于判断是否达到上限
+            stmt.setMaxRows(scanCap == Integer.MAX_VALUE ? 0 : scanCap + 1);
+            applyTimeout(stmt);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Map<String, Object>> rows = new ArrayList<>(n);
+            long scanned = 0;
+            boolean capped = false;
+            statementCanceller.register(stmt);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                List<String> labels = labels(rs.getMetaData());
+                while (rs.next()) {
+                    if (scanned == scanCap) {
+                        capped = true;
+                        break;
+                    }
+                    if (scanned < n) {
+                        rows.add(readRow(rs, labels));
+                    } else {
+                        long slot = random.nextLong(scanned + 1);
+                        if (slot < n) {
+                            rows.set((int) slot, readRow(rs, labels));
+                        }
+                    }
+                    scanned++;
+                }
+            } finally {
+                statementCanceller.unregister(stmt);
+            }
+            return new Reservoir(rows, scanned, capped);
+        } finally {
+            if (restoreAutoCommit) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void applyTimeout(Statement stmt) throws SQLException {
+        if (config.getQueryTimeoutSeconds() > 0) {
+            stmt.setQueryTimeout(config.getQueryTimeoutSeconds());
+        }
+    }
+
+    /**
+     * 表的单列整数主键，复合主键或非整数主键时返回 null
+     */
+    static ColumnMetadata integerPrimaryKey(TableMetadata table) {
+        List<ColumnMetadata> keys = table.columns().stream().filter(ColumnMetadata::primaryKey).toList();
+        if (keys.size() != 1 || keys.get(0).type() == null) {
+            return null;
+        }
+        String type = keys.get(0).type().toLowerCase(Locale.ROOT);
+        String baseType = type.split("[\\s(]", 2)[0];
+        // bigint unsigned 超出 long 的范围
+        if (!INTEGER_TYPES.contains(baseType) || (baseType.equals("bigint") && type.contains("unsigned"))) {
+            return null;
+        }
+        return keys.get(0);
+    }
+
+    private static String quote(Connection conn, String identifier) throws SQLException {
+        String quote = conn.getMetaData().getIdentifierQuoteString();
+        if (quote == null || quote.isBlank()) {
+            return identifier;
+        }
+        quote = quote.trim();
+        return quote + identifier.replace(quote, quote + quote) + quote;
+    }
+
+    private static List<String> labels(ResultSetMetaData metaData) throws SQLException {
+        List<String> labels = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        return labels;
+    }
+
+    /**
+     * 读取当前行，与 {@link JdbcExecutor} 一致，NULL 值返回字符串 "NULL"
+     */
+    private static Map<String, Object> readRow(ResultSet rs, List<String> labels) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            Object value = rs.getObject(i + 1);
+            row.putIfAbsent(labels.get(i), value != null ? value : "NULL");
+        }
+        return row;
+    }
+}
@@ -0,0 +1,55 @@
+package org.jim.mcpmysqlserver.sql;
+
+import java.util.List;
+
+/**
+ * SQL分类结果，一条SQL文本中可能包含多条以 ; 分隔的语句
+ * @param statements 按出现顺序排列的语句
+ * @author yangxin
+ */
+public record SqlClassification(List<Statement> statements) {
+
+    private static final SqlClassification EMPTY = new SqlClassification(List.of());
+
+    public SqlClassification {
+        statements = List.copyOf(statements);
+    }
+
+    public static SqlClassification empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 整体类型：单条语句时为该语句类型；多条语句时为第一条非查询语句的类型；没有语句时为 OTHER
+     */
+    public SqlStatementType type() {
+        if (statements.isEmpty()) {
+            return SqlStatementType.OTHER;
+        }
+        return statements.stream()
+                .map(Statement::type)
+                .filter(type -> type != SqlStatementType.QUERY)
+                .findFirst()
+                .orElse(SqlStatementType.QUERY);
+    }
+
+    /**
+     * 是否所有语句都是只读的，可以在只读连接上执行
+     */
+    public boolean readOnly() {
+        return !statements.isEmpty() && statements.stream().allMatch(Statement::readOnly);
+    }
+
+    public boolean multiStatement() {
+        return statements.size() > 1;
+    }
+
+    /**
+     * 单条语句的分类，只取决于语句结构，与字面量无关
+     * @param type 语句类型
+     * @param verb 决定类型的首个关键字（小写），如 select、with、insert
+     * @param readOnly 是否只读。带 FOR UPDATE/FOR SHARE 等加锁子句或 SELECT ... INTO 的查询不是只读的
+     */
+    public record Statement(SqlStatementType type, String verb, boolean readOnly) {
+    }
+}
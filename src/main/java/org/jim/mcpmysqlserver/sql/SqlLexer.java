@@ -0,0 +1,431 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.sql.SqlTokens.Type;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+/**
+ * SQL词法分析器
+ * <p>
+ * 按数据库方言一次遍历 SQL 字符序列，识别字符串字面量、引号标识符、注释和语句分隔符，
+ * 结果只记录位置不复制子串。方言差异：
+ * <ul>
+ *     <li>MySQL：# 单行注释，/*! ... *&#47; 可执行注释按代码处理，字符串支持反斜杠转义，双引号为字符串</li>
+ *     <li>PostgreSQL：$tag$...$tag$ 字符串，E'...' 支持反斜杠转义，块注释可嵌套；DO 块和
+ *     CREATE FUNCTION/PROCEDURE ... AS 的例程体（美元引号或单引号）以及例程体中的字符串按代码处理</li>
+ *     <li>Oracle：q'[...]' 字符串；SQL Server：[name] 标识符，块注释可嵌套</li>
+ * </ul>
+ * 无法识别的数据库（UNKNOWN）按 MySQL 规则分析，但 # 不视为注释、/*! 内容按代码处理，
+ * 避免把服务器会执行的内容当成注释漏检。
+ * @author yangxin
+ */
+public final class SqlLexer {
+
+    /**
+     * 例程体和其中的动态 SQL 字符串最多按代码分析的层数
+     */
+    private static final int MAX_BODY_DEPTH = 4;
+
+    private SqlLexer() {
+    }
+
+    /**
+     * 对SQL进行词法分析
+     * @param sql SQL语句
+     * @param databaseType 数据库类型，为空时按 UNKNOWN 处理
+     * @return 词法单元序列
+     */
+    public static SqlTokens tokenize(CharSequence sql, DatabaseType databaseType) {
+        DatabaseType dbType = databaseType == null ? DatabaseType.UNKNOWN : databaseType;
+        int length = sql.length();
+        SqlTokens tokens = new SqlTokens(sql, dbType, length / 5 + 8);
+        scan(sql, 0, length, Dialect.of(dbType), tokens, 0);
+        return tokens;
+    }
+
+    /**
+     * 分析 [from, to) 范围内的字符
+     * @param depth 0 为语句本身，大于 0 为按代码分析的例程体或例程体中的字符串
+     */
+    private static void scan(CharSequence sql, int from, int to, Dialect dialect, SqlTokens tokens, int depth) {
+        boolean spaced = false;
+        boolean inExecutableComment = false;
+        // 当前语句的状态，用于识别 DO 和 CREATE FUNCTION/PROCEDURE ... AS 的例程体
+        boolean statementStarted = false;
+        boolean doStatement = false;
+        boolean createStatement = false;
+        boolean routine = false;
+        boolean afterAs = false;
+        int i = from;
+        while (i < to) {
+            char c = sql.charAt(i);
+            char next = i + 1 < to ? sql.charAt(i + 1) : '\0';
+
+            if (Character.isWhitespace(c)) {
+                spaced = true;
+                i++;
+                continue;
+            }
+
+            // 单行注释：MySQL 要求 -- 后跟空白或控制字符，否则 1--1 是减负数
+            if (c == '-' && next == '-' && (!dialect.dashCommentNeedsSpace || i + 2 >= to || sql.charAt(i + 2) <= ' ')) {
+                i = Math.min(skipLine(sql, i + 2), to);
+                spaced = true;
+                continue;
+            }
+            if (c == '#' && dialect.hashComments) {
+                i = Math.min(skipLine(sql, i + 1), to);
+                spaced = true;
+                continue;
+            }
+
+            if (c == '/' && next == '*') {
+                int executable = dialect.executableComments && !inExecutableComment ? executableCommentBody(sql, i) : -1;
+                if (executable >= 0) {
+                    // 可执行注释内的内容会被 MySQL 执行，继续按代码分析
+                    i = executable;
+                    inExecutableComment = true;
+                } else {
+                    i = skipBlockComment(sql, i, dialect.nestedComments);
+                }
+                i = Math.min(i, to);
+                spaced = true;
+                continue;
+            }
+            if (c == '*' && next == '/' && inExecutableComment) {
+                i += 2;
+                inExecutableComment = false;
+                spaced = true;
+                continue;
+            }
+
+            int start = i;
+            Type type;
+            // 字符串内容的范围，只有可能是例程体的字符串才记录
+            int bodyStart = -1;
+            int bodyEnd = -1;
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i + 1, '\'', dialect.backslashEscapes);
+                type = Type.STRING;
+                if (dialect.dollarQuotes) {
+                    bodyStart = start + 1;
+                    bodyEnd = i > bodyStart && sql.charAt(i - 1) == '\'' ? i - 1 : i;
+                }
+            } else if (c == '"') {
+                i = skipQuoted(sql, i + 1, '"', dialect.doubleQuotedStrings && dialect.backslashEscapes);
+                type = dialect.doubleQuotedStrings ? Type.STRING : Type.QUOTED_IDENTIFIER;
+            } else if (c == '`' && dialect.backtickIdentifiers) {
+                i = skipQuoted(sql, i + 1, '`', false);
+                type = Type.QUOTED_IDENTIFIER;
+            } else if (c == '[' && dialect.bracketIdentifiers) {
+                i = skipQuoted(sql, i + 1, ']', false);
+                type = Type.QUOTED_IDENTIFIER;
+            } else if (c == '$' && dialect.dollarQuotes && (i = skipDollarQuoted(sql, start)) > start) {
+                type = Type.STRING;
+                int tagLength = dollarTagLength(sql, start);
+                bodyStart = start + tagLength;
+                bodyEnd = i - start >= 2 * tagLength && regionMatches(sql, i - tagLength, start, tagLength) ? i - tagLength : i;
+            } else if (isStringPrefix(sql, i, dialect)) {
+                i = skipPrefixedString(sql, i, dialect);
+                type = Type.STRING;
+            } else if (isDigit(c)) {
+                i = skipNumber(sql, i);
+                type = Type.NUMBER;
+            } else if (isWordStart(c, dialect)) {
+                int hash = 0;
+                while (i < to && isWordPart(sql.charAt(i))) {
+                    hash = 31 * hash + Character.toLowerCase(sql.charAt(i));
+                    i++;
+                }
+                tokens.add(Type.WORD, start, i, hash, spaced);
+                spaced = false;
+                if (!statementStarted) {
+                    statementStarted = true;
+                    doStatement = wordEquals(sql, start, i, "do");
+                    createStatement = wordEquals(sql, start, i, "create");
+                } else if (createStatement && (wordEquals(sql, start, i, "function") || wordEquals(sql, start, i, "procedure"))) {
+                    routine = true;
+                }
+                afterAs = wordEquals(sql, start, i, "as");
+                continue;
+            } else {
+                i++;
+                type = switch (c) {
+                    // 例程体中的 ; 是例程内语句的结束，不是外层语句的分隔符
+                    case ';' -> depth > 0 ? Type.OPERATOR : Type.SEMICOLON;
+                    case '(' -> Type.LEFT_PAREN;
+                    case ')' -> Type.RIGHT_PAREN;
+                    case ',' -> Type.COMMA;
+                    case '.' -> Type.DOT;
+                    default -> Type.OPERATOR;
+                };
+            }
+            i = Math.min(i, to);
+
+            // PostgreSQL 的 DO 块和 CREATE FUNCTION/PROCEDURE ... AS 的例程体会被服务器执行，按代码分析；
+            // 例程体中的字符串可能是 EXECUTE 的动态 SQL，同样按代码分析
+            boolean body = bodyStart >= 0 && depth < MAX_BODY_DEPTH
+                    && (depth > 0 || doStatement || (routine && afterAs));
+            if (body) {
+                scan(sql, bodyStart, Math.max(bodyStart, Math.min(bodyEnd, to)), dialect, tokens, depth + 1);
+                spaced = true;
+            } else {
+                tokens.add(type, start, i, 0, spaced);
+                spaced = false;
+            }
+            if (type == Type.SEMICOLON) {
+                statementStarted = false;
+                doStatement = false;
+                createStatement = false;
+                routine = false;
+            }
+            afterAs = false;
+        }
+    }
+
+    private static int skipLine(CharSequence sql, int i) {
+        int length = sql.length();
+        while (i < length && sql.charAt(i) != '\n' && sql.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 跳过块注释，未闭合时跳到末尾
+     */
+    private static int skipBlockComment(CharSequence sql, int i, boolean nested) {
+        int length = sql.length();
+        int depth = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+            if (c == '/' && next == '*' && (depth == 0 || nested)) {
+                depth++;
+                i += 2;
+            } else if (c == '*' && next == '/') {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 识别 MySQL 可执行注释 /*!、/*!50100 和 MariaDB 的 /*M!
+     * @return 注释体的起始位置，不是可执行注释时返回 -1
+     */
+    private static int executableCommentBody(CharSequence sql, int i) {
+        int length = sql.length();
+        int body;
+        if (i + 2 < length && sql.charAt(i + 2) == '!') {
+            body = i + 3;
+        } else if (i + 3 < length && (sql.charAt(i + 2) == 'M' || sql.charAt(i + 2) == 'm') && sql.charAt(i + 3) == '!') {
+            body = i + 4;
+        } else {
+            return -1;
+        }
+        // 可选的版本号
+        int digits = 0;
+        while (body < length && digits < 6 && isDigit(sql.charAt(body))) {
+            body++;
+            digits++;
+        }
+        return body;
+    }
+
+    /**
+     * 跳过引号包围的内容，引号重复（'' 或 ``）视为转义
+     * @param i 开始引号之后的位置
+     * @return 结束引号之后的位置，未闭合时为末尾
+     */
+    private static int skipQuoted(CharSequence sql, int i, char quote, boolean backslashEscapes) {
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 跳过 PostgreSQL 的 $tag$...$tag$ 字符串
+     * @return 结束位置；不是美元引号字符串（如参数 $1）时返回 start
+     */
+    private static int skipDollarQuoted(CharSequence sql, int start) {
+        int length = sql.length();
+        int i = start + 1;
+        if (i < length && isDigit(sql.charAt(i))) {
+            return start;
+        }
+        while (i < length && sql.charAt(i) != '$') {
+            char c = sql.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) {
+                return start;
+            }
+            i++;
+        }
+        if (i >= length) {
+            return start;
+        }
+        int tagLength = i + 1 - start;
+        i++;
+        while (i < length) {
+            if (sql.charAt(i) == '$' && i + tagLength <= length && regionMatches(sql, i, start, tagLength)) {
+                return i + tagLength;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    /**
+     * $tag$ 开始标记的长度，调用前需确认是美元引号字符串
+     */
+    private static int dollarTagLength(CharSequence sql, int start) {
+        int i = start + 1;
+        while (sql.charAt(i) != '$') {
+            i++;
+        }
+        return i + 1 - start;
+    }
+
+    private static boolean wordEquals(CharSequence sql, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < word.length(); k++) {
+            if (Character.toLowerCase(sql.charAt(start + k)) != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(CharSequence sql, int offset, int tagStart, int tagLength) {
+        for (int k = 0; k < tagLength; k++) {
+            if (sql.charAt(offset + k) != sql.charAt(tagStart + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否为带前缀的字符串：N'...'、X'...'、B'...'、E'...'（PostgreSQL）、q'[...]'/nq'[...]'（Oracle）
+     */
+    private static boolean isStringPrefix(CharSequence sql, int i, Dialect dialect) {
+        int length = sql.length();
+        char c = Character.toLowerCase(sql.charAt(i));
+        char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+        if (next == '\'') {
+            return c == 'n' || c == 'x' || c == 'b' || (c == 'e' && dialect.escapeStringPrefix)
+                    || (c == 'q' && dialect.qQuotes);
+        }
+        return c == 'n' && dialect.qQuotes && (next == 'q' || next == 'Q') && i + 2 < length && sql.charAt(i + 2) == '\'';
+    }
+
+    private static int skipPrefixedString(CharSequence sql, int i, Dialect dialect) {
+        int length = sql.length();
+        char c = Character.toLowerCase(sql.charAt(i));
+        if (c == 'n' && sql.charAt(i + 1) != '\'') {
+            // nq'...'
+            i++;
+            c = 'q';
+        }
+        if (c == 'q') {
+            int open = i + 2;
+            if (open >= length) {
+                return length;
+            }
+            char close = switch (sql.charAt(open)) {
+                case '[' -> ']';
+                case '{' -> '}';
+                case '(' -> ')';
+                case '<' -> '>';
+                default -> sql.charAt(open);
+            };
+            for (int k = open + 1; k + 1 < length; k++) {
+                if (sql.charAt(k) == close && sql.charAt(k + 1) == '\'') {
+                    return k + 2;
+                }
+            }
+            return length;
+        }
+        boolean backslashEscapes = dialect.backslashEscapes || c == 'e';
+        return skipQuoted(sql, i + 2, '\'', backslashEscapes);
+    }
+
+    /**
+     * 跳过数字字面量，包括小数、指数和 0x1F 这类紧跟字母的写法
+     */
+    private static int skipNumber(CharSequence sql, int i) {
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (isDigit(c) || c == '.' || isWordPart(c)) {
+                boolean exponent = (c == 'e' || c == 'E') && i + 2 < length
+                        && (sql.charAt(i + 1) == '+' || sql.charAt(i + 1) == '-') && isDigit(sql.charAt(i + 2));
+                i += exponent ? 2 : 1;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordStart(char c, Dialect dialect) {
+        return Character.isLetter(c) || c == '_' || (c == '$' && !dialect.dollarQuotes);
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * 方言相关的词法规则
+     */
+    private record Dialect(boolean hashComments, boolean dashCommentNeedsSpace, boolean executableComments,
+                           boolean nestedComments, boolean backslashEscapes, boolean doubleQuotedStrings,
+                           boolean backtickIdentifiers, boolean bracketIdentifiers, boolean dollarQuotes,
+                           boolean escapeStringPrefix, boolean qQuotes) {
+
+        private static final Dialect MYSQL = new Dialect(true, true, true, false, true, true, true, false, false, false, false);
+        private static final Dialect POSTGRESQL = new Dialect(false, false, false, true, false, false, false, false, true, true, false);
+        private static final Dialect ORACLE = new Dialect(false, false, false, false, false, false, false, false, false, false, true);
+        private static final Dialect SQL_SERVER = new Dialect(false, false, false, true, false, false, false, true, false, false, false);
+        private static final Dialect H2 = new Dialect(false, false, false, false, false, false, true, false, false, false, false);
+        private static final Dialect IOTDB = new Dialect(false, false, false, false, true, true, true, false, false, false, false);
+        private static final Dialect UNKNOWN = new Dialect(false, true, true, false, true, true, true, false, false, false, false);
+
+        private static Dialect of(DatabaseType databaseType) {
+            return switch (databaseType) {
+                case MYSQL -> MYSQL;
+                case POSTGRESQL -> POSTGRESQL;
+                case ORACLE -> ORACLE;
+                case SQL_SERVER -> SQL_SERVER;
+                case H2 -> H2;
+                case IOTDB -> IOTDB;
+                case UNKNOWN -> UNKNOWN;
+            };
+        }
+    }
+}
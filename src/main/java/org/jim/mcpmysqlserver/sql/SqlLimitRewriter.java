@@ -0,0 +1,84 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.sql.SqlTokens.Type;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+/**
+ * 行数限制改写器
+ * <p>
+ * 为没有行数限制的顶层 SELECT 追加数据库方言对应的限制子句，让数据库只返回前 N 行，而不是把全部结果传回后再截断：
+ * MySQL、PostgreSQL、H2、IoTDB 使用 LIMIT，Oracle 使用 FETCH FIRST n ROWS ONLY，SQL Server 使用 TOP。
+ * 顶层已有 LIMIT、FETCH、TOP、OFFSET、ROWNUM 等分页写法，或带 INTO、FOR 子句的语句保持不变
+ * @author yangxin
+ */
+public final class SqlLimitRewriter {
+
+    private SqlLimitRewriter() {
+    }
+
+    /**
+     * 为没有行数限制的顶层查询追加限制子句
+     * @param tokens 单条语句的词法单元，末尾可以有 ;
+     * @param limit 最大行数
+     * @return 改写后的SQL，不需要或无法改写时返回 null
+     */
+    public static String rewrite(SqlTokens tokens, int limit) {
+        DatabaseType databaseType = tokens.databaseType();
+        if (limit <= 0 || databaseType == null || databaseType == DatabaseType.UNKNOWN
+                || !(tokens.isWord(0, "select") || tokens.isWord(0, "with"))) {
+            return null;
+        }
+
+        int last = tokens.size() - 1;
+        while (last >= 0 && tokens.type(last) == Type.SEMICOLON) {
+            last--;
+        }
+
+        boolean setOperation = false;
+        int depth = 0;
+        for (int i = 0; i <= last; i++) {
+            Type type = tokens.type(i);
+            if (type == Type.SEMICOLON) {
+                return null;
+            } else if (type == Type.LEFT_PAREN) {
+                depth++;
+            } else if (type == Type.RIGHT_PAREN) {
+                depth--;
+            } else if (depth == 0 && type == Type.WORD) {
+                if (isBounded(tokens, i)) {
+                    return null;
+                }
+                setOperation |= tokens.isWord(i, "union") || tokens.isWord(i, "intersect")
+                        || tokens.isWord(i, "except") || tokens.isWord(i, "minus");
+            }
+        }
+
+        String sql = tokens.sql().toString();
+        if (databaseType == DatabaseType.SQL_SERVER) {
+            // TOP 只作用于第一个 SELECT，集合运算和 CTE 不改写
+            if (setOperation || !tokens.isWord(0, "select")) {
+                return null;
+            }
+            int anchor = tokens.isWord(1, "distinct") || tokens.isWord(1, "all") ? 1 : 0;
+            int position = tokens.end(anchor);
+            return sql.substring(0, position) + " TOP " + limit + sql.substring(position);
+        }
+
+        // 追加在最后一个词法单元之后，末尾的 ; 和注释保持原样
+        int position = tokens.end(last);
+        String clause = databaseType == DatabaseType.ORACLE ? " FETCH FIRST " + limit + " ROWS ONLY" : " LIMIT " + limit;
+        return sql.substring(0, position) + clause + sql.substring(position);
+    }
+
+    /**
+     * 顶层已有分页写法，或限制子句不能直接追加在末尾的语句
+     */
+    private static boolean isBounded(SqlTokens tokens, int index) {
+        return tokens.isWord(index, "limit") || tokens.isWord(index, "fetch") || tokens.isWord(index, "top")
+                || tokens.isWord(index, "offset") || tokens.isWord(index, "rownum")
+                // SELECT ... INTO、FOR UPDATE、FOR XML/JSON、LOCK IN SHARE MODE
+                || tokens.isWord(index, "into") || tokens.isWord(index, "for") || tokens.isWord(index, "lock")
+                // IoTDB 的 SLIMIT 和必须位于末尾的 ALIGN BY、FILL
+                || tokens.isWord(index, "slimit") || tokens.isWord(index, "align") || tokens.isWord(index, "fill");
+    }
+}
@@ -0,0 +1,184 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.sql.SqlTokens.Type;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SQL语句分类器
+ * <p>
+ * 基于 {@link SqlLexer} 的词法单元按 ; 切分语句，并根据首个关键字判断语句类型。
+ * 字符串、引号标识符和注释中的内容不会参与判断。
+ * @author yangxin
+ */
+public final class SqlStatementClassifier {
+
+    private SqlStatementClassifier() {
+    }
+
+    /**
+     * 对SQL进行词法分析并分类
+     * @param sql SQL语句
+     * @param databaseType 数据库类型
+     * @return 分类结果
+     */
+    public static SqlClassification classify(CharSequence sql, DatabaseType databaseType) {
+        return classify(SqlLexer.tokenize(sql, databaseType));
+    }
+
+    /**
+     * 对已完成词法分析的SQL分类
+     * @param tokens 词法单元
+     * @return 分类结果
+     */
+    public static SqlClassification classify(SqlTokens tokens) {
+        List<SqlClassification.Statement> statements = new ArrayList<>(1);
+        int size = tokens.size();
+        int i = 0;
+        while (i < size) {
+            if (tokens.type(i) == Type.SEMICOLON) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < size && tokens.type(end) != Type.SEMICOLON) {
+                end++;
+            }
+            statements.add(classifyStatement(tokens, i, end));
+            i = end + 1;
+        }
+        return statements.isEmpty() ? SqlClassification.empty() : new SqlClassification(statements);
+    }
+
+    /**
+     * 分类 [from, to) 范围内的一条语句
+     */
+    private static SqlClassification.Statement classifyStatement(SqlTokens tokens, int from, int to) {
+        // (SELECT ...) UNION (SELECT ...)
+        int first = from;
+        while (first < to && tokens.type(first) == Type.LEFT_PAREN) {
+            first++;
+        }
+        if (first >= to || tokens.type(first) != Type.WORD) {
+            return new SqlClassification.Statement(SqlStatementType.OTHER, null, false);
+        }
+
+        String verb = tokens.text(first).toLowerCase(Locale.ROOT);
+        SqlStatementType type = switch (verb) {
+            case "select", "values", "table", "show", "describe", "desc", "help" -> SqlStatementType.QUERY;
+            case "insert", "update", "delete", "replace", "merge", "upsert", "load", "copy" -> SqlStatementType.DML;
+            case "create", "alter", "drop", "truncate", "rename", "comment" -> SqlStatementType.DDL;
+            case "grant", "revoke", "deny" -> SqlStatementType.DCL;
+            case "commit", "rollback", "savepoint", "release", "xa", "abort", "end" -> SqlStatementType.TRANSACTION;
+            case "set", "use", "reset", "discard" -> SqlStatementType.SESSION;
+            case "start" -> tokens.isWord(first + 1, "transaction") ? SqlStatementType.TRANSACTION : SqlStatementType.OTHER;
+            case "begin" -> isTransactionBegin(tokens, first + 1, to) ? SqlStatementType.TRANSACTION : SqlStatementType.OTHER;
+            case "with" -> withType(tokens, first + 1, to);
+            case "explain" -> null;
+            // 匿名代码块和存储过程调用，其中的语句由服务器执行，不是只读的
+            case "do", "call", "exec", "execute" -> SqlStatementType.OTHER;
+            default -> SqlStatementType.OTHER;
+        };
+
+        if (type == null) {
+            return explain(tokens, first, to);
+        }
+        boolean readOnly = type == SqlStatementType.QUERY && !hasWriteClause(tokens, first, to);
+        return new SqlClassification.Statement(type, verb, readOnly);
+    }
+
+    /**
+     * BEGIN 后为空、WORK、TRANSACTION 等时是事务开始，否则是存储过程块（Oracle、SQL Server）
+     */
+    private static boolean isTransactionBegin(SqlTokens tokens, int next, int to) {
+        return next >= to
+                || tokens.isWord(next, "work") || tokens.isWord(next, "transaction") || tokens.isWord(next, "tran")
+                || tokens.isWord(next, "isolation") || tokens.isWord(next, "read") || tokens.isWord(next, "deferrable")
+                || tokens.isWord(next, "not");
+    }
+
+    /**
+     * WITH 语句的类型由最外层的主语句决定；CTE 中包含 INSERT/UPDATE/DELETE（PostgreSQL 可写 CTE）时视为 DML
+     */
+    private static SqlStatementType withType(SqlTokens tokens, int from, int to) {
+        int depth = 0;
+        for (int i = from; i < to; i++) {
+            Type type = tokens.type(i);
+            if (type == Type.LEFT_PAREN) {
+                depth++;
+                if (isDmlVerb(tokens, i + 1)) {
+                    return SqlStatementType.DML;
+                }
+            } else if (type == Type.RIGHT_PAREN) {
+                depth--;
+            } else if (depth == 0 && type == Type.WORD) {
+                if (isDmlVerb(tokens, i)) {
+                    return SqlStatementType.DML;
+                }
+                if (tokens.isWord(i, "select") || tokens.isWord(i, "values") || tokens.isWord(i, "table")) {
+                    return SqlStatementType.QUERY;
+                }
+            }
+        }
+        return SqlStatementType.OTHER;
+    }
+
+    private static boolean isDmlVerb(SqlTokens tokens, int index) {
+        return tokens.isWord(index, "insert") || tokens.isWord(index, "update") || tokens.isWord(index, "delete")
+                || tokens.isWord(index, "merge") || tokens.isWord(index, "replace");
+    }
+
+    /**
+     * EXPLAIN 只生成执行计划，是只读的；EXPLAIN ANALYZE 会真正执行语句，按被解释的语句分类
+     */
+    private static SqlClassification.Statement explain(SqlTokens tokens, int first, int to) {
+        boolean analyze = false;
+        int depth = 0;
+        for (int i = first + 1; i < to; i++) {
+            Type type = tokens.type(i);
+            if (type == Type.LEFT_PAREN) {
+                depth++;
+            } else if (type == Type.RIGHT_PAREN) {
+                depth--;
+            } else if (type == Type.WORD) {
+                if (tokens.isWord(i, "analyze")) {
+                    analyze = true;
+                } else if (depth == 0 && (isDmlVerb(tokens, i) || tokens.isWord(i, "select") || tokens.isWord(i, "with"))) {
+                    if (analyze) {
+                        SqlClassification.Statement inner = classifyStatement(tokens, i, to);
+                        return new SqlClassification.Statement(inner.type(), "explain", inner.readOnly());
+                    }
+                    break;
+                }
+            }
+        }
+        return new SqlClassification.Statement(SqlStatementType.QUERY, "explain", true);
+    }
+
+    /**
+     * 查询中的加锁子句（FOR UPDATE、FOR SHARE、LOCK IN SHARE MODE）或 SELECT ... INTO 会写入或加锁，不是只读的。
+     * MySQL 的 SELECT ... INTO @var 只写会话变量，仍视为只读
+     */
+    private static boolean hasWriteClause(SqlTokens tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.type(i) != Type.WORD) {
+                continue;
+            }
+            if (tokens.isWord(i, "for") && (tokens.isWord(i + 1, "update") || tokens.isWord(i + 1, "share")
+                    || tokens.isWord(i + 1, "no") || tokens.isWord(i + 1, "key"))) {
+                return true;
+            }
+            if (tokens.isWord(i, "lock") && tokens.isWord(i + 1, "in") && tokens.isWord(i + 2, "share")) {
+                return true;
+            }
+            if (tokens.isWord(i, "into") && !(i + 1 < to && tokens.type(i + 1) == Type.OPERATOR
+                    && tokens.sql().charAt(tokens.start(i + 1)) == '@')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package org.jim.mcpmysqlserver.sql;
+
+/**
+ * SQL语句类型
+ * @author yangxin
+ */
+public enum SqlStatementType {
+    /**
+     * 查询：SELECT、WITH ... SELECT、SHOW、DESCRIBE、EXPLAIN、VALUES、TABLE
+     */
+    QUERY,
+    /**
+     * 数据操作：INSERT、UPDATE、DELETE、REPLACE、MERGE、LOAD、COPY
+     */
+    DML,
+    /**
+     * 数据定义：CREATE、ALTER、DROP、TRUNCATE、RENAME、COMMENT
+     */
+    DDL,
+    /**
+     * 权限控制：GRANT、REVOKE、DENY
+     */
+    DCL,
+    /**
+     * 事务控制：BEGIN、START TRANSACTION、COMMIT、ROLLBACK、SAVEPOINT 等
+     */
+    TRANSACTION,
+    /**
+     * 会话设置：SET、USE、RESET
+     */
+    SESSION,
+    /**
+     * 其他语句：CALL、EXECUTE、DO、LOCK、KILL、存储过程块等
+     */
+    OTHER
+}
@@ -0,0 +1,193 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector;
+
+import java.util.Arrays;
+
+/**
+ * SQL词法分析结果
+ * <p>
+ * 只保存每个词法单元在原始 SQL 中的起止位置（不复制子串），供分类、关键字匹配等多个环节重复遍历。
+ * 注释和空白不产生词法单元，只记录在下一个词法单元的 {@link #isSpaceBefore(int)} 上。
+ * @author yangxin
+ */
+public final class SqlTokens {
+
+    /**
+     * 词法单元类型
+     */
+    public enum Type {
+        /**
+         * 关键字或未加引号的标识符
+         */
+        WORD,
+        /**
+         * 加引号的标识符，如 `name`、"name"、[name]
+         */
+        QUOTED_IDENTIFIER,
+        /**
+         * 字符串字面量（含 $$...$$、q'[...]' 等方言写法）
+         */
+        STRING,
+        /**
+         * 数字字面量
+         */
+        NUMBER,
+        /**
+         * 语句分隔符 ;
+         */
+        SEMICOLON,
+        LEFT_PAREN,
+        RIGHT_PAREN,
+        COMMA,
+        DOT,
+        /**
+         * 其他运算符或符号，每个字符一个单元
+         */
+        OPERATOR
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final CharSequence sql;
+    private final DatabaseTypeDetector.DatabaseType databaseType;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] hashes;
+    private boolean[] spaceBefore;
+    private int size;
+
+    SqlTokens(CharSequence sql, DatabaseTypeDetector.DatabaseType databaseType, int initialCapacity) {
+        this.sql = sql;
+        this.databaseType = databaseType;
+        int capacity = Math.max(8, initialCapacity);
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.hashes = new int[capacity];
+        this.spaceBefore = new boolean[capacity];
+    }
+
+    void add(Type type, int start, int end, int hash, boolean spaced) {
+        if (size == types.length) {
+            int capacity = size << 1;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            spaceBefore = Arrays.copyOf(spaceBefore, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        hashes[size] = hash;
+        spaceBefore[size] = spaced;
+        size++;
+    }
+
+    /**
+     * @return 原始SQL
+     */
+    public CharSequence sql() {
+        return sql;
+    }
+
+    /**
+     * @return 分析时使用的数据库方言
+     */
+    public DatabaseTypeDetector.DatabaseType databaseType() {
+        return databaseType;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /**
+     * WORD 单元按小写计算的哈希（31 进制，与 String.hashCode 一致），其他单元为 0
+     */
+    public int hash(int index) {
+        return hashes[index];
+    }
+
+    /**
+     * 该单元与前一个单元之间是否有空白或注释
+     */
+    public boolean isSpaceBefore(int index) {
+        return spaceBefore[index];
+    }
+
+    /**
+     * 判断 WORD 单元是否等于给定的小写单词（不区分大小写，不分配内存）
+     * @param index 单元下标，越界时返回 false
+     * @param lowerWord 小写单词
+     */
+    public boolean isWord(int index, String lowerWord) {
+        if (index < 0 || index >= size || types[index] != Type.WORD.ordinal()) {
+            return false;
+        }
+        int start = starts[index];
+        if (ends[index] - start != lowerWord.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowerWord.length(); i++) {
+            if (Character.toLowerCase(sql.charAt(start + i)) != lowerWord.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断单元是否为给定类型，越界时返回 false
+     */
+    public boolean is(int index, Type type) {
+        return index >= 0 && index < size && types[index] == type.ordinal();
+    }
+
+    /**
+     * 计算SQL指纹：单词转小写，字符串和数字字面量替换为 ?，去掉注释并把空白压缩为一个空格。
+     * 只有字面量或大小写、空白、注释不同的语句指纹相同
+     * @return 指纹
+     */
+    public String fingerprint() {
+        StringBuilder builder = new StringBuilder(sql.length());
+        for (int i = 0; i < size; i++) {
+            if (spaceBefore[i] && !builder.isEmpty()) {
+                builder.append(' ');
+            }
+            Type type = TYPES[types[i]];
+            if (type == Type.STRING || type == Type.NUMBER) {
+                builder.append('?');
+            } else if (type == Type.WORD) {
+                for (int j = starts[i]; j < ends[i]; j++) {
+                    builder.append(Character.toLowerCase(sql.charAt(j)));
+                }
+            } else {
+                builder.append(sql, starts[i], ends[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return 单元的原始文本（会分配新字符串）
+     */
+    public String text(int index) {
+        return sql.subSequence(starts[index], ends[index]).toString();
+    }
+}
@@ -0,0 +1,48 @@
+package org.jim.mcpmysqlserver.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 按版本缓存的 JSON 渲染结果
+ * <p>
+ * 版本不变时直接返回上次渲染的字符串；版本变化时重新生成内容并序列化。并发读取不加锁，重新渲染时加锁，避免同时渲染多次
+ * @author yangxin
+ */
+public class CachedJson {
+
+    private final ObjectWriter writer;
+
+    private volatile Rendered rendered;
+
+    public CachedJson(ObjectWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 获取渲染结果
+     * @param version 内容的版本，可以是任意支持 equals 的对象，为 null 表示内容永不变化
+     * @param content 版本变化时生成新内容
+     * @return JSON 字符串
+     */
+    public String get(Object version, Supplier<Object> content) throws JsonProcessingException {
+        Rendered current = rendered;
+        if (current != null && Objects.equals(current.version(), version)) {
+            return current.json();
+        }
+        synchronized (this) {
+            current = rendered;
+            if (current == null || !Objects.equals(current.version(), version)) {
+                current = new Rendered(version, writer.writeValueAsString(content.get()));
+                rendered = current;
+            }
+            return current.json();
+        }
+    }
+
+    private record Rendered(Object version, String json) {
+    }
+}
@@ -0,0 +1,205 @@
+package org.jim.mcpmysqlserver.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 线程安全的有界 LRU 缓存
+ * 基于访问顺序的 LinkedHashMap 加锁实现，超过条目数或权重（如估算字节数）上限时淘汰最久未访问的条目，并统计命中次数
+ * @author yangxin
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private long weight;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, V> map;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries 最大条目数，小于等于 0 时不缓存任何内容
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, 0, null);
+    }
+
+    /**
+     * @param maxEntries 最大条目数，小于等于 0 时不缓存任何内容
+     * @param maxWeight 所有条目的最大总权重，小于等于 0 时不限制
+     * @param weigher 计算单个条目权重的函数，为 null 时不统计权重
+     */
+    public LruCache(int maxEntries, long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    weight -= weigh(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值并记录命中或未命中
+     * @param key 键
+     * @return 缓存值，不存在时返回 null
+     */
+    public V get(K key) {
+        V value;
+        lock.lock();
+        try {
+            value = map.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存值，不存在时计算并放入缓存。计算在锁外进行，并发时可能重复计算
+     * @param key 键
+     * @param loader 计算函数，返回 null 时不缓存
+     * @return 缓存值或新计算的值
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long entryWeight = weigh(key, value);
+        if (maxWeight > 0 && entryWeight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            weight += entryWeight;
+            V previous = map.put(key, value);
+            if (previous != null) {
+                weight -= weigh(key, previous);
+            }
+            // 超过权重上限时从最久未访问的条目开始淘汰
+            Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+            while (maxWeight > 0 && weight > maxWeight && iterator.hasNext()) {
+                Map.Entry<K, V> eldest = iterator.next();
+                weight -= weigh(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            V previous = map.remove(key);
+            if (previous != null) {
+                weight -= weigh(key, previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除所有满足条件的键
+     * @param filter 键的过滤条件
+     */
+    public void removeIf(Predicate<? super K> filter) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+                if (filter.test(entry.getKey())) {
+                    weight -= weigh(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 所有条目的总权重，没有权重函数时为 0
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 命中率，没有请求时为 0
+     */
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private long weigh(K key, V value) {
+        return weigher == null ? 0 : weigher.applyAsLong(key, value);
+    }
+}
@@ -0,0 +1,240 @@
+package org.jim.mcpmysqlserver.validator;
+
+import org.jim.mcpmysqlserver.sql.SqlTokens;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 预编译的危险关键字匹配器
+ * <p>
+ * 关键字集合只编译一次：由单词组成的关键字按最后一个单词的小写哈希放入散列表，
+ * 匹配时遍历 {@link SqlTokens} 中的单词查表，不再为每个关键字编译正则、复制字符串。
+ * 多个单词的关键字（如 "drop table"）要求各单词之间只有空白或注释。
+ * 包含非单词字符的关键字无法按单词匹配，合并为一个预编译正则，在规范化后的 SQL 上匹配。
+ * @author yangxin
+ */
+final class SqlKeywordMatcher {
+
+    /**
+     * 编译时使用的关键字列表副本，用于判断配置是否变化
+     */
+    private final List<String> sourceKeywords;
+
+    /**
+     * 按最后一个单词哈希分桶的关键字
+     */
+    private final Candidate[][] buckets;
+    private final int mask;
+
+    /**
+     * 关键字包含的最大单词数
+     */
+    private final int maxWords;
+
+    /**
+     * 包含非单词字符的关键字合并成的正则，没有时为 null
+     */
+    private final Pattern fallbackPattern;
+
+    private SqlKeywordMatcher(List<String> sourceKeywords, Candidate[][] buckets, int maxWords, Pattern fallbackPattern) {
+        this.sourceKeywords = sourceKeywords;
+        this.buckets = buckets;
+        this.mask = buckets.length - 1;
+        this.maxWords = maxWords;
+        this.fallbackPattern = fallbackPattern;
+    }
+
+    /**
+     * 编译关键字集合
+     * @param keywords 危险关键字（不区分大小写）
+     * @return 匹配器
+     */
+    static SqlKeywordMatcher compile(List<String> keywords) {
+        List<String> source = keywords == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(keywords));
+        List<Candidate> candidates = new ArrayList<>();
+        List<String> fallbackKeywords = new ArrayList<>();
+
+        for (String keyword : source) {
+            if (keyword == null || keyword.isBlank()) {
+                continue;
+            }
+            String[] parts = keyword.trim().toLowerCase(Locale.ROOT).split("\\s+");
+            boolean wordsOnly = true;
+            char[][] words = new char[parts.length][];
+            for (int i = 0; i < parts.length; i++) {
+                words[i] = parts[i].toCharArray();
+                for (char c : words[i]) {
+                    if (!isWordChar(c)) {
+                        wordsOnly = false;
+                        break;
+                    }
+                }
+            }
+            if (wordsOnly) {
+                candidates.add(new Candidate(keyword, words, hash(words[words.length - 1])));
+            } else {
+                fallbackKeywords.add(keyword);
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, candidates.size() * 2 - 1)) << 1;
+        List<List<Candidate>> bucketLists = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            bucketLists.add(new ArrayList<>(1));
+        }
+        int maxWords = 1;
+        for (Candidate candidate : candidates) {
+            bucketLists.get(candidate.hash & (capacity - 1)).add(candidate);
+            maxWords = Math.max(maxWords, candidate.words.length);
+        }
+        Candidate[][] buckets = new Candidate[capacity][];
+        for (int i = 0; i < capacity; i++) {
+            buckets[i] = bucketLists.get(i).toArray(new Candidate[0]);
+        }
+
+        Pattern fallbackPattern = null;
+        if (!fallbackKeywords.isEmpty()) {
+            String alternatives = fallbackKeywords.stream()
+                    .map(k -> Pattern.quote(k.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ")))
+                    .collect(Collectors.joining("|"));
+            fallbackPattern = Pattern.compile("\\b(?:" + alternatives + ")\\b", Pattern.CASE_INSENSITIVE);
+        }
+        return new SqlKeywordMatcher(source, buckets, maxWords, fallbackPattern);
+    }
+
+    /**
+     * 判断该匹配器是否由给定的关键字列表编译而来
+     * @param keywords 当前配置的关键字列表
+     * @return 关键字列表未变化时返回 true
+     */
+    boolean isCompiledFrom(List<String> keywords) {
+        return sourceKeywords.equals(keywords == null ? List.of() : keywords);
+    }
+
+    /**
+     * 在 SQL 中查找第一个出现的危险关键字，只匹配 WORD 单元，字符串、引号标识符和注释中的内容不会命中
+     * @param tokens SQL词法单元
+     * @return 命中的关键字（配置中的原始写法），未命中返回 null
+     */
+    String findFirst(SqlTokens tokens) {
+        CharSequence sql = tokens.sql();
+        // 最近的相邻单词（之间只有空白或注释）的下标，用于匹配多单词关键字
+        int ringCapacity = Math.max(1, maxWords - 1);
+        int[] ring = new int[ringCapacity];
+        int ringSize = 0;
+        int ringHead = 0;
+
+        StringBuilder normalized = fallbackPattern != null ? new StringBuilder(sql.length()) : null;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            SqlTokens.Type type = tokens.type(i);
+            if (normalized != null) {
+                appendNormalized(normalized, tokens, i, type);
+            }
+
+            if (type != SqlTokens.Type.WORD) {
+                // 其他单元打断单词的相邻关系
+                ringSize = 0;
+                continue;
+            }
+
+            int hash = tokens.hash(i);
+            for (Candidate candidate : buckets[hash & mask]) {
+                if (candidate.hash == hash && matches(tokens, i, ring, ringSize, ringHead, candidate)) {
+                    return candidate.keyword;
+                }
+            }
+
+            ring[ringHead] = i;
+            ringHead = (ringHead + 1) % ringCapacity;
+            ringSize = Math.min(ringSize + 1, ringCapacity);
+        }
+
+        if (normalized != null) {
+            Matcher matcher = fallbackPattern.matcher(normalized);
+            if (matcher.find()) {
+                String found = matcher.group();
+                return sourceKeywords.stream()
+                        .filter(k -> k.trim().replaceAll("\\s+", " ").equalsIgnoreCase(found))
+                        .findFirst()
+                        .orElse(found);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 拼接规范化文本：单词转小写，字面量和引号标识符替换为 ?，空白和注释压缩为一个空格。
+     * 与 {@link SqlTokens#fingerprint()} 一样不依赖字面量的值，保证相同指纹的SQL匹配结果相同
+     */
+    private static void appendNormalized(StringBuilder normalized, SqlTokens tokens, int i, SqlTokens.Type type) {
+        if (tokens.isSpaceBefore(i) && !normalized.isEmpty()) {
+            normalized.append(' ');
+        }
+        if (type == SqlTokens.Type.STRING || type == SqlTokens.Type.NUMBER || type == SqlTokens.Type.QUOTED_IDENTIFIER) {
+            normalized.append('?');
+            return;
+        }
+        CharSequence sql = tokens.sql();
+        for (int j = tokens.start(i); j < tokens.end(i); j++) {
+            normalized.append(Character.toLowerCase(sql.charAt(j)));
+        }
+    }
+
+    private static boolean matches(SqlTokens tokens, int index, int[] ring, int ringSize, int ringHead, Candidate candidate) {
+        char[][] words = candidate.words;
+        if (!regionEquals(tokens, index, words[words.length - 1])) {
+            return false;
+        }
+        if (words.length - 1 > ringSize) {
+            return false;
+        }
+        // 从最近的单词往前依次比较
+        int slot = ringHead;
+        for (int w = words.length - 2; w >= 0; w--) {
+            slot = (slot - 1 + ring.length) % ring.length;
+            if (!regionEquals(tokens, ring[slot], words[w])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(SqlTokens tokens, int index, char[] word) {
+        int start = tokens.start(index);
+        if (tokens.end(index) - start != word.length) {
+            return false;
+        }
+        CharSequence sql = tokens.sql();
+        for (int j = 0; j < word.length; j++) {
+            if (Character.toLowerCase(sql.charAt(start + j)) != word[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(char[] word) {
+        int hash = 0;
+        for (char c : word) {
+            hash = 31 * hash + c;
+        }
+        return hash;
+    }
+
+    /**
+     * 与正则 \b 一致的单词字符：[a-zA-Z0-9_]
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private record Candidate(String keyword, char[][] words, int hash) {
+    }
+}
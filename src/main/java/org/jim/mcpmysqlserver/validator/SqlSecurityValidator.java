@@ -1,15 +1,30 @@
 package org.jim.mcpmysqlserver.validator;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.jim.mcpmysqlserver.config.SqlSecurityConfig;
+import org.jim.mcpmysqlserver.sql.SqlClassification;
+import org.jim.mcpmysqlserver.sql.SqlLexer;
+import org.jim.mcpmysqlserver.sql.SqlStatementClassifier;
+import org.jim.mcpmysqlserver.sql.SqlTokens;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.jim.mcpmysqlserver.util.LruCache;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * SQL安全验证器
- * 用于检查SQL语句是否包含危险操作关键字
+ * 用于检查SQL语句是否包含危险操作关键字，并给出语句分类供后续路由使用
+ * <p>
+ * 验证结果按两级缓存：原始SQL文本命中时完全跳过词法分析；文本不同但指纹相同（只有字面量、大小写、空白或注释不同）时跳过分类和关键字匹配。
+ * 安全配置变化时清空缓存
  * @author yangxin
  */
 @Component
@@ -18,106 +33,189 @@ public class SqlSecurityValidator {
 
     private final SqlSecurityConfig sqlSecurityConfig;
 
+    /**
+     * 预编译的关键字匹配器，仅在危险关键字配置变化时重建
+     */
+    private volatile SqlKeywordMatcher keywordMatcher;
+
+    /**
+     * 原始SQL文本到验证结果的缓存
+     */
+    private final LruCache<CacheKey, SqlValidationResult> exactCache;
+
+    /**
+     * SQL指纹到验证结果的缓存
+     */
+    private final LruCache<CacheKey, SqlValidationResult> fingerprintCache;
+
+    /**
+     * 缓存内容对应的安全配置
+     */
+    private volatile ConfigSnapshot cachedConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
     public SqlSecurityValidator(SqlSecurityConfig sqlSecurityConfig) {
         this.sqlSecurityConfig = sqlSecurityConfig;
+        int maxEntries = sqlSecurityConfig.getCache().getMaxEntries();
+        this.exactCache = new LruCache<>(maxEntries);
+        this.fingerprintCache = new LruCache<>(maxEntries);
+    }
+
+    @PostConstruct
+    public void bindMetrics() {
+        bindCacheMetrics("exact", exactCache);
+        bindCacheMetrics("fingerprint", fingerprintCache);
+    }
+
+    private void bindCacheMetrics(String tier, LruCache<CacheKey, SqlValidationResult> cache) {
+        FunctionCounter.builder("mcp.sql.validation.cache.requests", cache, LruCache::hitCount)
+                .tag("tier", tier).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("mcp.sql.validation.cache.requests", cache, LruCache::missCount)
+                .tag("tier", tier).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mcp.sql.validation.cache.hit.ratio", cache, LruCache::hitRate).tag("tier", tier).register(meterRegistry);
+        Gauge.builder("mcp.sql.validation.cache.size", cache, LruCache::size).tag("tier", tier).register(meterRegistry);
     }
 
     /**
-     * 验证SQL语句是否安全
+     * 验证SQL语句是否安全，数据库类型未知时按保守规则进行词法分析
      * @param sql 要验证的SQL语句
      * @return SQL安全验证结果
      */
     public SqlValidationResult validateSql(String sql) {
-        // 如果未启用安全检查，直接通过
-        if (!sqlSecurityConfig.isEnabled()) {
-            log.debug("SQL security check is disabled, allowing SQL execution: {}", sql);
-            return SqlValidationResult.success();
-        }
+        return validateSql(sql, DatabaseType.UNKNOWN);
+    }
 
+    /**
+     * 按数据库方言验证SQL语句是否安全
+     * @param sql 要验证的SQL语句
+     * @param databaseType 目标数据源的数据库类型，决定注释、字符串和引号标识符的识别规则
+     * @return SQL安全验证结果
+     */
+    public SqlValidationResult validateSql(String sql, DatabaseType databaseType) {
         // 检查SQL是否为空
         if (StringUtils.isBlank(sql)) {
-            return SqlValidationResult.failure("SQL statement cannot be empty", null);
+            if (!sqlSecurityConfig.isEnabled()) {
+                return SqlValidationResult.success(SqlClassification.empty(), null);
+            }
+            return SqlValidationResult.failure("SQL statement cannot be empty", null, SqlClassification.empty(), null);
         }
 
-        // 清理SQL语句：去除多余空格、换行符、注释等
-        String cleanedSql = cleanSql(sql);
-        log.debug("Validating SQL: {}", cleanedSql);
-
-        // 检查是否包含危险关键字
-        for (String keyword : sqlSecurityConfig.getDangerousKeywords()) {
-            if (containsDangerousKeyword(cleanedSql, keyword)) {
-                String errorMessage = String.format(
-                        """
-                        Dangerous SQL operation keyword '%s' detected. This operation has been blocked for data security.
-                        To execute this type of operation, please configure in application.yml:
-                        1) Set sql.security.enabled=false to completely disable SQL security checks, or
-                        2) Remove the '%s' keyword from the sql.security.dangerous-keywords list.
-                        Please restart the service after modifying the configuration.
-                        """,
-                        keyword.toUpperCase(), keyword.toLowerCase()
-                );
-
-                log.warn("SQL validation failed: detected dangerous keyword '{}' in SQL: {}", keyword, cleanedSql);
-                return SqlValidationResult.failure(errorMessage, keyword);
+        DatabaseType dialect = databaseType == null ? DatabaseType.UNKNOWN : databaseType;
+        SqlSecurityConfig.Cache cacheConfig = sqlSecurityConfig.getCache();
+        boolean cacheable = cacheConfig.isEnabled() && sql.length() <= cacheConfig.getMaxSqlLength();
+
+        SqlValidationResult result;
+        if (cacheable) {
+            invalidateCacheIfConfigChanged();
+            CacheKey exactKey = new CacheKey(dialect, sql);
+            result = exactCache.get(exactKey);
+            if (result == null) {
+                SqlTokens tokens = SqlLexer.tokenize(sql, dialect);
+                result = fingerprintCache.computeIfAbsent(new CacheKey(dialect, tokens.fingerprint()), key -> evaluate(tokens, key.sql()));
+                exactCache.put(exactKey, result);
             }
+        } else {
+            SqlTokens tokens = SqlLexer.tokenize(sql, dialect);
+            result = evaluate(tokens, tokens.fingerprint());
         }
 
-        log.debug("SQL validation passed: {}", cleanedSql);
-        return SqlValidationResult.success();
+        if (!result.valid()) {
+            log.warn("SQL validation failed: detected dangerous keyword '{}' in SQL: {}", result.detectedKeyword(), sql);
+        } else if (!sqlSecurityConfig.isEnabled()) {
+            log.debug("SQL security check is disabled, allowing SQL execution: {}", sql);
+        } else {
+            log.debug("SQL validation passed ({}): {}", result.classification().type(), sql);
+        }
+        return result;
     }
 
     /**
-     * 清理SQL语句，移除注释、多余空格等
-     * @param sql 原始SQL语句
-     * @return 清理后的SQL语句
+     * 对词法分析结果分类并匹配危险关键字。结果只取决于SQL指纹，可以按指纹缓存
      */
-    private String cleanSql(String sql) {
-        if (StringUtils.isBlank(sql)) {
-            return "";
-        }
+    private SqlValidationResult evaluate(SqlTokens tokens, String fingerprint) {
+        SqlClassification classification = SqlStatementClassifier.classify(tokens);
 
-        // 移除单行注释 (-- 注释)
-        sql = sql.replaceAll("--[^\r\n]*", "");
-
-        // 移除多行注释 (/* 注释 */)
-        sql = sql.replaceAll("/\\*.*?\\*/", "");
+        // 如果未启用安全检查，直接通过
+        if (!sqlSecurityConfig.isEnabled()) {
+            return SqlValidationResult.success(classification, fingerprint);
+        }
 
-        // 统一换行符并移除多余空格
-        sql = sql.replaceAll("\\s+", " ").trim();
+        // 只匹配代码中的单词，字符串、引号标识符和注释中的内容不会命中
+        String keyword = currentKeywordMatcher().findFirst(tokens);
+        if (keyword != null) {
+            String errorMessage = String.format(
+                    """
+                    Dangerous SQL operation keyword '%s' detected. This operation has been blocked for data security.
+                    To execute this type of operation, please configure in application.yml:
+                    1) Set sql.security.enabled=false to completely disable SQL security checks, or
+                    2) Remove the '%s' keyword from the sql.security.dangerous-keywords list.
+                    Please restart the service after modifying the configuration.
+                    """,
+                    keyword.toUpperCase(), keyword.toLowerCase()
+            );
+            return SqlValidationResult.failure(errorMessage, keyword, classification, fingerprint);
+        }
+        return SqlValidationResult.success(classification, fingerprint);
+    }
 
-        return sql;
+    /**
+     * 安全开关或危险关键字列表变化时清空缓存
+     */
+    private void invalidateCacheIfConfigChanged() {
+        boolean enabled = sqlSecurityConfig.isEnabled();
+        List<String> keywords = sqlSecurityConfig.getDangerousKeywords();
+        ConfigSnapshot snapshot = cachedConfig;
+        if (snapshot != null && snapshot.enabled() == enabled && snapshot.keywords().equals(keywords == null ? List.of() : keywords)) {
+            return;
+        }
+        synchronized (this) {
+            exactCache.clear();
+            fingerprintCache.clear();
+            cachedConfig = new ConfigSnapshot(enabled, keywords == null ? List.of() : new ArrayList<>(keywords));
+        }
+        if (snapshot != null) {
+            log.info("SQL security config changed, validation cache cleared");
+        }
     }
 
     /**
-     * 检查SQL中是否包含指定的危险关键字
-     * @param sql 清理后的SQL语句
-     * @param keyword 危险关键字
-     * @return 是否包含危险关键字
+     * 获取与当前配置一致的关键字匹配器，配置变化时重新编译
+     * @return 关键字匹配器
      */
-    private boolean containsDangerousKeyword(String sql, String keyword) {
-        if (StringUtils.isBlank(sql) || StringUtils.isBlank(keyword)) {
-            return false;
+    private SqlKeywordMatcher currentKeywordMatcher() {
+        List<String> keywords = sqlSecurityConfig.getDangerousKeywords();
+        SqlKeywordMatcher matcher = keywordMatcher;
+        if (matcher == null || !matcher.isCompiledFrom(keywords)) {
+            matcher = SqlKeywordMatcher.compile(keywords);
+            keywordMatcher = matcher;
+            log.info("Compiled SQL keyword matcher for {} dangerous keywords", keywords == null ? 0 : keywords.size());
         }
+        return matcher;
+    }
 
-        // 构建词边界正则表达式，确保匹配完整单词而不是子字符串
-        // 例如：避免在 "description" 中误匹配 "update"
-        String pattern = "\\b" + Pattern.quote(keyword.toLowerCase()) + "\\b";
-        Pattern compiledPattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+    private record CacheKey(DatabaseType databaseType, String sql) {
+    }
 
-        return compiledPattern.matcher(sql.toLowerCase()).find();
+    private record ConfigSnapshot(boolean enabled, List<String> keywords) {
     }
 
     /**
      * SQL验证结果类
+     * @param classification 语句分类，SQL为空时没有语句
+     * @param fingerprint SQL指纹（见 {@link SqlTokens#fingerprint()}），SQL为空时为 null
      */
-    public record SqlValidationResult(boolean valid, String errorMessage, String detectedKeyword) {
+    public record SqlValidationResult(boolean valid, String errorMessage, String detectedKeyword,
+                                      SqlClassification classification, String fingerprint) {
 
-        public static SqlValidationResult success() {
-            return new SqlValidationResult(true, null, null);
+        public static SqlValidationResult success(SqlClassification classification, String fingerprint) {
+            return new SqlValidationResult(true, null, null, classification, fingerprint);
         }
 
-        public static SqlValidationResult failure(String errorMessage, String detectedKeyword) {
-            return new SqlValidationResult(false, errorMessage, detectedKeyword);
+        public static SqlValidationResult failure(String errorMessage, String detectedKeyword, SqlClassification classification,
+                                                  String fingerprint) {
+            return new SqlValidationResult(false, errorMessage, detectedKeyword, classification, fingerprint);
         }
     }
 }
@@ -84,4 +84,24 @@ def sm4DecryptGroovy(String input) {
     }
 }
 
+// 批量解密（executeGroovyScriptBatch 调用）：整批输入复用同一个 SM4 解密器，按输入顺序返回解密后的明文
+def processBatch(List<String> inputs) {
+    SymmetricCrypto sm4 = SmUtil.sm4("1234567890123456".getBytes())
+    return inputs.collect { encryptedData ->
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            return null
+        }
+        try {
+            return sm4.decryptStr(encryptedData, CharsetUtil.CHARSET_UTF_8)
+        } catch (Exception ex) {
+            return [
+                "encrypted": encryptedData,
+                "decrypted": null,
+                "status": "failed",
+                "error": ex.getMessage()
+            ]
+        }
+    }
+}
+
 return sm4DecryptGroovy(inputString)
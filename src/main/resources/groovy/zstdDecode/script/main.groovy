@@ -1,4 +1,5 @@
 import com.github.luben.zstd.Zstd
+import com.github.luben.zstd.ZstdDecompressCtx
 import java.nio.charset.StandardCharsets
 
 def decompressGroovy(String compressed) {
@@ -11,4 +12,22 @@ def decompressGroovy(String compressed) {
     return new String(decompressedData, StandardCharsets.UTF_8);
 }
 
+// 批量解压（executeGroovyScriptBatch 调用）：整批输入复用同一个解压上下文，按输入顺序返回解压后的文本
+def processBatch(List<String> inputs) {
+    ZstdDecompressCtx ctx = new ZstdDecompressCtx()
+    try {
+        return inputs.collect { compressed ->
+            if (compressed == null || compressed.isEmpty()) {
+                return null
+            }
+            byte[] compressedBytes = Base64.getDecoder().decode(compressed)
+            byte[] decompressedData = new byte[(int) Zstd.decompressedSize(compressedBytes)]
+            ctx.decompress(decompressedData, compressedBytes)
+            return new String(decompressedData, StandardCharsets.UTF_8)
+        }
+    } finally {
+        ctx.close()
+    }
+}
+
 return decompressGroovy(inputString)
@@ -0,0 +1,27 @@
+package org.jim.mcpmysqlserver;
+
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.ai.mcp.server.type=ASYNC")
+class AsyncMcpServerApplicationTests {
+
+    @Autowired
+    private McpAsyncServer mcpAsyncServer;
+
+    @Autowired
+    private List<McpServerFeatures.AsyncToolSpecification> asyncDatabaseTools;
+
+    @Test
+    void contextLoads() {
+        assertNotNull(mcpAsyncServer);
+        assertTrue(asyncDatabaseTools.stream().anyMatch(spec -> spec.tool().name().equals("executeSqlOnDefault")));
+    }
+}
@@ -0,0 +1,357 @@
+package org.jim.mcpmysqlserver.config.extension;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Groovy扩展执行测试类
+ *
+ * @author yangxin
+ */
+class GroovyServiceTest {
+
+    @Test
+    void testCompiledScriptIsReused() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("iotdbBase64Decoder")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        Object first = groovyService.executeGroovyScript("iotdbBase64Decoder", "{\"ds\":[{\"Database\":{\"values\":\"cm9vdC5zZw==\",\"length\":7}}]}");
+        Object second = groovyService.executeGroovyScript("iotdbBase64Decoder", "not json");
+
+        assertTrue(String.valueOf(first).contains("root.sg"), String.valueOf(first));
+        assertEquals("failed", ((Map<?, ?>) second).get("status"));
+        Map<?, ?> compiledScripts = (Map<?, ?>) ReflectionTestUtils.getField(groovyService, "compiledScripts");
+        assertNotNull(compiledScripts);
+        assertEquals(1, compiledScripts.size());
+    }
+
+    @Test
+    void testScriptIsReadOnlyOnReload() throws Exception {
+        GroovyService groovyService = spy(new GroovyService());
+        Extension extension = new Extension().setName("batchUpperCase");
+        ExtensionConfig extensionConfig = new ExtensionConfig().setExtensions(List.of(extension));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        // 调用和批量处理都不再读取脚本
+        assertEquals("ABC", groovyService.executeGroovyScript("batchUpperCase", "abc"));
+        assertEquals("DEF", groovyService.executeGroovyScript("batchUpperCase", "def"));
+        assertEquals(List.of("A#batch", "B#batch"), groovyService.executeGroovyScriptBatch("batchUpperCase", List.of("a", "b")));
+        verify(groovyService, times(1)).readScript(any());
+
+        // 配置重新绑定或预热时重新读取，内容未变化时复用已编译的脚本类
+        Class<?> scriptClass = compiledScriptClass(groovyService);
+        extensionConfig.setExtensions(List.of(new Extension().setName("batchUpperCase")));
+        groovyService.executeGroovyScript("batchUpperCase", "abc");
+        groovyService.warmUp(extension, false);
+        verify(groovyService, times(3)).readScript(any());
+        assertSame(scriptClass, compiledScriptClass(groovyService));
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testConcurrentFirstCallsCompileOnce() throws Exception {
+        GroovyService groovyService = spy(new GroovyService());
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("batchUpperCase").setDeterministic(true)));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        // 并发的首次调用只编译一次，后完成的调用不会把先加载的扩展当作旧版本关闭
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Function<Object, Object>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return groovyService.columnTransformer("batchUpperCase");
+                }));
+            }
+            start.countDown();
+            for (Future<Function<Object, Object>> future : futures) {
+                assertEquals("ABC", future.get().apply("abc"));
+            }
+        }
+        verify(groovyService, times(1)).readScript(any());
+        Map<?, ?> classLoaders = (Map<?, ?>) ReflectionTestUtils.getField(groovyService, "classLoaders");
+        assertNotNull(classLoaders);
+        assertEquals(1, classLoaders.size());
+        assertEquals(ExtensionStatus.State.READY, groovyService.getStatuses().get("batchUpperCase").state());
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testDependencyClassLoaderIsKeptPerExtension() throws Exception {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("SM4Decrypt"), new Extension().setName("iotdbBase64Decoder")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        executeIgnoringRuntimeFailure(groovyService, "SM4Decrypt", "x");
+        Class<?> scriptClass = compiledScriptClass(groovyService);
+        executeIgnoringRuntimeFailure(groovyService, "SM4Decrypt", "y");
+        assertSame(scriptClass, compiledScriptClass(groovyService));
+
+        // 依赖 JAR 只在扩展自己的类加载器中可见
+        ClassLoader classLoader = scriptClass.getClassLoader();
+        assertNotNull(Class.forName("cn.hutool.core.util.CharsetUtil", false, classLoader));
+        assertThrows(ClassNotFoundException.class, () -> Class.forName("cn.hutool.core.util.CharsetUtil", false, GroovyService.class.getClassLoader()));
+
+        // 扩展被移除后关闭其类加载器
+        extensionConfig.setExtensions(List.of(new Extension().setName("iotdbBase64Decoder")));
+        groovyService.executeGroovyScript("iotdbBase64Decoder", "not json");
+        Map<?, ?> classLoaders = (Map<?, ?>) ReflectionTestUtils.getField(groovyService, "classLoaders");
+        assertNotNull(classLoaders);
+        assertEquals(Set.of("iotdbBase64Decoder"), classLoaders.keySet());
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testBatchKeepsInputOrder() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("iotdbBase64Decoder")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add("{\"ds\":[{\"v\":{\"values\":\"" + Base64.getEncoder().encodeToString(("value-" + i).getBytes()) + "\",\"length\":8}}]}");
+        }
+        inputs.set(7, " ");
+
+        List<Object> results = groovyService.executeGroovyScriptBatch("iotdbBase64Decoder", inputs);
+        assertEquals(inputs.size(), results.size());
+        assertNull(results.get(7));
+        for (int i = 0; i < inputs.size(); i++) {
+            if (i != 7) {
+                assertTrue(String.valueOf(results.get(i)).contains("\"value-" + i + "\""), String.valueOf(results.get(i)));
+            }
+        }
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testBatchMethodReceivesWholeChunk() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("batchUpperCase")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        List<Object> results = groovyService.executeGroovyScriptBatch("batchUpperCase", List.of("a", "b", "", "d"));
+        assertEquals(Arrays.asList("A", "B", null, "D"), results.stream().map(r -> r == null ? null : r.toString().split("#")[0]).toList());
+        // 同一段输入共用一次 processBatch 调用
+        assertTrue(results.stream().filter(r -> r != null).allMatch(r -> r.toString().endsWith("#batch")));
+        assertEquals("X", groovyService.executeGroovyScript("batchUpperCase", "x"));
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testColumnTransformer() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("batchUpperCase")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        Function<Object, Object> transformer = groovyService.columnTransformer("batchUpperCase");
+        assertEquals("ABC", transformer.apply("abc"));
+        assertEquals("42", transformer.apply(42));
+        // 二进制值按 Base64 编码后传入
+        assertEquals("AQI=", transformer.apply(new byte[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> groovyService.columnTransformer("missing"));
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testOverrunningScriptIsInterrupted() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("spin")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        ExtensionExecutionConfig executionConfig = new ExtensionExecutionConfig();
+        executionConfig.setTimeoutSeconds(1);
+        executionConfig.setMaxConcurrent(1);
+        executionConfig.setMaxInputLength(8);
+        setExecutor(groovyService, executionConfig);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> groovyService.executeGroovyScript("spin", "x"));
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        // 被中断的脚本结束后归还并发名额，下一次调用仍然是超时而不是被拒绝
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (true) {
+                try {
+                    groovyService.executeGroovyScript("spin", "y");
+                } catch (RuntimeException retry) {
+                    if (retry.getMessage().contains("timed out")) {
+                        return;
+                    }
+                    Thread.sleep(50);
+                }
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> groovyService.executeGroovyScript("spin", "123456789"));
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testNativeExtension() throws Exception {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig().setExtensions(List.of(
+                new Extension().setName("zstdDecode").setType(Extension.TYPE_NATIVE),
+                new Extension().setName("gzipDecode").setType(Extension.TYPE_NATIVE),
+                new Extension().setName("missingNative").setType(Extension.TYPE_NATIVE)));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        ReflectionTestUtils.setField(groovyService, "nativeExtensionRegistry", new NativeExtensionRegistry());
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        byte[] text = "snapshot".getBytes(StandardCharsets.UTF_8);
+        String zstd = Base64.getEncoder().encodeToString(Zstd.compress(text));
+        assertEquals("snapshot", groovyService.executeGroovyScript("zstdDecode", zstd));
+        assertEquals(Arrays.asList("snapshot", null), groovyService.executeGroovyScriptBatch("zstdDecode", Arrays.asList(zstd, "")));
+
+        // 二进制列值直接解压
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+            outputStream.write(text);
+        }
+        assertEquals("snapshot", groovyService.columnTransformer("gzipDecode").apply(gzip.toByteArray()));
+        // 列值转换同样经过扩展线程池
+        MeterRegistry meterRegistry = (MeterRegistry) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(groovyService, "extensionExecutor"), "meterRegistry");
+        assertEquals(1, meterRegistry.timer("mcp.extension.execution", "extension", "gzipDecode", "outcome", "success").count());
+        assertThrows(IllegalArgumentException.class, () -> groovyService.columnTransformer("missingNative"));
+        assertNotNull(groovyService.getAllExtensions().get(0).getDescription());
+    }
+
+    @Test
+    void testWarmUpRecordsReadiness() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig().setExtensions(List.of(
+                new Extension().setName("batchUpperCase").setWarmUpInput("abc"),
+                new Extension().setName("SM4Decrypt"),
+                new Extension().setName("iotdbBase64Decoder")));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        assertEquals(ExtensionStatus.State.READY, groovyService.warmUp(extensionConfig.getExtensions().get(0), true).state());
+        // SM4Decrypt 缺少 BouncyCastle，预热时即可发现
+        ExtensionStatus failed = groovyService.warmUp(extensionConfig.getExtensions().get(1), true);
+        assertEquals(ExtensionStatus.State.FAILED, failed.state());
+        assertTrue(failed.message().contains("bouncycastle"), failed.message());
+
+        List<Extension> extensions = groovyService.getAllExtensions();
+        assertNotNull(extensions.get(0).getReadiness().loadTimeMillis());
+        assertEquals(ExtensionStatus.State.COLD, extensions.get(2).getReadiness().state());
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testDeterministicResultsAreMemoized() {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig()
+                .setExtensions(List.of(new Extension().setName("batchUpperCase").setDeterministic(true)));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        setExecutor(groovyService, new ExtensionExecutionConfig());
+
+        assertEquals("ABC", groovyService.executeGroovyScript("batchUpperCase", "abc"));
+        assertEquals("ABC", groovyService.executeGroovyScript("batchUpperCase", "abc"));
+        // 批量执行时命中缓存的输入不再交给 processBatch，结果不带 #batch 标记
+        assertEquals(Arrays.asList("ABC", "D#batch"), groovyService.executeGroovyScriptBatch("batchUpperCase", List.of("abc", "d")));
+        assertEquals("D#batch", groovyService.columnTransformer("batchUpperCase").apply("d"));
+
+        ExtensionMemo memo = (ExtensionMemo) ReflectionTestUtils.getField(groovyService, "extensionMemo");
+        assertNotNull(memo);
+        memo.invalidate("batchUpperCase");
+        assertNull(memo.get("batchUpperCase", "abc"));
+        groovyService.closeAll();
+    }
+
+    @Test
+    void testNativeOutputIsBounded() throws Exception {
+        GroovyService groovyService = new GroovyService();
+        ExtensionConfig extensionConfig = new ExtensionConfig().setExtensions(List.of(
+                new Extension().setName("zstdDecode").setType(Extension.TYPE_NATIVE),
+                new Extension().setName("gzipDecode").setType(Extension.TYPE_NATIVE)));
+        ReflectionTestUtils.setField(groovyService, "extensionConfig", extensionConfig);
+        ReflectionTestUtils.setField(groovyService, "nativeExtensionRegistry", new NativeExtensionRegistry());
+        ExtensionExecutionConfig executionConfig = new ExtensionExecutionConfig();
+        executionConfig.setMaxOutputBytes(100_000);
+        setExecutor(groovyService, executionConfig);
+
+        // 1MB 的零压缩后只有几十字节
+        byte[] zeros = new byte[1_000_000];
+        byte[] zstdWithSize = Zstd.compress(zeros);
+        ByteArrayOutputStream zstdStream = new ByteArrayOutputStream();
+        try (ZstdOutputStream outputStream = new ZstdOutputStream(zstdStream)) {
+            outputStream.write(zeros);
+        }
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+            outputStream.write(zeros);
+        }
+
+        // 帧头声明的大小在分配前被拒绝，流式解压在超过限制时停止
+        Function<Object, Object> zstd = groovyService.columnTransformer("zstdDecode");
+        assertEquals(Map.of("error", "Output size 1000000 bytes exceeds the limit of 100000 bytes"), zstd.apply(zstdWithSize));
+        assertTrue(String.valueOf(zstd.apply(zstdStream.toByteArray())).contains("exceeds the limit of 100000 bytes"));
+        assertTrue(String.valueOf(groovyService.columnTransformer("gzipDecode").apply(gzip.toByteArray()))
+                .contains("exceeds the limit of 100000 bytes"));
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> groovyService.executeGroovyScript("gzipDecode", Base64.getEncoder().encodeToString(gzip.toByteArray())));
+        assertTrue(e.getMessage().contains("exceeds the limit of 100000 bytes"));
+
+        // 限制以内正常解压
+        assertEquals("snapshot", zstd.apply(Zstd.compress("snapshot".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static void setExecutor(GroovyService groovyService, ExtensionExecutionConfig executionConfig) {
+        ReflectionTestUtils.setField(groovyService, "extensionExecutor", new ExtensionExecutor(executionConfig, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(groovyService, "extensionMemo", new ExtensionMemo(new ExtensionMemoConfig(), new SimpleMeterRegistry()));
+    }
+
+    /**
+     * SM4 解密需要 BouncyCastle，测试环境中没有时脚本在运行阶段失败，不影响编译和类加载器的验证
+     */
+    private static void executeIgnoringRuntimeFailure(GroovyService groovyService, String extensionName, String input) {
+        try {
+            groovyService.executeGroovyScript(extensionName, input);
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private static Class<?> compiledScriptClass(GroovyService groovyService) {
+        Map<?, ?> compiledScripts = (Map<?, ?>) ReflectionTestUtils.getField(groovyService, "compiledScripts");
+        assertNotNull(compiledScripts);
+        return (Class<?>) compiledScripts.values().iterator().next();
+    }
+}
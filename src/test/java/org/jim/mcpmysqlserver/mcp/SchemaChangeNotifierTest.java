@@ -0,0 +1,61 @@
+package org.jim.mcpmysqlserver.mcp;
+
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.jim.mcpmysqlserver.config.SchemaCacheConfig;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 表结构变化通知测试类
+ *
+ * @author yangxin
+ */
+class SchemaChangeNotifierTest {
+
+    private static final SchemaChangedEvent EVENT = new SchemaChangedEvent("db1", 2, List.of("orders"), List.of("legacy"));
+
+    private final SchemaCacheConfig config = new SchemaCacheConfig();
+    private final McpServerTransportProvider provider = mock(McpServerTransportProvider.class);
+    private final SchemaChangeNotifier notifier = new SchemaChangeNotifier();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<McpServerTransportProvider> transportProvider = mock(ObjectProvider.class);
+        when(transportProvider.getIfAvailable()).thenReturn(provider);
+        when(provider.notifyClients(anyString(), any())).thenReturn(Mono.empty());
+        ReflectionTestUtils.setField(notifier, "schemaCacheConfig", config);
+        ReflectionTestUtils.setField(notifier, "transportProvider", transportProvider);
+        ReflectionTestUtils.setField(notifier, "resourceChangeNotification", true);
+    }
+
+    @Test
+    void testSendsResourceListChanged() {
+        notifier.onSchemaChanged(EVENT);
+
+        verify(provider).notifyClients("notifications/resources/list_changed", null);
+        verify(provider, never()).notifyClients(eq("notifications/resources/updated"), any());
+    }
+
+    @Test
+    void testNothingIsSentWhenDisabled() {
+        config.setNotifyChanges(false);
+        notifier.onSchemaChanged(EVENT);
+
+        config.setNotifyChanges(true);
+        ReflectionTestUtils.setField(notifier, "resourceChangeNotification", false);
+        notifier.onSchemaChanged(EVENT);
+
+        verifyNoInteractions(provider);
+    }
+}
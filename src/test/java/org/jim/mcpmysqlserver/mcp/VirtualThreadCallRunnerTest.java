@@ -0,0 +1,63 @@
+package org.jim.mcpmysqlserver.mcp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jim.mcpmysqlserver.service.StatementCanceller;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程调用执行器测试类
+ *
+ * @author yangxin
+ */
+class VirtualThreadCallRunnerTest {
+
+    @Test
+    void testConcurrentCalls() {
+        VirtualThreadCallRunner runner = new VirtualThreadCallRunner(new StatementCanceller(), 0, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(2);
+
+        // 两个调用互相等待对方开始，只有并发执行时才能完成
+        Mono<Boolean> call = runner.call("wait", () -> {
+            started.countDown();
+            return started.await(5, TimeUnit.SECONDS) && Thread.currentThread().isVirtual();
+        });
+        List<Boolean> results = Mono.zip(call, call, List::of).block(Duration.ofSeconds(10));
+        assertEquals(List.of(true, true), results);
+    }
+
+    @Test
+    void testTimeoutInterruptsCall() throws InterruptedException {
+        VirtualThreadCallRunner runner = new VirtualThreadCallRunner(new StatementCanceller(), 1, new SimpleMeterRegistry());
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Mono<String> call = runner.call("sleep", () -> {
+            try {
+                Thread.sleep(10_000);
+                return "done";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        assertThrows(TimeoutException.class, () -> {
+            try {
+                call.timeout(Duration.ofMillis(100)).block();
+            } catch (RuntimeException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        });
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        // 被取消的调用释放了并发许可
+        assertEquals("ok", runner.call("next", () -> "ok").block(Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,148 @@
+package org.jim.mcpmysqlserver.mcp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 虚拟线程吞吐基准测试：一批并发请求各执行一次阻塞的数据库往返（用 sleep 模拟），对比
+ * Tomcat 默认的 200 个平台线程、每个请求一个虚拟线程、以及虚拟线程在 synchronized 中阻塞（被固定在载体线程上）
+ * 和改用 ReentrantLock 后的完成时间
+ * <p>
+ * 每次调用为一批 {@code concurrency} 个请求全部完成的时间，分段锁模拟按数据源加锁（SchemaMetadataService）。
+ * 运行方式：先执行 ./mvnw test-compile，然后运行本类的 main 方法（测试类路径）
+ *
+ * @author yangxin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class VirtualThreadThroughputBenchmark {
+
+    /**
+     * 同时到达的请求数
+     */
+    @Param({"200", "1000"})
+    public int concurrency;
+
+    /**
+     * 一次数据库往返的模拟耗时（毫秒）
+     */
+    @Param({"5"})
+    public int latencyMillis;
+
+    /**
+     * 锁的数量，模拟多个数据源各自的锁
+     */
+    private static final int LOCKS = 64;
+
+    private final Object[] monitors = new Object[LOCKS];
+    private final ReentrantLock[] locks = new ReentrantLock[LOCKS];
+
+    private ExecutorService platformPool;
+    private ExecutorService virtualThreads;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < LOCKS; i++) {
+            monitors[i] = new Object();
+            locks[i] = new ReentrantLock();
+        }
+        platformPool = Executors.newFixedThreadPool(200);
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        platformPool.shutdownNow();
+        virtualThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int platformThreads() throws Exception {
+        return runBatch(platformPool, this::roundTrip);
+    }
+
+    @Benchmark
+    public int virtualThreads() throws Exception {
+        return runBatch(virtualThreads, this::roundTrip);
+    }
+
+    @Benchmark
+    public int virtualThreadsSynchronized() throws Exception {
+        return runBatch(virtualThreads, i -> {
+            synchronized (monitors[i % LOCKS]) {
+                roundTrip(i);
+            }
+        });
+    }
+
+    @Benchmark
+    public int virtualThreadsReentrantLock() throws Exception {
+        return runBatch(virtualThreads, i -> {
+            ReentrantLock lock = locks[i % LOCKS];
+            lock.lock();
+            try {
+                roundTrip(i);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void roundTrip(int i) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int runBatch(ExecutorService executor, Request request) throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> request.handle(index)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return futures.size();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void handle(int index);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VirtualThreadThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package org.jim.mcpmysqlserver.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 表结构搜索索引测试类
+ *
+ * @author yangxin
+ */
+class SchemaSearchIndexTest {
+
+    private static TableMetadata table(String name, String comment, String... columns) {
+        List<ColumnMetadata> columnList = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            columnList.add(new ColumnMetadata(columns[i], "varchar(64)", true, null, null, false, i + 1));
+        }
+        return new TableMetadata(name, "TABLE", comment, null, columnList, List.of(), null);
+    }
+
+    @Test
+    void testFuzzySearch() {
+        Map<String, TableMetadata> tables = new TreeMap<>();
+        tables.put("order_items", table("order_items", "订单明细表", "id", "order_id", "sku_code"));
+        tables.put("orders", table("orders", "订单", "id", "customer_id", "created_at"));
+        tables.put("customers", table("customers", "客户", "id", "phone_number"));
+        SchemaSearchIndex index = new SchemaSearchIndex("primary");
+        index.update(tables);
+
+        List<SchemaSearchHit> hits = index.search("order item", 5);
+        assertEquals("order_items", hits.get(0).table());
+        assertNull(hits.get(0).column());
+
+        hits = index.search("phone numbr", 5);
+        assertEquals("phone_number", hits.get(0).column());
+        assertEquals("customers", hits.get(0).table());
+
+        hits = index.search("订单明细", 5);
+        assertEquals("order_items", hits.get(0).table());
+        assertEquals("订单明细表", hits.get(0).comment());
+
+        assertTrue(index.search("zzz", 5).isEmpty());
+    }
+
+    @Test
+    void testIncrementalUpdate() {
+        Map<String, TableMetadata> tables = new TreeMap<>();
+        TableMetadata customers = table("customers", null, "id", "phone");
+        tables.put("customers", customers);
+        tables.put("orders", table("orders", null, "id"));
+        SchemaSearchIndex index = new SchemaSearchIndex("primary");
+        index.update(tables);
+        assertFalse(index.search("phone", 5).isEmpty());
+
+        // 列改名、删除表后只更新变化的表
+        tables.put("customers", table("customers", null, "id", "mobile"));
+        tables.remove("orders");
+        index.update(tables);
+        assertEquals(1, index.size());
+        assertTrue(index.search("phone", 5).isEmpty());
+        assertTrue(index.search("orders", 5).stream().noneMatch(hit -> hit.table().equals("orders")));
+        assertEquals("mobile", index.search("mobile", 5).get(0).column());
+    }
+}
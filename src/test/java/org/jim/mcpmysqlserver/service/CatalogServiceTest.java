@@ -0,0 +1,114 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.jim.mcpmysqlserver.config.SchemaCatalogConfig;
+import org.jim.mcpmysqlserver.schema.CatalogPage;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 目录浏览服务测试类，数据源为 H2 内存数据库
+ *
+ * @author yangxin
+ */
+class CatalogServiceTest {
+
+    private HikariDataSource dataSource;
+    private CatalogService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            for (String table : List.of("T05", "T03", "T01", "T04", "T02", "LOG")) {
+                statement.execute("CREATE TABLE " + table + " (ID BIGINT PRIMARY KEY)");
+            }
+        }
+
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDefaultDataSourceName()).thenReturn("db1");
+        when(dataSourceService.getDataSourceNames()).thenReturn(List.of("db1"));
+        when(dataSourceService.getDatabaseType("db1")).thenReturn(DatabaseType.H2);
+        when(dataSourceService.getDataSource("db1", true)).thenReturn(dataSource);
+
+        service = new CatalogService(new SchemaCatalogConfig(), dataSourceService);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        dataSource.close();
+    }
+
+    @Test
+    void testLikePattern() {
+        assertNull(CatalogService.likePattern(null));
+        assertNull(CatalogService.likePattern("  "));
+        assertEquals("%order%", CatalogService.likePattern(" order "));
+        assertEquals("order_%", CatalogService.likePattern("order_%"));
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        for (String name : List.of("orders", "订单_2024", "a/b+c=d")) {
+            String cursor = CatalogService.encodeCursor(name);
+            assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"));
+            assertEquals(name, CatalogService.decodeCursor(cursor));
+        }
+        assertNull(CatalogService.decodeCursor(null));
+        assertNull(CatalogService.decodeCursor(""));
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decodeCursor("not a cursor!"));
+    }
+
+    @Test
+    void testKeysetPaging() throws SQLException {
+        CatalogPage first = service.listTables("db1", "PUBLIC", "T0", null, 2);
+        assertEquals("PUBLIC", first.schema());
+        assertEquals(List.of("T01", "T02"), names(first));
+        assertNotNull(first.nextCursor());
+
+        CatalogPage second = service.listTables("db1", "PUBLIC", "T0", first.nextCursor(), 2);
+        assertEquals(List.of("T03", "T04"), names(second));
+
+        CatalogPage last = service.listTables("db1", "PUBLIC", "T0", second.nextCursor(), 2);
+        assertEquals(List.of("T05"), names(last));
+        assertNull(last.nextCursor());
+
+        // 未指定模式时为连接当前所在的模式
+        assertEquals(List.of("LOG", "T01", "T02", "T03", "T04", "T05"), names(service.listTables(null, null, null, null, null)));
+    }
+
+    @Test
+    void testPagesAreCachedUntilSchemaChanges() throws SQLException {
+        CatalogPage page = service.listTables("db1", null, null, null, 10);
+        assertSame(page, service.listTables("primary", null, null, null, 10));
+
+        service.onSchemaChanged(new SchemaChangedEvent("db1", 2, List.of("T06"), List.of()));
+        assertNotSame(page, service.listTables("db1", null, null, null, 10));
+    }
+
+    @Test
+    void testUnknownDataSourceIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.listSchemas("db2", null, null, null));
+        assertEquals("Datasource not found: db2", e.getMessage());
+    }
+
+    private static List<String> names(CatalogPage page) {
+        return page.items().stream().map(item -> (String) item.get("TABLE_NAME")).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jim.mcpmysqlserver.config.PoolAcquireMetricsTrackerFactory;
+import org.jim.mcpmysqlserver.config.PoolAcquireMetricsTrackerFactory.AcquireSnapshot;
+import org.jim.mcpmysqlserver.config.PoolAutoScalingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 连接池自动伸缩测试类，连接池为 H2 内存数据库上的 Hikari 连接池
+ *
+ * @author yangxin
+ */
+class PoolAutoScalerTest {
+
+    private static final AcquireSnapshot PRESSURE = new AcquireSnapshot(1, 0, 1);
+    private static final AcquireSnapshot QUIET = new AcquireSnapshot(0, 0, 0);
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private PoolAutoScalingConfig config;
+    private DataSourceService dataSourceService;
+    private PoolAcquireMetricsTrackerFactory acquireMetrics;
+    private SimpleMeterRegistry meterRegistry;
+    private PoolAutoScaler scaler;
+
+    @BeforeEach
+    void setUp() {
+        config = new PoolAutoScalingConfig();
+        config.setScaleUpAfter(2);
+        config.setScaleDownAfter(1);
+        dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getReadOnlyDataSources()).thenReturn(Map.of());
+        acquireMetrics = mock(PoolAcquireMetricsTrackerFactory.class);
+        meterRegistry = new SimpleMeterRegistry();
+        scaler = new PoolAutoScaler(config, dataSourceService, acquireMetrics, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void testScaleUpAfterConsecutivePressure() throws SQLException {
+        HikariDataSource pool = pool("db1", 10);
+        when(dataSourceService.getAllDataSources()).thenReturn(Map.of("db1", pool));
+        when(acquireMetrics.drain(anyString())).thenReturn(PRESSURE);
+
+        // 第一轮只累计压力，第二轮才扩容
+        scaler.adjustPools();
+        assertEquals(10, pool.getMaximumPoolSize());
+        scaler.adjustPools();
+        assertEquals(12, pool.getMaximumPoolSize());
+        assertEquals(6, pool.getMinimumIdle());
+    }
+
+    @Test
+    void testScaleDownWhenIdle() throws SQLException {
+        HikariDataSource pool = pool("db1", 10);
+        when(dataSourceService.getAllDataSources()).thenReturn(Map.of("db1", pool));
+        when(acquireMetrics.drain(anyString())).thenReturn(QUIET);
+
+        scaler.adjustPools();
+        assertEquals(8, pool.getMaximumPoolSize());
+    }
+
+    @Test
+    void testScaleUpBlockedByBudgetIncludingReadOnlyPools() throws SQLException {
+        HikariDataSource pool = pool("db1", 10);
+        HikariDataSource readOnly = pool("db1-ReadOnly", 5);
+        when(dataSourceService.getAllDataSources()).thenReturn(Map.of("db1", pool));
+        when(dataSourceService.getReadOnlyDataSources()).thenReturn(Map.<String, DataSource>of("db1", readOnly));
+        when(acquireMetrics.drain(anyString())).thenReturn(PRESSURE);
+        config.setGlobalMaxConnections(15);
+
+        scaler.adjustPools();
+        scaler.adjustPools();
+        assertEquals(10, pool.getMaximumPoolSize());
+        assertEquals(1.0, meterRegistry.counter("mcp.pool.autoscaling.decisions", "pool", "db1", "action", "blocked_by_budget").count());
+    }
+
+    private HikariDataSource pool(String name, int maximumPoolSize) throws SQLException {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(maximumPoolSize);
+        pool.setMinimumIdle(1);
+        pools.add(pool);
+        // 获取一次连接以启动连接池
+        try (Connection ignored = pool.getConnection()) {
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jim.mcpmysqlserver.config.QueryCostGuardConfig;
+import org.jim.mcpmysqlserver.config.SqlSecurityConfig;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.jim.mcpmysqlserver.validator.SqlSecurityValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 查询成本防护测试类，执行计划来自 H2 内存数据库
+ *
+ * @author yangxin
+ */
+class QueryCostGuardTest {
+
+    private final SqlSecurityValidator validator = new SqlSecurityValidator(new SqlSecurityConfig());
+    private HikariDataSource dataSource;
+    private QueryCostGuardConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private QueryCostGuard guard;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:cost;DB_CLOSE_DELAY=-1");
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS t (id INT PRIMARY KEY, v VARCHAR(20))");
+        }
+
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDatabaseType("db1")).thenReturn(DatabaseType.H2);
+
+        config = new QueryCostGuardConfig();
+        config.setEnabled(true);
+        config.setMaxFullTableScans(1);
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new QueryCostGuard(config, dataSourceService, new ObjectMapper());
+        ReflectionTestUtils.setField(guard, "meterRegistry", meterRegistry);
+        guard.bindMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testEvaluate() {
+        QueryCostGuardConfig.Limits limits = new QueryCostGuardConfig.Limits(true, QueryCostGuardConfig.Action.BLOCK, 1000, 50, 1);
+        long now = System.currentTimeMillis();
+
+        assertNull(guard.evaluate("db1", new QueryCostGuard.PlanEstimate(true, 10, 100, 1, now), limits).message());
+        assertSame(QueryCostGuard.CostVerdict.PASS, guard.evaluate("db1", QueryCostGuard.PlanEstimate.unavailable(now), limits));
+
+        QueryCostGuard.CostVerdict blocked = guard.evaluate("db1", new QueryCostGuard.PlanEstimate(true, 80, 5000, 2, now), limits);
+        assertTrue(blocked.blocked());
+        assertTrue(blocked.message().contains("estimated rows 5000"));
+        assertTrue(blocked.message().contains("estimated cost 80.00"));
+        assertTrue(blocked.message().contains("2 full table scans"));
+        assertTrue(blocked.warnings().isEmpty());
+
+        QueryCostGuardConfig.Limits warnOnly = new QueryCostGuardConfig.Limits(true, QueryCostGuardConfig.Action.WARN, 1000, 0, 0);
+        QueryCostGuard.CostVerdict warned = guard.evaluate("db1", new QueryCostGuard.PlanEstimate(true, 80, 5000, 2, now), warnOnly);
+        assertFalse(warned.blocked());
+        assertEquals(1, warned.warnings().size());
+    }
+
+    @Test
+    void testLimitDoesNotLowerEstimatedRows() throws Exception {
+        // SELECT * FROM big LIMIT 10 的执行计划：扫描节点仍按全表估算
+        String postgresPlan = "[{\"Plan\": {\"Node Type\": \"Limit\", \"Total Cost\": 0.15, \"Plan Rows\": 10, "
+                + "\"Plans\": [{\"Node Type\": \"Seq Scan\", \"Relation Name\": \"big\", \"Total Cost\": 15406.00, \"Plan Rows\": 1000000}]}}]";
+        String mysqlPlan = "{\"query_block\": {\"select_id\": 1, \"cost_info\": {\"query_cost\": \"100747.00\"}, "
+                + "\"table\": {\"table_name\": \"big\", \"access_type\": \"ALL\", \"rows_examined_per_scan\": 1000000, "
+                + "\"rows_produced_per_join\": 1000000}}}";
+        QueryCostGuardConfig.Limits limits = new QueryCostGuardConfig.Limits(true, QueryCostGuardConfig.Action.BLOCK, 100_000, 0, 0);
+        long now = System.currentTimeMillis();
+
+        QueryCostGuard.PlanEstimate postgres = guard.parseJsonPlan(DatabaseType.POSTGRESQL, postgresPlan, now);
+        assertEquals(1_000_000, postgres.estimatedRows());
+        assertEquals(0.15, postgres.cost());
+        assertEquals(1, postgres.fullTableScans());
+        assertEquals(1_000_000, guard.parseJsonPlan(DatabaseType.MYSQL, mysqlPlan, now).estimatedRows());
+
+        QueryCostGuard.CostVerdict verdict = guard.evaluate("db1", postgres, limits);
+        assertTrue(verdict.blocked());
+        String error = (String) verdict.toErrorResult().get("error");
+        assertTrue(error.contains("adding a LIMIT does not lower them"));
+        assertFalse(error.contains("or a LIMIT"));
+
+        // H2 只统计全表扫描，加上 LIMIT 同样会被拒绝
+        assertTrue(check("SELECT * FROM t a JOIN t b ON a.v = b.v LIMIT 10").blocked());
+    }
+
+    @Test
+    void testFullTableScansAreBlocked() {
+        assertFalse(check("SELECT * FROM t WHERE id = 1").blocked());
+        assertTrue(check("SELECT * FROM t a JOIN t b ON a.v = b.v").blocked());
+    }
+
+    @Test
+    void testPlansAreCachedByExactSql() {
+        // 只有字面量不同的语句指纹相同，但执行计划可能不同，必须分别 EXPLAIN
+        check("SELECT * FROM t WHERE v > 'a' LIMIT 10");
+        check("SELECT * FROM t WHERE v > 'z' LIMIT 100000000");
+        check("SELECT * FROM t WHERE v > 'a' LIMIT 10");
+
+        assertEquals(2.0, meterRegistry.get("mcp.sql.cost.guard.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("mcp.sql.cost.guard.cache.requests").tag("result", "hit").functionCounter().count());
+    }
+
+    private QueryCostGuard.CostVerdict check(String sql) {
+        return guard.check("db1", dataSource, sql, validator.validateSql(sql, DatabaseType.H2));
+    }
+}
@@ -0,0 +1,133 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jim.mcpmysqlserver.config.SchemaCacheConfig;
+import org.jim.mcpmysqlserver.schema.SchemaChangedEvent;
+import org.jim.mcpmysqlserver.schema.SchemaSnapshot;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 表结构元数据服务测试类，数据源为 H2 内存数据库
+ * <p>
+ * H2 不支持变更指纹，刷新走按间隔全量重新加载的路径
+ *
+ * @author yangxin
+ */
+class SchemaMetadataServiceTest {
+
+    private HikariDataSource dataSource;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private SchemaMetadataService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:schema;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(4);
+        execute("CREATE TABLE ORDERS (ID BIGINT PRIMARY KEY, AMOUNT DECIMAL(10, 2))",
+                "CREATE TABLE CUSTOMER (ID BIGINT PRIMARY KEY, NAME VARCHAR(64))");
+
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDefaultDataSourceName()).thenReturn("db1");
+        when(dataSourceService.getDataSourceNames()).thenReturn(List.of("db1"));
+        when(dataSourceService.getDatabaseType("db1")).thenReturn(DatabaseType.H2);
+        when(dataSourceService.getDataSource("db1", true)).thenReturn(dataSource);
+
+        SchemaCacheConfig config = new SchemaCacheConfig();
+        config.setFullReloadIntervalSeconds(1);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new SchemaMetadataService(config, dataSourceService, meterRegistry, eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        service.shutdown();
+        execute("DROP ALL OBJECTS");
+        dataSource.close();
+    }
+
+    @Test
+    void testLoadOnFirstAccess() throws SQLException {
+        SchemaSnapshot snapshot = service.getSnapshot(null);
+
+        assertEquals("db1", snapshot.dataSourceName());
+        assertEquals(1, snapshot.version());
+        assertEquals(List.of("CUSTOMER", "ORDERS"), List.copyOf(snapshot.tables().keySet()));
+        assertEquals(List.of("ID", "AMOUNT"), snapshot.table("orders").columns().stream().map(c -> c.name()).toList());
+        assertSame(snapshot, service.getSnapshot("db1"));
+        assertEquals(1.0, meterRegistry.counter("mcp.schema.refresh", "datasource", "db1", "outcome", "loaded").count());
+    }
+
+    @Test
+    void testUnknownDataSourceIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.getSnapshot("db2"));
+        assertEquals("Datasource not found: db2", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> service.searchSchema("db2", "orders", 5));
+    }
+
+    @Test
+    void testUnchangedRefreshKeepsTablesAndCaches() throws Exception {
+        SchemaSnapshot before = service.getSnapshot("db1");
+        Object description = service.describeTables("db1", List.of("ORDERS")).get("ORDERS");
+
+        Thread.sleep(1100);
+        service.refresh("db1");
+
+        SchemaSnapshot after = service.getSnapshot("db1");
+        assertEquals(1, after.version());
+        assertSame(before.table("ORDERS"), after.table("ORDERS"));
+        assertSame(description, service.describeTables("db1", List.of("ORDERS")).get("ORDERS"));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        assertEquals(1.0, meterRegistry.counter("mcp.schema.refresh", "datasource", "db1", "outcome", "unchanged").count());
+    }
+
+    @Test
+    void testChangedTableIsReloadedAndPublished() throws Exception {
+        service.getSnapshot("db1");
+        execute("ALTER TABLE ORDERS ADD COLUMN REMARK VARCHAR(255)", "DROP TABLE CUSTOMER",
+                "CREATE TABLE ORDER_ITEM (ID BIGINT PRIMARY KEY, ORDER_ID BIGINT)");
+
+        Thread.sleep(1100);
+        service.refresh("db1");
+
+        SchemaSnapshot after = service.getSnapshot("db1");
+        assertEquals(2, after.version());
+        assertEquals(List.of("ORDERS", "ORDER_ITEM"), List.copyOf(after.tables().keySet()));
+        assertEquals(List.of("ID", "AMOUNT", "REMARK"), after.table("ORDERS").columns().stream().map(c -> c.name()).toList());
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        SchemaChangedEvent event = (SchemaChangedEvent) captor.getValue();
+        assertEquals(new SchemaChangedEvent("db1", 2, List.of("ORDERS", "ORDER_ITEM"), List.of("CUSTOMER")), event);
+
+        assertTrue(service.searchSchema("db1", "remark", 5).stream().anyMatch(hit -> "REMARK".equals(hit.column())));
+        assertTrue(service.searchSchema("db1", "customer", 5).stream().noneMatch(hit -> "CUSTOMER".equals(hit.table())));
+        assertEquals(Map.of("error", "Table not found: CUSTOMER"), service.describeTables("db1", List.of("CUSTOMER")).get("CUSTOMER"));
+    }
+
+    private void execute(String... sqls) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
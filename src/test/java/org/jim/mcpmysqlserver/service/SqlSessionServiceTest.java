@@ -0,0 +1,106 @@
+package org.jim.mcpmysqlserver.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.jim.mcpmysqlserver.config.SqlSessionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SQL会话服务测试类，数据源为 H2 内存数据库
+ *
+ * @author yangxin
+ */
+class SqlSessionServiceTest {
+
+    private HikariDataSource dataSource;
+    private SqlSessionConfig config;
+    private SqlSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:session;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(4);
+
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDefaultDataSourceName()).thenReturn("db1");
+        when(dataSourceService.getDataSourceNames()).thenReturn(List.of("db1"));
+        when(dataSourceService.getDataSource("db1")).thenReturn(dataSource);
+
+        config = new SqlSessionConfig();
+        service = new SqlSessionService(config, dataSourceService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.cleanup();
+        dataSource.close();
+    }
+
+    @Test
+    void testSessionStateIsKeptAcrossCalls() throws SQLException {
+        SqlSessionService.SessionInfo session = service.beginSession(null);
+        assertEquals("db1", session.dataSourceName());
+
+        service.withSession(session.sessionId(), conn -> execute(conn, "SET @answer = 42"));
+        Integer answer = service.withSession(session.sessionId(), conn -> {
+            try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery("SELECT @answer")) {
+                rs.next();
+                return rs.getInt(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(42, answer);
+
+        assertTrue(service.endSession(session.sessionId()));
+        assertFalse(service.endSession(session.sessionId()));
+        assertThrows(IllegalArgumentException.class, () -> service.withSession(session.sessionId(), conn -> null));
+    }
+
+    @Test
+    void testIdleSessionsAreClosed() throws Exception {
+        config.setIdleTimeoutSeconds(0);
+        SqlSessionService.SessionInfo session = service.beginSession("db1");
+        Thread.sleep(5);
+
+        service.closeIdleSessions();
+        assertTrue(service.listSessions().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.getSessionDataSourceName(session.sessionId()));
+    }
+
+    @Test
+    void testSessionLimitPerDataSource() throws SQLException {
+        config.setMaxSessionsPerDataSource(1);
+        SqlSessionService.SessionInfo session = service.beginSession("db1");
+
+        assertThrows(IllegalStateException.class, () -> service.beginSession("primary"));
+        service.endSession(session.sessionId());
+        assertNotNull(service.beginSession("db1"));
+    }
+
+    @Test
+    void testUnknownDataSourceIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.beginSession("typo"));
+        assertTrue(service.listSessions().isEmpty());
+    }
+
+    private static Void execute(Connection conn, String sql) {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+            return null;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
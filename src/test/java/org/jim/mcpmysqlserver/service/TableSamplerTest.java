@@ -0,0 +1,74 @@
+package org.jim.mcpmysqlserver.service;
+
+import org.jim.mcpmysqlserver.config.TableSampleConfig;
+import org.jim.mcpmysqlserver.schema.ColumnMetadata;
+import org.jim.mcpmysqlserver.schema.TableMetadata;
+import org.jim.mcpmysqlserver.service.TableSampler.Method;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 表抽样服务测试类
+ *
+ * @author yangxin
+ */
+class TableSamplerTest {
+
+    private static final ColumnMetadata ID = column("id", "bigint", true);
+
+    private final TableSampleConfig config = new TableSampleConfig();
+    private final TableSampler sampler = new TableSampler(config, null, null, null);
+
+    @Test
+    void testIntegerPrimaryKey() {
+        assertSame(ID, TableSampler.integerPrimaryKey(table(ID, column("name", "varchar(64)", false))));
+        assertNotNull(TableSampler.integerPrimaryKey(table(column("id", "int(11) unsigned", true))));
+        assertNotNull(TableSampler.integerPrimaryKey(table(column("id", "int8", true))));
+
+        // 没有主键、复合主键、非整数主键、超出 long 范围的主键
+        assertNull(TableSampler.integerPrimaryKey(table(column("id", "bigint", false))));
+        assertNull(TableSampler.integerPrimaryKey(table(ID, column("tenant_id", "int", true))));
+        assertNull(TableSampler.integerPrimaryKey(table(column("id", "varchar(36)", true))));
+        assertNull(TableSampler.integerPrimaryKey(table(column("id", "BIGINT UNSIGNED", true))));
+        assertNull(TableSampler.integerPrimaryKey(table(column("id", null, true))));
+    }
+
+    @Test
+    void testAutoMethodFollowsEstimatedRows() {
+        config.setScanCap(1000);
+
+        // 行数未知或不超过 scanCap 时整表蓄水池抽样
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.AUTO, DatabaseType.MYSQL, null, ID));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.AUTO, DatabaseType.MYSQL, 1000L, ID));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.AUTO, DatabaseType.POSTGRESQL, 0L, ID));
+
+        assertEquals(Method.PK, sampler.resolveMethod(Method.AUTO, DatabaseType.MYSQL, 1001L, ID));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.AUTO, DatabaseType.MYSQL, 1001L, null));
+        assertEquals(Method.SYSTEM, sampler.resolveMethod(Method.AUTO, DatabaseType.POSTGRESQL, 1001L, null));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.AUTO, DatabaseType.H2, 1001L, ID));
+    }
+
+    @Test
+    void testUnsupportedMethodFallsBackToReservoir() {
+        assertEquals(Method.BERNOULLI, sampler.resolveMethod(Method.BERNOULLI, DatabaseType.POSTGRESQL, 10L, null));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.SYSTEM, DatabaseType.POSTGRESQL, null, null));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.SYSTEM, DatabaseType.MYSQL, 10L, null));
+
+        assertEquals(Method.PK, sampler.resolveMethod(Method.PK, DatabaseType.H2, null, ID));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.PK, DatabaseType.ORACLE, 10L, ID));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.PK, DatabaseType.MYSQL, 10L, null));
+        assertEquals(Method.RESERVOIR, sampler.resolveMethod(Method.RESERVOIR, DatabaseType.POSTGRESQL, 10L, ID));
+    }
+
+    private static ColumnMetadata column(String name, String type, boolean primaryKey) {
+        return new ColumnMetadata(name, type, !primaryKey, null, null, primaryKey, 1);
+    }
+
+    private static TableMetadata table(ColumnMetadata... columns) {
+        return new TableMetadata("t", "TABLE", null, null, List.of(columns), null, null);
+    }
+}
@@ -0,0 +1,45 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 行数限制改写测试类
+ *
+ * @author yangxin
+ */
+class SqlLimitRewriterTest {
+
+    private static String rewrite(String sql, DatabaseType databaseType) {
+        return SqlLimitRewriter.rewrite(SqlLexer.tokenize(sql, databaseType), 100);
+    }
+
+    @Test
+    void testDialectClauses() {
+        assertEquals("SELECT * FROM t LIMIT 100", rewrite("SELECT * FROM t", DatabaseType.MYSQL));
+        assertEquals("select * from t order by id LIMIT 100;", rewrite("select * from t order by id;", DatabaseType.POSTGRESQL));
+        assertEquals("SELECT * FROM t LIMIT 100 -- all rows", rewrite("SELECT * FROM t -- all rows", DatabaseType.H2));
+        assertEquals("select * from root.sg.d1 LIMIT 100", rewrite("select * from root.sg.d1", DatabaseType.IOTDB));
+        assertEquals("SELECT * FROM t ORDER BY id FETCH FIRST 100 ROWS ONLY", rewrite("SELECT * FROM t ORDER BY id", DatabaseType.ORACLE));
+        assertEquals("SELECT TOP 100 * FROM t", rewrite("SELECT * FROM t", DatabaseType.SQL_SERVER));
+        assertEquals("SELECT DISTINCT TOP 100 a FROM t", rewrite("SELECT DISTINCT a FROM t", DatabaseType.SQL_SERVER));
+        assertEquals("WITH c AS (SELECT * FROM t LIMIT 5) SELECT * FROM c LIMIT 100",
+                rewrite("WITH c AS (SELECT * FROM t LIMIT 5) SELECT * FROM c", DatabaseType.MYSQL));
+    }
+
+    @Test
+    void testBoundedOrUnsupported() {
+        assertNull(rewrite("SELECT * FROM t LIMIT 10", DatabaseType.MYSQL));
+        assertNull(rewrite("SELECT * FROM t OFFSET 5 ROWS FETCH NEXT 10 ROWS ONLY", DatabaseType.SQL_SERVER));
+        assertNull(rewrite("SELECT TOP 5 * FROM t", DatabaseType.SQL_SERVER));
+        assertNull(rewrite("SELECT * FROM t WHERE ROWNUM <= 10", DatabaseType.ORACLE));
+        assertNull(rewrite("SELECT * FROM t FOR UPDATE", DatabaseType.POSTGRESQL));
+        assertNull(rewrite("SELECT a FROM t UNION SELECT b FROM u", DatabaseType.SQL_SERVER));
+        assertNull(rewrite("SELECT 1; SELECT 2", DatabaseType.MYSQL));
+        assertNull(rewrite("SHOW TABLES", DatabaseType.MYSQL));
+        assertNull(rewrite("SELECT * FROM t", DatabaseType.UNKNOWN));
+        assertNull(rewrite("select * from root.** align by device", DatabaseType.IOTDB));
+    }
+}
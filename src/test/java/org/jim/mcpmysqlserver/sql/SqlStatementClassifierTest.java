@@ -0,0 +1,85 @@
+package org.jim.mcpmysqlserver.sql;
+
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL词法分析与语句分类测试类
+ *
+ * @author yangxin
+ */
+class SqlStatementClassifierTest {
+
+    private static SqlClassification classify(String sql, DatabaseType databaseType) {
+        return SqlStatementClassifier.classify(sql, databaseType);
+    }
+
+    @Test
+    void testStatementTypes() {
+        assertEquals(SqlStatementType.QUERY, classify("select * from t", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.QUERY, classify("SHOW TABLES", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.QUERY, classify("(SELECT 1) UNION (SELECT 2)", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.DML, classify("UPDATE t SET a = 1", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.DDL, classify("create table t (id int)", DatabaseType.H2).type());
+        assertEquals(SqlStatementType.DCL, classify("GRANT SELECT ON t TO u", DatabaseType.POSTGRESQL).type());
+        assertEquals(SqlStatementType.TRANSACTION, classify("START TRANSACTION", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.TRANSACTION, classify("begin", DatabaseType.POSTGRESQL).type());
+        assertEquals(SqlStatementType.OTHER, classify("BEGIN UPDATE t SET a = 1; END", DatabaseType.ORACLE).statements().get(0).type());
+        assertEquals(SqlStatementType.SESSION, classify("SET NAMES utf8mb4", DatabaseType.MYSQL).type());
+        // DO 块体中的 ; 不切分语句
+        SqlClassification doBlock = classify("DO $$ BEGIN DELETE FROM t; END $$", DatabaseType.POSTGRESQL);
+        assertEquals(1, doBlock.statements().size());
+        assertEquals(SqlStatementType.OTHER, doBlock.type());
+        assertFalse(doBlock.readOnly());
+    }
+
+    @Test
+    void testReadOnly() {
+        assertTrue(classify("SELECT * FROM t WHERE note = 'for update'", DatabaseType.MYSQL).readOnly());
+        assertTrue(classify("SELECT a INTO @x FROM t", DatabaseType.MYSQL).readOnly());
+        assertTrue(classify("EXPLAIN DELETE FROM t", DatabaseType.MYSQL).readOnly());
+        assertFalse(classify("SELECT * FROM t FOR UPDATE", DatabaseType.MYSQL).readOnly());
+        assertFalse(classify("SELECT * INTO OUTFILE '/tmp/x' FROM t", DatabaseType.MYSQL).readOnly());
+        assertFalse(classify("EXPLAIN (ANALYZE, BUFFERS) DELETE FROM t", DatabaseType.POSTGRESQL).readOnly());
+        assertFalse(classify("SELECT 1; DELETE FROM t", DatabaseType.MYSQL).readOnly());
+    }
+
+    @Test
+    void testWithStatements() {
+        assertEquals(SqlStatementType.QUERY, classify("WITH a AS (SELECT 1) SELECT * FROM a", DatabaseType.POSTGRESQL).type());
+        assertEquals(SqlStatementType.DML, classify("WITH d AS (DELETE FROM t RETURNING *) SELECT * FROM d", DatabaseType.POSTGRESQL).type());
+        assertEquals(SqlStatementType.DML, classify("WITH a AS (SELECT 1) UPDATE t SET x = 1", DatabaseType.MYSQL).type());
+    }
+
+    @Test
+    void testLiteralsIdentifiersAndComments() {
+        // 字符串、引号标识符和注释中的 ; 不切分语句
+        SqlClassification classification = classify("SELECT 'a;b', `x;y` /* ; */ FROM t -- ;\n", DatabaseType.MYSQL);
+        assertEquals(1, classification.statements().size());
+        assertEquals(1, classify("SELECT $fn$ ; drop $fn$, \"a;\" FROM t", DatabaseType.POSTGRESQL).statements().size());
+        assertEquals(1, classify("SELECT q'[it's ; ]' FROM dual", DatabaseType.ORACLE).statements().size());
+        assertEquals(1, classify("SELECT [a;b] FROM t", DatabaseType.SQL_SERVER).statements().size());
+        assertEquals(1, classify("SELECT 'it\\'s ; here'", DatabaseType.MYSQL).statements().size());
+
+        // MySQL 的 # 注释和可执行注释
+        assertEquals(1, classify("SELECT 1 # ; DELETE FROM t", DatabaseType.MYSQL).statements().size());
+        assertEquals(SqlStatementType.DML, classify("/*!50000 DELETE */ FROM t", DatabaseType.MYSQL).type());
+        assertEquals(SqlStatementType.OTHER, classify("/*!50000 DELETE */ FROM t", DatabaseType.POSTGRESQL).type());
+
+        // 未知方言保守处理：# 不是注释，MySQL 中 -- 后必须跟空白
+        assertEquals(2, classify("SELECT 1 # ; DELETE FROM t", DatabaseType.UNKNOWN).statements().size());
+        assertEquals(2, classify("SELECT 1--1; DELETE FROM t", DatabaseType.MYSQL).statements().size());
+        assertEquals(1, classify("SELECT 1--1; DELETE FROM t", DatabaseType.POSTGRESQL).statements().size());
+    }
+
+    @Test
+    void testTokens() {
+        SqlTokens tokens = SqlLexer.tokenize("SELECT `update`, last_update FROM t WHERE x = 'update'", DatabaseType.MYSQL);
+        assertEquals(SqlTokens.Type.QUOTED_IDENTIFIER, tokens.type(1));
+        assertTrue(tokens.isWord(3, "last_update"));
+        assertEquals(SqlTokens.Type.STRING, tokens.type(tokens.size() - 1));
+        assertEquals("update".hashCode(), SqlLexer.tokenize("UPDATE", DatabaseType.MYSQL).hash(0));
+    }
+}
@@ -0,0 +1,103 @@
+package org.jim.mcpmysqlserver.validator;
+
+import org.jim.mcpmysqlserver.config.SqlSecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * SQL安全验证基准测试：对比逐关键字编译正则的旧实现、预编译单次扫描的新实现以及重复SQL命中缓存的情况
+ * <p>
+ * 运行方式：先执行 ./mvnw test-compile，然后运行本类的 main 方法（测试类路径）
+ *
+ * @author yangxin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlSecurityValidatorBenchmark {
+
+    /**
+     * 生成的 SQL 大致长度（字符）
+     */
+    @Param({"2048", "16384"})
+    public int sqlLength;
+
+    private String sql;
+    private List<String> keywords;
+    private SqlSecurityValidator validator;
+    private SqlSecurityValidator cachedValidator;
+
+    @Setup
+    public void setup() {
+        SqlSecurityConfig config = new SqlSecurityConfig();
+        config.setEnabled(true);
+        config.getCache().setEnabled(false);
+        keywords = config.getDangerousKeywords();
+        validator = new SqlSecurityValidator(config);
+
+        SqlSecurityConfig cachedConfig = new SqlSecurityConfig();
+        cachedConfig.setEnabled(true);
+        cachedConfig.getCache().setMaxSqlLength(Integer.MAX_VALUE);
+        cachedValidator = new SqlSecurityValidator(cachedConfig);
+
+        // 不含危险关键字的查询是最坏情况：必须扫描完整条语句
+        StringBuilder builder = new StringBuilder("SELECT o.id, o.description, o.last_updated_by\n");
+        int i = 0;
+        while (builder.length() < sqlLength) {
+            builder.append("  , /* column ").append(i).append(" */ t").append(i % 7).append(".col_").append(i)
+                    .append(" AS alias_").append(i).append(" -- trailing note\n");
+            i++;
+        }
+        builder.append("FROM orders o JOIN customers c ON c.id = o.customer_id WHERE o.status = 'open'");
+        sql = builder.toString();
+    }
+
+    @Benchmark
+    public boolean legacyRegexPerKeyword() {
+        String cleaned = sql.replaceAll("--[^\r\n]*", "");
+        cleaned = cleaned.replaceAll("/\\*.*?\\*/", "");
+        cleaned = cleaned.replaceAll("\\s+", " ").trim();
+        for (String keyword : keywords) {
+            String pattern = "\\b" + Pattern.quote(keyword.toLowerCase()) + "\\b";
+            if (Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(cleaned.toLowerCase()).find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean precompiledSinglePass() {
+        return validator.validateSql(sql).valid();
+    }
+
+    @Benchmark
+    public boolean cachedRepeat() {
+        return cachedValidator.validateSql(sql).valid();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SqlSecurityValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package org.jim.mcpmysqlserver.validator;
+
+import org.jim.mcpmysqlserver.config.SqlSecurityConfig;
+import org.jim.mcpmysqlserver.sql.SqlStatementType;
+import org.jim.mcpmysqlserver.util.DatabaseTypeDetector.DatabaseType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL安全验证器测试类
+ *
+ * @author yangxin
+ */
+class SqlSecurityValidatorTest {
+
+    private SqlSecurityConfig config;
+    private SqlSecurityValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        config = new SqlSecurityConfig();
+        config.setEnabled(true);
+        validator = new SqlSecurityValidator(config);
+    }
+
+    @Test
+    void testSelectIsAllowed() {
+        assertTrue(validator.validateSql("SELECT id, description, last_update FROM users WHERE status = 1").valid());
+    }
+
+    @Test
+    void testDangerousKeywordIsBlocked() {
+        SqlSecurityValidator.SqlValidationResult result = validator.validateSql("UPDATE users SET name = 'a'");
+        assertFalse(result.valid());
+        assertEquals("update", result.detectedKeyword());
+
+        assertEquals("drop", validator.validateSql("select 1;\n  DrOp TABLE users").detectedKeyword());
+    }
+
+    @Test
+    void testCommentsAreIgnored() {
+        assertTrue(validator.validateSql("SELECT 1 -- delete everything\nFROM dual").valid());
+        assertTrue(validator.validateSql("SELECT /* drop\n table */ 1").valid());
+        // 注释视为空白，不能用来拼接关键字
+        assertEquals("delete", validator.validateSql("/* x */delete/* y */ FROM t").detectedKeyword());
+    }
+
+    @Test
+    void testLiteralsAndQuotedIdentifiersAreIgnored() {
+        assertTrue(validator.validateSql("SELECT `update`, note FROM t WHERE note = 'please delete me'", DatabaseType.MYSQL).valid());
+        assertTrue(validator.validateSql("SELECT \"drop\" FROM t WHERE x = $$truncate$$", DatabaseType.POSTGRESQL).valid());
+        // MySQL 可执行注释中的内容会被执行
+        assertEquals("drop", validator.validateSql("SELECT 1 /*!50000 ; DROP TABLE t */", DatabaseType.MYSQL).detectedKeyword());
+        assertEquals("delete", validator.validateSql("SELECT 1 # ; DELETE FROM t").detectedKeyword());
+        assertTrue(validator.validateSql("SELECT 1 # ; DELETE FROM t", DatabaseType.MYSQL).valid());
+    }
+
+    @Test
+    void testPostgresRoutineBodiesAreScanned() {
+        // DO 块和函数体会被服务器执行，其中的语句和 EXECUTE 的动态 SQL 都要检查
+        assertEquals("delete", validator.validateSql("DO $$ BEGIN DELETE FROM t; EXECUTE 'DROP TABLE x'; END $$",
+                DatabaseType.POSTGRESQL).detectedKeyword());
+
+        SqlSecurityConfig routineConfig = new SqlSecurityConfig();
+        routineConfig.setDangerousKeywords(List.of("delete", "drop", "truncate"));
+        SqlSecurityValidator routineValidator = new SqlSecurityValidator(routineConfig);
+        assertEquals("drop", routineValidator.validateSql("DO LANGUAGE plpgsql $body$ BEGIN EXECUTE 'DROP TABLE x'; END $body$",
+                DatabaseType.POSTGRESQL).detectedKeyword());
+        assertEquals("truncate", routineValidator.validateSql("DO 'BEGIN EXECUTE $q$TRUNCATE t$q$; END'",
+                DatabaseType.POSTGRESQL).detectedKeyword());
+        assertEquals("delete", routineValidator.validateSql("CREATE OR REPLACE FUNCTION f() RETURNS void AS $fn$ DELETE FROM t $fn$ LANGUAGE sql",
+                DatabaseType.POSTGRESQL).detectedKeyword());
+        // 普通查询中的美元引号字符串仍是字面量
+        assertTrue(routineValidator.validateSql("SELECT $$delete$$ AS note", DatabaseType.POSTGRESQL).valid());
+    }
+
+    @Test
+    void testClassificationIsReturned() {
+        SqlSecurityValidator.SqlValidationResult result = validator.validateSql("SELECT * FROM t", DatabaseType.H2);
+        assertEquals(SqlStatementType.QUERY, result.classification().type());
+        assertTrue(result.classification().readOnly());
+
+        config.setEnabled(false);
+        assertEquals(SqlStatementType.DDL, validator.validateSql("DROP TABLE t", DatabaseType.H2).classification().type());
+    }
+
+    @Test
+    void testMultiWordAndCustomKeywords() {
+        config.setDangerousKeywords(List.of("into outfile", "load_file("));
+        assertEquals("into outfile", validator.validateSql("SELECT * FROM t INTO /* c */ OUTFILE '/tmp/x'").detectedKeyword());
+        assertTrue(validator.validateSql("SELECT * FROM t INTO, OUTFILE").valid());
+        assertTrue(validator.validateSql("UPDATE t SET a = 1").valid());
+        assertEquals("load_file(", validator.validateSql("SELECT LOAD_FILE(CONCAT('/etc/', 'passwd'))").detectedKeyword());
+    }
+
+    @Test
+    void testCacheByFingerprint() {
+        SqlSecurityValidator.SqlValidationResult first = validator.validateSql("SELECT * FROM t WHERE id = 1 AND name = 'a'", DatabaseType.MYSQL);
+        // 只有字面量、大小写和空白不同，命中指纹缓存
+        assertSame(first, validator.validateSql("select *  FROM t\nWHERE id = 42 AND name = 'delete'", DatabaseType.MYSQL));
+        // 方言不同不共享缓存
+        assertNotSame(first, validator.validateSql("SELECT * FROM t WHERE id = 1 AND name = 'a'", DatabaseType.POSTGRESQL));
+
+        // 修改关键字配置后缓存失效
+        assertFalse(validator.validateSql("SELECT * FROM t FOR UPDATE", DatabaseType.MYSQL).valid());
+        config.setDangerousKeywords(List.of("drop"));
+        assertTrue(validator.validateSql("SELECT * FROM t FOR UPDATE", DatabaseType.MYSQL).valid());
+        config.setEnabled(false);
+        assertTrue(validator.validateSql("DROP TABLE t", DatabaseType.MYSQL).valid());
+        config.setEnabled(true);
+        assertFalse(validator.validateSql("DROP TABLE t", DatabaseType.MYSQL).valid());
+    }
+
+    @Test
+    void testDisabledOrBlank() {
+        assertFalse(validator.validateSql("   ").valid());
+        config.setEnabled(false);
+        assertTrue(validator.validateSql("DROP TABLE users").valid());
+    }
+}
@@ -0,0 +1,6 @@
+// 测试用扩展：单个输入转大写；批量输入时每个结果带上 #batch 标记
+def processBatch(List<String> inputs) {
+    return inputs.collect { it == null ? null : it.toUpperCase() + "#batch" }
+}
+
+return inputString.toUpperCase()
@@ -0,0 +1,5 @@
+// 测试用扩展：永不结束的循环，只能通过中断结束
+long count = 0
+while (true) {
+    count++
+}